@@ -0,0 +1,223 @@
+package searchengine.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import searchengine.Application;
+import searchengine.dto.index.IndexApiResponse;
+import searchengine.dto.search.SearchResponse;
+import searchengine.exception.SearchException;
+import searchengine.model.Site;
+import searchengine.repositories.PageRepository;
+import searchengine.services.IndexSegmentService;
+import searchengine.services.PageIndexingService;
+import searchengine.services.SearchService;
+import searchengine.services.SiteLookupService;
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Сквозной прогон индексации: поднимает {@link SyntheticSiteServer}, запускает приложение на встроенной H2
+ * и вызывает {@link PageIndexingService#startIndexing()} для синтетического сайта. Работает без сети и MySQL.
+ * <p>
+ * Запуск: {@code java -cp benchmarks/target/benchmarks.jar searchengine.benchmark.CrawlBenchmark --pages=2000}.
+ * Параметры: pages, fan-out, page-size, latency-ms, error-rate, seed, output (файл для JSON-отчёта).
+ * Остальные аргументы вида {@code --имя=значение} передаются в Spring, например {@code --logging.level.searchengine=INFO}.
+ */
+public class CrawlBenchmark {
+
+    private static final long SEARCH_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(5);
+    private static final long HEAP_SAMPLE_INTERVAL_MS = 20;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("pages", "2000");
+        options.put("fan-out", "8");
+        options.put("page-size", "5000");
+        options.put("latency-ms", "0");
+        options.put("error-rate", "0.01");
+        options.put("seed", "42");
+        options.put("output", "");
+        List<String> springArgs = new ArrayList<>();
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            int separator = option.indexOf('=');
+            String name = separator < 0 ? option : option.substring(0, separator);
+            if (options.containsKey(name) && separator >= 0) {
+                options.put(name, option.substring(separator + 1));
+            } else {
+                springArgs.add(arg);
+            }
+        }
+
+        Map<String, Object> report = run(
+                Integer.parseInt(options.get("pages")),
+                Integer.parseInt(options.get("fan-out")),
+                Integer.parseInt(options.get("page-size")),
+                Integer.parseInt(options.get("latency-ms")),
+                Double.parseDouble(options.get("error-rate")),
+                Long.parseLong(options.get("seed")),
+                springArgs);
+
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        String json = objectMapper.writeValueAsString(report);
+        System.out.println(json);
+        if (!options.get("output").isEmpty()) {
+            Files.writeString(Path.of(options.get("output")), json);
+        }
+    }
+
+    static Map<String, Object> run(int pages, int fanOut, int pageSize, int latencyMs, double errorRate, long seed,
+                                   List<String> extraSpringArgs) throws IOException, InterruptedException {
+        Path segmentsPath = Files.createTempDirectory("crawl-benchmark-segments");
+        try (SyntheticSiteServer server = new SyntheticSiteServer(pages, fanOut, pageSize, latencyMs, errorRate, seed)) {
+            List<String> springArgs = new ArrayList<>(List.of(
+                    "--spring.main.web-application-type=none",
+                    "--spring.datasource.url=jdbc:h2:mem:crawl;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                    "--spring.datasource.driver-class-name=org.h2.Driver",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                    "--spring.jpa.properties.hibernate.generate_statistics=true",
+                    "--spring.jpa.hibernate.ddl-auto=create-drop",
+                    "--logging.level.searchengine=WARN",
+                    "--logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+                    "--indexing-settings.segments-path=" + segmentsPath,
+                    "--indexing-settings.sites[0].url=" + server.getUrl(),
+                    "--indexing-settings.sites[0].name=Synthetic"
+            ));
+            springArgs.addAll(extraSpringArgs);
+
+            try (ConfigurableApplicationContext context = SpringApplication.run(Application.class, springArgs.toArray(String[]::new))) {
+                return measure(context, server, pages, fanOut, pageSize, latencyMs, errorRate, seed);
+            }
+        } finally {
+            deleteRecursively(segmentsPath);
+        }
+    }
+
+    private static Map<String, Object> measure(ConfigurableApplicationContext context, SyntheticSiteServer server,
+                                               int pages, int fanOut, int pageSize, int latencyMs, double errorRate,
+                                               long seed) throws InterruptedException {
+        PageIndexingService pageIndexingService = context.getBean(PageIndexingService.class);
+        SearchService searchService = context.getBean(SearchService.class);
+        IndexSegmentService indexSegmentService = context.getBean(IndexSegmentService.class);
+        PageRepository pageRepository = context.getBean(PageRepository.class);
+        Statistics statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        HeapSampler heapSampler = new HeapSampler();
+        heapSampler.start();
+        statistics.clear();
+
+        long startedAt = System.nanoTime();
+        IndexApiResponse response = pageIndexingService.startIndexing();
+        long crawledAt = System.nanoTime();
+        long statements = statistics.getPrepareStatementCount();
+        if (!response.isResult()) {
+            throw new IllegalStateException("Индексация не запущена: " + response.getError());
+        }
+
+        long searchableAt = awaitSearchable(searchService);
+        Site site = context.getBean(SiteLookupService.class).findByUrl(server.getUrl()).orElseThrow();
+        long segmentReadyAt = awaitSegment(indexSegmentService, site);
+        heapSampler.interrupt();
+        heapSampler.join();
+
+        int indexedPages = pageRepository.countBySite(site);
+        double crawlSeconds = (crawledAt - startedAt) / 1e9;
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("pages", pages);
+        report.put("fanOut", fanOut);
+        report.put("pageSize", pageSize);
+        report.put("latencyMs", latencyMs);
+        report.put("errorRate", errorRate);
+        report.put("seed", seed);
+        report.put("reachablePagesUpperBound", server.countHealthyPages());
+        report.put("indexedPages", indexedPages);
+        report.put("crawlSeconds", crawlSeconds);
+        report.put("pagesPerSecond", indexedPages / Math.max(crawlSeconds, 1e-9));
+        report.put("dbStatements", statements);
+        report.put("dbStatementsPerPage", indexedPages == 0 ? 0 : (double) statements / indexedPages);
+        report.put("peakHeapMb", heapSampler.peak.get() / (1024.0 * 1024.0));
+        report.put("timeToSearchableMs", TimeUnit.NANOSECONDS.toMillis(searchableAt - startedAt));
+        report.put("timeToSegmentMs", segmentReadyAt < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(segmentReadyAt - startedAt));
+        return report;
+    }
+
+    /**
+     * @return момент, когда поиск по проверочному слову впервые вернул результаты
+     */
+    private static long awaitSearchable(SearchService searchService) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + SEARCH_TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                SearchResponse response = searchService.search(SyntheticSiteServer.PROBE_WORD, null, 0, 1);
+                if (response.getCount() > 0) {
+                    return System.nanoTime();
+                }
+            } catch (SearchException e) {
+                // сайт ещё не переведён в INDEXED
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("Поиск не вернул результатов за " + SEARCH_TIMEOUT_MS + " мс");
+    }
+
+    /**
+     * @return момент публикации сегмента индекса или -1, если сегмент так и не появился
+     */
+    private static long awaitSegment(IndexSegmentService indexSegmentService, Site site) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + SEARCH_TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            if (indexSegmentService.getSegment(site).isPresent()) {
+                return System.nanoTime();
+            }
+            Thread.sleep(10);
+        }
+        return -1;
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (var paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toArray(Path[]::new)) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Пиковый размер занятой кучи, снятый опросом: сумма пиков отдельных пулов памяти его завышает.
+     */
+    private static class HeapSampler extends Thread {
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final AtomicLong peak = new AtomicLong();
+
+        private HeapSampler() {
+            super("heap-sampler");
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!isInterrupted()) {
+                peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(HEAP_SAMPLE_INTERVAL_MS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package searchengine.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import searchengine.config.AppConfig;
+import searchengine.metrics.EngineMetrics;
+import searchengine.services.HtmlParserService;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Очистка HTML от разметки при построении сниппетов и потоковое извлечение текста и ссылок при индексации.
+ * Для сравнения затрат памяти запускайте с {@code -prof gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HtmlParserBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int pageSize;
+
+    private HtmlParserService htmlParserService;
+    private String html;
+
+    @Setup
+    public void setUp() {
+        htmlParserService = new HtmlParserService(new AppConfig(), EngineMetrics.noop());
+        html = new SyntheticCorpus(42).html(pageSize);
+    }
+
+    @Benchmark
+    public void cleanHtml(Blackhole blackhole) {
+        blackhole.consume(htmlParserService.cleanHtml(html));
+    }
+
+    @Benchmark
+    public void extractTextAndLinks(Blackhole blackhole) throws IOException {
+        blackhole.consume(htmlParserService.extractTextAndLinks(html, "https://synthetic.example/", blackhole::consume));
+    }
+}
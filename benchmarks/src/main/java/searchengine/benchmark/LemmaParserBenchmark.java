@@ -0,0 +1,54 @@
+package searchengine.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import searchengine.services.LemmaParserService;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение однопроходного разбора LemmaParserService с прежней реализацией на регулярных выражениях.
+ * Запуск: {@code java -jar benchmarks/target/benchmarks.jar LemmaParserBenchmark -prof gc}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LemmaParserBenchmark {
+
+    @Param({"10000", "1000000"})
+    private int pageSize;
+
+    private LemmaParserService lemmaParserService;
+    private LegacyLemmaParser legacyLemmaParser;
+    private String page;
+
+    @Setup
+    public void setUp() throws IOException {
+        lemmaParserService = new LemmaParserService();
+        legacyLemmaParser = new LegacyLemmaParser();
+        page = new SyntheticCorpus(42).text(pageSize);
+    }
+
+    @Benchmark
+    public void parseLemmas(Blackhole blackhole) {
+        blackhole.consume(lemmaParserService.parseLemmas(page));
+    }
+
+    @Benchmark
+    public void parseLemmasLegacy(Blackhole blackhole) {
+        blackhole.consume(legacyLemmaParser.parseLemmas(page));
+    }
+
+    @Benchmark
+    public void matchWordWithLemmas(Blackhole blackhole) {
+        blackhole.consume(lemmaParserService.matchWordWithLemmas(page));
+    }
+
+    @Benchmark
+    public void matchWordWithLemmasLegacy(Blackhole blackhole) {
+        blackhole.consume(legacyLemmaParser.matchWordWithLemmas(page));
+    }
+}
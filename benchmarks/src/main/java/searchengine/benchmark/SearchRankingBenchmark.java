@@ -0,0 +1,81 @@
+package searchengine.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import searchengine.index.IndexSegment;
+import searchengine.index.ResultWindow;
+import searchengine.index.SegmentSearcher;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск кандидатов по сегменту индекса и выбор первой страницы выдачи — то, что SearchService
+ * выполняет для каждого сайта с готовым сегментом. Частые леммы дают длинные списки вхождений,
+ * редкие — короткие, поэтому сравниваются оба случая.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchRankingBenchmark {
+
+    private static final int LEMMAS_PER_PAGE = 60;
+    private static final int VOCABULARY_SIZE = 50_000;
+    private static final int RESULT_LIMIT = 20;
+    private static final double SCORE_WEIGHT = 0.5;
+
+    @Param({"10000", "100000"})
+    private int pageCount;
+
+    @Param({"2", "4"})
+    private int queryLemmas;
+
+    @Param({"frequent", "rare"})
+    private String lemmaFrequency;
+
+    private Path segmentFile;
+    private IndexSegment segment;
+    private List<String> lemmas;
+
+    @Setup
+    public void setUp() throws IOException {
+        SyntheticCorpus corpus = new SyntheticCorpus(42);
+        segmentFile = Files.createTempFile("search-ranking", ".seg");
+        segment = corpus.segment(segmentFile, pageCount, LEMMAS_PER_PAGE, VOCABULARY_SIZE);
+        lemmas = lemmaFrequency.equals("frequent")
+                ? corpus.segmentLemmas(0, queryLemmas, 1)
+                : corpus.segmentLemmas(200, queryLemmas, 50);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(segmentFile);
+    }
+
+    @Benchmark
+    public void intersect(Blackhole blackhole) {
+        blackhole.consume(SegmentSearcher.findAllMatching(segment, lemmas));
+    }
+
+    @Benchmark
+    public void intersectAndRank(Blackhole blackhole) {
+        Map<Integer, Double> relevance = SegmentSearcher.findAllMatching(segment, lemmas);
+        blackhole.consume(ResultWindow.select(relevance, 0, RESULT_LIMIT));
+    }
+
+    @Benchmark
+    public void topWithEarlyTermination(Blackhole blackhole) {
+        blackhole.consume(SegmentSearcher.findTopMatching(segment, lemmas, RESULT_LIMIT, SCORE_WEIGHT, Integer.MAX_VALUE, null));
+    }
+
+    @Benchmark
+    public void topAnyWithMaxScore(Blackhole blackhole) {
+        blackhole.consume(SegmentSearcher.findTopMatchingAny(segment, lemmas, RESULT_LIMIT, SCORE_WEIGHT, Integer.MAX_VALUE, null));
+    }
+}
@@ -0,0 +1,49 @@
+package searchengine.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import searchengine.config.AppConfig;
+import searchengine.metrics.EngineMetrics;
+import searchengine.services.HtmlParserService;
+import searchengine.services.LemmaParserService;
+import searchengine.services.SnippetBuilderService;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Построение сниппета для одной страницы выдачи. SearchService передаёт в сервис уже очищенный текст,
+ * поэтому и здесь сниппет строится по тексту без разметки.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnippetBuilderBenchmark {
+
+    @Param({"10000", "100000"})
+    private int pageSize;
+
+    @Param({"1", "3"})
+    private int queryWords;
+
+    private SnippetBuilderService snippetBuilderService;
+    private String query;
+    private String content;
+
+    @Setup
+    public void setUp() throws IOException {
+        EngineMetrics engineMetrics = EngineMetrics.noop();
+        HtmlParserService htmlParserService = new HtmlParserService(new AppConfig(), engineMetrics);
+        snippetBuilderService = new SnippetBuilderService(new LemmaParserService(engineMetrics), htmlParserService, engineMetrics);
+        SyntheticCorpus corpus = new SyntheticCorpus(42);
+        query = corpus.query(queryWords);
+        content = htmlParserService.cleanHtml(corpus.html(pageSize));
+    }
+
+    @Benchmark
+    public void generateSnippet(Blackhole blackhole) {
+        blackhole.consume(snippetBuilderService.generateSnippet(query, content));
+    }
+}
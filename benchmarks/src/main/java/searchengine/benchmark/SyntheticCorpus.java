@@ -0,0 +1,167 @@
+package searchengine.benchmark;
+
+import searchengine.index.IndexSegment;
+import searchengine.index.IndexSegmentWriter;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Воспроизводимый синтетический корпус на русском и английском: одно и то же зерно всегда даёт
+ * те же тексты, HTML-страницы и сегменты индекса. Частоты слов подчиняются закону Ципфа,
+ * служебные слова, числа и знаки препинания подмешиваются отдельно.
+ */
+public class SyntheticCorpus {
+
+    private static final String[] CONTENT_WORDS = {
+            "поиск", "сайт", "страница", "запрос", "индексация", "телефон", "доставка", "цена", "купить", "новый",
+            "поисковый", "движок", "страницы", "страниц", "сайта", "сайтов", "индексации", "лемма", "леммы",
+            "запросы", "запросов", "текст", "текста", "быстро", "медленно", "большой", "большая", "большие",
+            "новая", "новые", "работает", "работают", "находит", "нашёл", "Москва", "России", "телефоны",
+            "магазин", "магазина", "заказ", "заказа", "оплата", "гарантия", "скидка", "скидки", "каталог",
+            "товар", "товары", "товаров", "отзывы", "характеристики", "экран", "батарея", "камера", "память",
+            "search", "engine", "page", "pages", "indexed", "indexing", "query", "queries", "phone", "phones",
+            "delivery", "price", "order", "orders", "store", "review", "reviews", "camera", "battery", "screen",
+            "iPhone", "Samsung", "running", "found", "finds", "better", "faster"
+    };
+    private static final String[] STOP_WORDS = {
+            "и", "в", "на", "не", "что", "или", "но", "по", "из", "за", "же", "ли", "ох",
+            "the", "and", "of", "to", "in", "a", "or"
+    };
+    private static final String[] NOISE = {"2024", "—", "-", "«цена»", "(скидка)", "сайт.ру", "т.д.", "100%", "e-mail"};
+    private static final String[] SEPARATORS = {" ", " ", " ", " ", "\n", "\t", ", ", ". "};
+    private static final String[] TAGS = {"p", "div", "span", "li", "h2", "td"};
+    private static final double ZIPF_EXPONENT = 1.07;
+
+    private final long seed;
+    private final double[] contentCumulative = zipfCumulative(CONTENT_WORDS.length);
+
+    public SyntheticCorpus(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @param size длина текста в символах (с точностью до одного слова)
+     */
+    public String text(int size) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder(size + 32);
+        while (text.length() < size) {
+            appendWord(text, random);
+            text.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+        }
+        return text.toString();
+    }
+
+    /**
+     * HTML-страница примерно заданного размера: текст разбит на блоки разметки, между ними ссылки,
+     * скрипты и стили, которые при очистке должны отбрасываться.
+     */
+    public String html(int size) {
+        Random random = new Random(seed);
+        StringBuilder html = new StringBuilder(size + 256);
+        html.append("<!DOCTYPE html><html><head><meta charset=\"utf-8\"><title>");
+        for (int i = 0; i < 6; i++) {
+            appendWord(html, random);
+            html.append(' ');
+        }
+        html.append("</title><style>body{font-family:sans-serif}.price{color:red}</style></head><body>\n");
+        while (html.length() < size) {
+            String tag = TAGS[random.nextInt(TAGS.length)];
+            html.append('<').append(tag).append(" class=\"c").append(random.nextInt(20)).append("\">");
+            int words = 5 + random.nextInt(40);
+            for (int i = 0; i < words; i++) {
+                if (random.nextInt(25) == 0) {
+                    html.append("<a href=\"/catalog/").append(random.nextInt(10_000)).append("\">");
+                    appendWord(html, random);
+                    html.append("</a>");
+                } else {
+                    appendWord(html, random);
+                }
+                html.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+            }
+            html.append("</").append(tag).append(">\n");
+            if (random.nextInt(30) == 0) {
+                html.append("<script>window.dataLayer=window.dataLayer||[];dataLayer.push({id:")
+                        .append(random.nextInt()).append("});</script>\n");
+            }
+        }
+        html.append("</body></html>");
+        return html.toString();
+    }
+
+    /**
+     * Запрос из частых содержательных слов, поэтому его леммы гарантированно встречаются в текстах корпуса.
+     */
+    public String query(int words) {
+        Random random = new Random(seed ^ 0x5DEECE66DL);
+        StringJoiner query = new StringJoiner(" ");
+        for (int i = 0; i < words; i++) {
+            query.add(CONTENT_WORDS[random.nextInt(10)]);
+        }
+        return query.toString();
+    }
+
+    /**
+     * Записывает сегмент индекса сайта из pageCount страниц по lemmasPerPage лемм в каждой.
+     * Словарь сегмента — vocabularySize синтетических лемм с частотами по закону Ципфа.
+     * Статическая оценка страницы обратно пропорциональна её id.
+     */
+    public IndexSegment segment(Path file, int pageCount, int lemmasPerPage, int vocabularySize) throws IOException {
+        Random random = new Random(seed);
+        double[] cumulative = zipfCumulative(vocabularySize);
+        IndexSegmentWriter writer = new IndexSegmentWriter(1, "https://synthetic.example");
+        for (int pageId = 1; pageId <= pageCount; pageId++) {
+            writer.addPage(pageId, "/page/" + pageId, 1f / pageId);
+            for (int i = 0; i < lemmasPerPage; i++) {
+                int lemma = sample(cumulative, random);
+                writer.addPosting(segmentLemma(lemma), pageId, 1 + random.nextInt(20));
+            }
+        }
+        writer.write(file);
+        return IndexSegment.open(file);
+    }
+
+    /**
+     * @return леммы сегмента с рангами частоты от fromRank включительно, по одной на каждые step рангов
+     */
+    public List<String> segmentLemmas(int fromRank, int count, int step) {
+        List<String> lemmas = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lemmas.add(segmentLemma(fromRank + i * step));
+        }
+        return lemmas;
+    }
+
+    private static String segmentLemma(int rank) {
+        String word = CONTENT_WORDS[rank % CONTENT_WORDS.length].toLowerCase(Locale.ROOT);
+        int round = rank / CONTENT_WORDS.length;
+        return round == 0 ? word : word + round;
+    }
+
+    private void appendWord(StringBuilder target, Random random) {
+        int kind = random.nextInt(100);
+        if (kind < 20) {
+            target.append(STOP_WORDS[random.nextInt(STOP_WORDS.length)]);
+        } else if (kind < 24) {
+            target.append(NOISE[random.nextInt(NOISE.length)]);
+        } else {
+            target.append(CONTENT_WORDS[sample(contentCumulative, random)]);
+        }
+    }
+
+    private static int sample(double[] cumulative, Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble() * cumulative[cumulative.length - 1]);
+        return index >= 0 ? index : Math.min(-index - 1, cumulative.length - 1);
+    }
+
+    private static double[] zipfCumulative(int size) {
+        double[] cumulative = new double[size];
+        double sum = 0;
+        for (int rank = 0; rank < size; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, ZIPF_EXPONENT);
+            cumulative[rank] = sum;
+        }
+        return cumulative;
+    }
+}
@@ -0,0 +1,151 @@
+package searchengine.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Локальный HTTP-сервер с синтетическим сайтом для нагрузочного прогона краулера без выхода в сеть.
+ * Страницы /page/{n} генерируются детерминированно по зерну: текст берётся из {@link SyntheticCorpus},
+ * ссылки образуют дерево с коэффициентом ветвления fanOut и столько же случайных перекрёстных ссылок,
+ * заданная доля страниц отвечает ошибкой 500. Корень сайта — страница 0.
+ */
+public class SyntheticSiteServer implements AutoCloseable {
+
+    /**
+     * Слово, которое есть на каждой десятой странице: по нему проверяется, что сайт уже доступен для поиска.
+     */
+    public static final String PROBE_WORD = "маяк";
+
+    private final int pageCount;
+    private final int fanOut;
+    private final int pageSize;
+    private final int latencyMs;
+    private final double errorRate;
+    private final long seed;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public SyntheticSiteServer(int pageCount, int fanOut, int pageSize, int latencyMs, double errorRate, long seed)
+            throws IOException {
+        this.pageCount = pageCount;
+        this.fanOut = fanOut;
+        this.pageSize = pageSize;
+        this.latencyMs = latencyMs;
+        this.errorRate = errorRate;
+        this.seed = seed;
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newFixedThreadPool(16);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * @return число страниц, которые отвечают без ошибки, — верхняя граница того, что может сохранить краулер
+     */
+    public int countHealthyPages() {
+        int healthy = 0;
+        for (int page = 0; page < pageCount; page++) {
+            if (!isFailing(page)) {
+                healthy++;
+            }
+        }
+        return healthy;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            int page = parsePage(exchange.getRequestURI().getPath());
+            if (latencyMs > 0) {
+                sleep(latencyMs);
+            }
+            if (page < 0) {
+                respond(exchange, 404, "<html><body>Not found</body></html>");
+            } else if (isFailing(page)) {
+                respond(exchange, 500, "<html><body>Internal error</body></html>");
+            } else {
+                respond(exchange, 200, renderPage(page));
+            }
+        }
+    }
+
+    private int parsePage(String path) {
+        if (path.equals("/")) {
+            return 0;
+        }
+        if (!path.startsWith("/page/")) {
+            return -1;
+        }
+        try {
+            int page = Integer.parseInt(path.substring("/page/".length()));
+            return page >= 0 && page < pageCount ? page : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private boolean isFailing(int page) {
+        return page != 0 && new SplittableRandom(seed * 31 + page).nextDouble() < errorRate;
+    }
+
+    private String renderPage(int page) {
+        SplittableRandom random = new SplittableRandom(seed * 17 + page);
+        StringBuilder html = new StringBuilder(pageSize + 64 * fanOut + 256);
+        html.append("<!DOCTYPE html><html><head><meta charset=\"utf-8\"><title>Страница ").append(page)
+                .append("</title></head><body>\n<p>");
+        if (page % 10 == 0) {
+            html.append(PROBE_WORD).append(' ');
+        }
+        html.append(new SyntheticCorpus(seed + page).text(pageSize)).append("</p>\n<ul>\n");
+        for (int i = 1; i <= fanOut; i++) {
+            long child = (long) page * fanOut + i;
+            if (child < pageCount) {
+                appendLink(html, (int) child);
+            }
+            appendLink(html, random.nextInt(pageCount));
+        }
+        html.append("</ul>\n</body></html>");
+        return html.toString();
+    }
+
+    private static void appendLink(StringBuilder html, int page) {
+        html.append("<li><a href=\"/page/").append(page).append("\">Страница ").append(page).append("</a></li>\n");
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(int millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,41 @@
+package searchengine.analysis;
+
+/**
+ * Отпечаток текста страницы для обнаружения изменений (FNV-1a, 64 бита). Пробельные символы
+ * сворачиваются в один, поэтому перенос строк и отступы в разметке изменением не считаются.
+ * Текст можно подавать кусками, результат не зависит от того, как он разбит.
+ */
+public final class ContentHash {
+
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private long hash = OFFSET_BASIS;
+    private boolean pendingSpace;
+    private boolean empty = true;
+
+    public void add(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = !empty;
+                continue;
+            }
+            if (pendingSpace) {
+                mix(' ');
+                pendingSpace = false;
+            }
+            mix(c);
+            empty = false;
+        }
+    }
+
+    public long value() {
+        return hash;
+    }
+
+    private void mix(char c) {
+        hash = (hash ^ (c & 0xFF)) * PRIME;
+        hash = (hash ^ (c >>> 8)) * PRIME;
+    }
+}
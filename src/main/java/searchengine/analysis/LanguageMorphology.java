@@ -0,0 +1,40 @@
+package searchengine.analysis;
+
+import org.apache.lucene.morphology.LuceneMorphology;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Морфология одного языка вместе со списком служебных частей речи, которые не индексируются.
+ */
+public class LanguageMorphology {
+
+    private final LuceneMorphology luceneMorph;
+    private final Set<String> ignoredPartsOfSpeech;
+
+    public LanguageMorphology(LuceneMorphology luceneMorph, Set<String> ignoredPartsOfSpeech) {
+        this.luceneMorph = luceneMorph;
+        this.ignoredPartsOfSpeech = ignoredPartsOfSpeech;
+    }
+
+    public boolean isNotParticle(String word) {
+        return luceneMorph.getMorphInfo(word).stream()
+                .map(this::extractPartOfSpeech)
+                .noneMatch(ignoredPartsOfSpeech::contains);
+    }
+
+    public String getFirstNormalForm(String word) {
+        List<String> normalForms = luceneMorph.getNormalForms(word);
+        return normalForms.isEmpty() ? "" : normalForms.get(0);
+    }
+
+    public Set<String> getNormalForms(String word) {
+        return new HashSet<>(luceneMorph.getNormalForms(word));
+    }
+
+    private String extractPartOfSpeech(String morphInfo) {
+        String[] parts = morphInfo.split("\\s+");
+        return parts.length > 1 ? parts[1] : "";
+    }
+}
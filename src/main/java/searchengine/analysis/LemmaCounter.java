@@ -0,0 +1,92 @@
+package searchengine.analysis;
+
+import java.util.HashMap;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Счётчик лемм на открытой адресации с примитивными значениями вместо {@code Map<String, Long>}.
+ * Не потокобезопасен.
+ */
+public final class LemmaCounter {
+
+    private static final int INITIAL_CAPACITY = 128;
+
+    private String[] keys;
+    private int[] counts;
+    private int size;
+
+    public LemmaCounter() {
+        keys = new String[INITIAL_CAPACITY];
+        counts = new int[INITIAL_CAPACITY];
+    }
+
+    public void increment(String lemma) {
+        add(lemma, 1);
+    }
+
+    public void add(String lemma, int delta) {
+        int mask = keys.length - 1;
+        int slot = WordCache.spread(lemma.hashCode()) & mask;
+        while (keys[slot] != null) {
+            if (keys[slot].equals(lemma)) {
+                counts[slot] += delta;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = lemma;
+        counts[slot] = delta;
+        if (++size * 2 > keys.length) {
+            resize();
+        }
+    }
+
+    public int get(String lemma) {
+        int mask = keys.length - 1;
+        int slot = WordCache.spread(lemma.hashCode()) & mask;
+        while (keys[slot] != null) {
+            if (keys[slot].equals(lemma)) {
+                return counts[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(ObjIntConsumer<String> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                action.accept(keys[i], counts[i]);
+            }
+        }
+    }
+
+    public HashMap<String, Integer> toMap() {
+        HashMap<String, Integer> result = new HashMap<>(Math.max(16, size * 4 / 3 + 1));
+        forEach(result::put);
+        return result;
+    }
+
+    private void resize() {
+        String[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new String[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null) {
+                continue;
+            }
+            int slot = WordCache.spread(oldKeys[i].hashCode()) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            counts[slot] = oldCounts[i];
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package searchengine.analysis;
+
+/**
+ * Алфавит слова. Определяет, какой морфологией будет обработано слово.
+ */
+public enum Script {
+    CYRILLIC,
+    LATIN;
+
+    /**
+     * @return алфавит буквы или null, если символ не является русской или латинской буквой
+     */
+    public static Script of(char c) {
+        if ((c >= 'а' && c <= 'я') || (c >= 'А' && c <= 'Я')) {
+            return CYRILLIC;
+        }
+        if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+            return LATIN;
+        }
+        return null;
+    }
+
+    static char toLowerCase(char c) {
+        if (c >= 'А' && c <= 'Я') {
+            return (char) (c + ('а' - 'А'));
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return (char) (c + ('a' - 'A'));
+        }
+        return c;
+    }
+}
@@ -0,0 +1,56 @@
+package searchengine.analysis;
+
+import java.util.Map;
+
+/**
+ * Отпечаток текста для поиска почти одинаковых страниц (SimHash, 64 бита). Признаки — леммы страницы
+ * с весом, равным числу вхождений, поэтому порядок слов и разметка не влияют на отпечаток. У страниц,
+ * которые различаются малой долей слов, отпечатки отличаются в немногих битах.
+ */
+public final class SimHash {
+
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private SimHash() {
+    }
+
+    public static long of(Map<String, Integer> lemmaCounts) {
+        long[] weights = new long[Long.SIZE];
+        for (Map.Entry<String, Integer> entry : lemmaCounts.entrySet()) {
+            long hash = hash(entry.getKey());
+            int weight = entry.getValue();
+            for (int bit = 0; bit < Long.SIZE; bit++) {
+                weights[bit] += ((hash >>> bit) & 1) != 0 ? weight : -weight;
+            }
+        }
+        long fingerprint = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (weights[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    public static int distance(long first, long second) {
+        return Long.bitCount(first ^ second);
+    }
+
+    /**
+     * FNV-1a с перемешиванием из MurmurHash3: у FNV старшие биты зависят от последних символов слабо,
+     * а для SimHash каждый бит должен быть независимой монеткой.
+     */
+    private static long hash(String lemma) {
+        long hash = OFFSET_BASIS;
+        for (int i = 0; i < lemma.length(); i++) {
+            hash = (hash ^ lemma.charAt(i)) * PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
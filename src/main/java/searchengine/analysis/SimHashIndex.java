@@ -0,0 +1,95 @@
+package searchengine.analysis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Отпечатки SimHash страниц одного сайта с поиском по расстоянию Хэмминга. 64 бита делятся ровно на
+ * maxDistance + 1 полос: если отпечатки различаются не больше чем в maxDistance битах, хотя бы одна полоса
+ * совпадает целиком. Поэтому кандидаты берутся только из корзин с той же полосой, а расстояние
+ * считается лишь для них. Когда 64 не делится на число полос, полосы отличаются по ширине на один бит.
+ */
+public final class SimHashIndex {
+
+    private final int maxDistance;
+    private final int[] bandShifts;
+    private final long[] bandMasks;
+    private final List<Map<Long, List<String>>> bands = new ArrayList<>();
+    private final Map<String, Long> fingerprintsByPath = new HashMap<>();
+
+    public SimHashIndex(int maxDistance) {
+        this.maxDistance = Math.max(0, Math.min(maxDistance, Long.SIZE - 1));
+        int bandCount = this.maxDistance + 1;
+        bandShifts = new int[bandCount];
+        bandMasks = new long[bandCount];
+        for (int band = 0; band < bandCount; band++) {
+            int from = band * Long.SIZE / bandCount;
+            int to = (band + 1) * Long.SIZE / bandCount;
+            bandShifts[band] = from;
+            bandMasks[band] = to - from == Long.SIZE ? -1L : (1L << (to - from)) - 1;
+            bands.add(new HashMap<>());
+        }
+    }
+
+    public int bandCount() {
+        return bands.size();
+    }
+
+    /**
+     * Ищет другую страницу с отпечатком не дальше maxDistance. Если её нет, запоминает отпечаток страницы,
+     * заменяя прежний отпечаток с тем же путём. Проверка и запись атомарны, так что из двух одновременно
+     * пришедших копий проиндексирована будет только одна.
+     *
+     * @return путь найденной страницы или null, если страница новая
+     */
+    public synchronized String findOrAdd(String path, long fingerprint) {
+        for (int band = 0; band < bands.size(); band++) {
+            List<String> bucket = bands.get(band).get(bandValue(fingerprint, band));
+            if (bucket == null) {
+                continue;
+            }
+            for (String candidate : bucket) {
+                if (!candidate.equals(path)
+                        && SimHash.distance(fingerprint, fingerprintsByPath.get(candidate)) <= maxDistance) {
+                    return candidate;
+                }
+            }
+        }
+        add(path, fingerprint);
+        return null;
+    }
+
+    public synchronized void add(String path, long fingerprint) {
+        remove(path);
+        fingerprintsByPath.put(path, fingerprint);
+        for (int band = 0; band < bands.size(); band++) {
+            bands.get(band).computeIfAbsent(bandValue(fingerprint, band), key -> new ArrayList<>(1)).add(path);
+        }
+    }
+
+    public synchronized void remove(String path) {
+        Long fingerprint = fingerprintsByPath.remove(path);
+        if (fingerprint == null) {
+            return;
+        }
+        for (int band = 0; band < bands.size(); band++) {
+            Map<Long, List<String>> buckets = bands.get(band);
+            long value = bandValue(fingerprint, band);
+            List<String> bucket = buckets.get(value);
+            bucket.remove(path);
+            if (bucket.isEmpty()) {
+                buckets.remove(value);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return fingerprintsByPath.size();
+    }
+
+    private long bandValue(long fingerprint, int band) {
+        return (fingerprint >>> bandShifts[band]) & bandMasks[band];
+    }
+}
@@ -0,0 +1,100 @@
+package searchengine.analysis;
+
+import java.util.function.Function;
+
+/**
+ * Кэш результатов морфологического анализа с поиском по фрагменту буфера.
+ * Строка-ключ создаётся только при первой встрече слова, повторные слова обрабатываются без аллокаций.
+ * Не потокобезопасен, рассчитан на один проход по тексту.
+ */
+public final class WordCache<V> {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private String[] keys;
+    private int[] hashes;
+    private Object[] values;
+    private int size;
+
+    public WordCache() {
+        keys = new String[INITIAL_CAPACITY];
+        hashes = new int[INITIAL_CAPACITY];
+        values = new Object[INITIAL_CAPACITY];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(char[] buffer, int length, Function<String, V> loader) {
+        int hash = hash(buffer, length);
+        int mask = keys.length - 1;
+        int slot = spread(hash) & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && matches(keys[slot], buffer, length)) {
+                return (V) values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        String key = new String(buffer, 0, length);
+        V value = loader.apply(key);
+        keys[slot] = key;
+        hashes[slot] = hash;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            resize();
+        }
+        return value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void resize() {
+        String[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        Object[] oldValues = values;
+        keys = new String[oldKeys.length * 2];
+        hashes = new int[oldKeys.length * 2];
+        values = new Object[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null) {
+                continue;
+            }
+            int slot = spread(oldHashes[i]) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            hashes[slot] = oldHashes[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    private static boolean matches(String key, char[] buffer, int length) {
+        if (key.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (key.charAt(i) != buffer[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Совпадает с {@link String#hashCode()} для той же последовательности символов.
+     */
+    private static int hash(char[] buffer, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+        return hash;
+    }
+
+    static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
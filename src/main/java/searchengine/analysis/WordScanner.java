@@ -0,0 +1,114 @@
+package searchengine.analysis;
+
+import java.util.Arrays;
+
+/**
+ * Однопроходный разбор текста на слова без регулярных выражений и промежуточных строк.
+ * Границы слов совпадают с {@code text.trim().split("\\s+")}. Алфавит слова определяется по первой букве,
+ * в нормализованное слово попадают только буквы этого алфавита в нижнем регистре, поэтому каждое слово
+ * уходит ровно в одну морфологию.
+ */
+public final class WordScanner {
+
+    private static final int INITIAL_BUFFER_SIZE = 32;
+
+    private WordScanner() {
+    }
+
+    @FunctionalInterface
+    public interface WordHandler {
+
+        /**
+         * Вызывается для каждого слова, у которого после нормализации осталась хотя бы одна буква.
+         * Буфер переиспользуется между вызовами, сохранять ссылку на него нельзя.
+         *
+         * @param buffer    нормализованное слово
+         * @param length    длина нормализованного слова
+         * @param script    алфавит слова
+         * @param wordIndex порядковый номер слова в тексте, считая и пустые после нормализации слова
+         * @param start     начало исходного слова в тексте
+         * @param end       конец исходного слова в тексте (не включительно)
+         */
+        void onWord(char[] buffer, int length, Script script, int wordIndex, int start, int end);
+    }
+
+    /**
+     * @return количество слов в тексте
+     */
+    public static int scan(CharSequence text, WordHandler handler) {
+        int begin = 0;
+        int end = text.length();
+        while (begin < end && text.charAt(begin) <= ' ') {
+            begin++;
+        }
+        while (end > begin && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        char[] buffer = new char[INITIAL_BUFFER_SIZE];
+        int length = 0;
+        int wordIndex = 0;
+        int wordStart = -1;
+        Script script = null;
+
+        for (int i = begin; i < end; i++) {
+            char c = text.charAt(i);
+            if (isSpace(c)) {
+                if (wordStart >= 0) {
+                    if (length > 0) {
+                        handler.onWord(buffer, length, script, wordIndex, wordStart, i);
+                    }
+                    wordIndex++;
+                    wordStart = -1;
+                    length = 0;
+                    script = null;
+                }
+                continue;
+            }
+            if (wordStart < 0) {
+                wordStart = i;
+            }
+            Script letterScript = Script.of(c);
+            if (letterScript == null) {
+                continue;
+            }
+            if (script == null) {
+                script = letterScript;
+            } else if (letterScript != script) {
+                continue;
+            }
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, length * 2);
+            }
+            buffer[length++] = Script.toLowerCase(c);
+        }
+
+        if (wordStart >= 0) {
+            if (length > 0) {
+                handler.onWord(buffer, length, script, wordIndex, wordStart, end);
+            }
+            wordIndex++;
+        }
+        return wordIndex;
+    }
+
+    /**
+     * @return нормализованная форма первого слова или пустая строка, если в нём нет букв
+     */
+    public static String normalizeWord(CharSequence word) {
+        StringBuilder normalized = new StringBuilder();
+        scan(word, (buffer, length, script, wordIndex, start, end) -> {
+            if (wordIndex == 0) {
+                normalized.append(buffer, 0, length);
+            }
+        });
+        return normalized.toString();
+    }
+
+    /**
+     * Символы класса {@code \s} в регулярных выражениях Java.
+     */
+    static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
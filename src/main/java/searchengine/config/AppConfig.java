@@ -5,14 +5,48 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.validation.annotation.Validated;
+import searchengine.index.MatchMode;
+import javax.validation.constraints.DecimalMin;
 
 @Getter
 @Setter
 @Configuration
 @ConfigurationProperties(prefix = "indexing-settings")
 @EnableTransactionManagement
+@Validated
 public class AppConfig {
     private String userAgent = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/118.0.0.0 Safari/537.36";
     private String referrer = "http://www.google.com";
+    private String segmentsPath = "segments";
+    private long segmentWriteDelayMs = 10_000;
+    private int maxPageSize = 2 * 1024 * 1024;
+    private long statisticsReconcileIntervalMs = 300_000;
+    private int changeFeedCapacity = 4096;
+    private int searchMaxConcurrent = 8;
+    private int searchMaxQueue = 32;
+    private long searchQueueTimeoutMs = 500;
+    private int searchMaxCandidates = 50_000;
+    @DecimalMin("0")
+    private double pageScoreWeight = 0.5;
+    private MatchMode searchMatchMode = MatchMode.ALL;
+    private boolean distributedCrawl = false;
+    private int crawlWorkerThreads = 4;
+    private int crawlSiteMaxConcurrency = 0;
+    private int crawlSiteMaxPages = 0;
+    private long crawlSiteMaxDurationMs = 0;
+    private int frontierBatchSize = 10;
+    private long frontierLeaseMs = 120_000;
+    private int frontierMaxAttempts = 3;
+    private long frontierPollIntervalMs = 1000;
+    private boolean recrawlEnabled = false;
+    private int recrawlFetchesPerMinute = 30;
+    private long recrawlInitialIntervalMs = 86_400_000;
+    private long recrawlMinIntervalMs = 3_600_000;
+    private long recrawlMaxIntervalMs = 30L * 86_400_000;
+    private long recrawlPollIntervalMs = 60_000;
+    private boolean duplicateDetectionEnabled = true;
+    private int duplicateMaxDistance = 3;
+    private int duplicateMinLemmas = 20;
     private SitesList sites;
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package searchengine.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Кэш второго уровня и кэш запросов видят только записи своего экземпляра. При распределённом обходе
+ * строки меняют другие экземпляры, а с репликой сущности могут прийти из отстающей транзакции чтения,
+ * поэтому в этих режимах кэш выключается.
+ */
+@Configuration
+public class CacheConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheConfig.class);
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(AppConfig appConfig, ReadDataSourceConfig readConfig) {
+        return properties -> {
+            if (appConfig.isDistributedCrawl() || readConfig.isEnabled()) {
+                logger.info("Кэш второго уровня выключен: включён распределённый обход или задана реплика БД");
+                properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, "false");
+                properties.put(AvailableSettings.USE_QUERY_CACHE, "false");
+            }
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package searchengine.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import javax.sql.DataSource;
+
+/**
+ * Отдельные пулы подключений для индексации (основная БД) и для поиска со статистикой (реплика),
+ * чтобы обход сайтов не занимал все подключения, нужные поиску. JPA работает через маршрутизирующий
+ * источник {@link WorkloadRoutingDataSource}. Без spring.datasource.read.url остаётся один пул.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSourceConfig.class);
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * Реплика может быть недоступна при запуске: пул создаётся без проверки подключения,
+     * а ожидание подключения короткое, чтобы поиск быстро переключался на основную БД.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "spring.datasource.read", name = "url")
+    @ConfigurationProperties("spring.datasource.read.hikari")
+    public HikariDataSource readDataSource(DataSourceProperties primary, ReadDataSourceConfig read) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(read.getUrl())
+                .username(read.getUsername() != null ? read.getUsername() : primary.determineUsername())
+                .password(read.getPassword() != null ? read.getPassword() : primary.determinePassword())
+                .driverClassName(read.getDriverClassName() != null ? read.getDriverClassName() : primary.determineDriverClassName())
+                .build();
+        dataSource.setPoolName("read");
+        dataSource.setInitializationFailTimeout(-1);
+        dataSource.setConnectionTimeout(1000);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("readDataSource") ObjectProvider<DataSource> read,
+                                 ReadDataSourceConfig readConfig) {
+        DataSource readDataSource = readConfig.isEnabled() ? read.getIfAvailable() : null;
+        if (readDataSource == null) {
+            logger.info("Реплика БД не задана, поиск и индексация используют один пул");
+        } else {
+            logger.info("Поиск и статистика читают с реплики {}", readConfig.getUrl());
+        }
+        return new LazyConnectionDataSourceProxy(
+                new WorkloadRoutingDataSource(primary, readDataSource, readConfig.getRetryIntervalMs()));
+    }
+}
@@ -0,0 +1,27 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Подключение к реплике БД, с которой читают поиск и статистика. Если url не задан, реплики нет
+ * и все запросы идут в основную БД из spring.datasource. Имя пользователя, пароль и драйвер
+ * по умолчанию те же, что у основной БД. Настройки пула задаются в spring.datasource.read.hikari.
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "spring.datasource.read")
+public class ReadDataSourceConfig {
+    private String url;
+    private String username;
+    private String password;
+    private String driverClassName;
+    private long retryIntervalMs = 30_000;
+
+    public boolean isEnabled() {
+        return url != null && !url.isBlank();
+    }
+}
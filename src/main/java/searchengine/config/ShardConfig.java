@@ -0,0 +1,24 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class ShardConfig {
+    private String url;
+    private List<String> sites = new ArrayList<>();
+
+    public ShardConfig() {}
+
+    public ShardConfig(String url, List<String> sites) {
+        this.url = url;
+        this.sites = sites;
+    }
+
+    public boolean ownsSite(String siteUrl) {
+        return sites.stream().anyMatch(siteUrl::startsWith);
+    }
+}
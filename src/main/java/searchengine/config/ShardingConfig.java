@@ -0,0 +1,25 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Режим координатора: если заданы шарды, поисковые запросы рассылаются им, а не выполняются по локальной БД.
+ * Каждый шард — обычный экземпляр приложения со своей БД и своим подмножеством сайтов в indexing-settings.
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "sharding")
+public class ShardingConfig {
+    private long timeoutMs = 2000;
+    private List<ShardConfig> shards = new ArrayList<>();
+
+    public boolean isCoordinator() {
+        return !shards.isEmpty();
+    }
+}
@@ -8,6 +8,16 @@ import lombok.Setter;
 public class SiteConfig {
     private String url;
     private String name;
+    /**
+     * Доля загрузок сайта относительно остальных при обходе.
+     */
+    private double weight = 1;
+    /**
+     * Ограничения обхода сайта; 0 — использовать общие crawl-site-max-* из indexing-settings.
+     */
+    private int maxConcurrency;
+    private int maxPages;
+    private long maxDurationMs;
 
     public SiteConfig() {}
 
@@ -0,0 +1,71 @@
+package searchengine.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import searchengine.services.ReadWorkloadService;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Выбирает пул для нового подключения. В реплику идут только транзакции только для чтения, открытые
+ * внутри {@link ReadWorkloadService}; всё остальное, в том числе чтения индексатора, — в основную БД,
+ * чтобы индексатор не видел отставания реплики. Если реплика не отвечает, чтение на retryIntervalMs
+ * переключается на основную БД.
+ * <p>
+ * Используется через LazyConnectionDataSourceProxy: подключение берётся при первом SQL-запросе,
+ * когда признак readOnly транзакции уже выставлен.
+ */
+final class WorkloadRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final DataSource read;
+    private final long retryIntervalMs;
+    private volatile long readRetryAt;
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkloadRoutingDataSource.class);
+
+    WorkloadRoutingDataSource(DataSource primary, DataSource read, long retryIntervalMs) {
+        this.primary = primary;
+        this.read = read;
+        this.retryIntervalMs = retryIntervalMs;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (useRead()) {
+            try {
+                return read.getConnection();
+            } catch (SQLException e) {
+                markReadUnavailable(e);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (useRead()) {
+            try {
+                return read.getConnection(username, password);
+            } catch (SQLException e) {
+                markReadUnavailable(e);
+            }
+        }
+        return primary.getConnection(username, password);
+    }
+
+    private boolean useRead() {
+        return read != null
+                && ReadWorkloadService.isActive()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && System.currentTimeMillis() >= readRetryAt;
+    }
+
+    private void markReadUnavailable(SQLException e) {
+        readRetryAt = System.currentTimeMillis() + retryIntervalMs;
+        logger.warn("Реплика БД недоступна: {}. Чтение переключено на основную БД на {} мс", e.getMessage(), retryIntervalMs);
+    }
+}
@@ -8,10 +8,13 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import searchengine.dto.index.IndexApiResponse;
 import searchengine.dto.search.SearchResponse;
+import searchengine.dto.search.ShardSearchResponse;
 import searchengine.dto.statistics.StatisticsResponse;
+import searchengine.dto.suggest.SuggestResponse;
 import searchengine.services.PageIndexingService;
-import searchengine.services.SearchService;
+import searchengine.services.SearchAdmissionService;
 import searchengine.services.StatisticsService;
+import searchengine.services.SuggestService;
 
 @RequestMapping("/api")
 @RestController
@@ -20,7 +23,8 @@ public class ApiController {
 
     private final StatisticsService statisticsService;
     private final PageIndexingService pageIndexingService;
-    private final SearchService searchService;
+    private final SuggestService suggestService;
+    private final SearchAdmissionService searchAdmissionService;
 
     private static final Logger logger = LoggerFactory.getLogger(ApiController.class);
 
@@ -51,8 +55,25 @@ public class ApiController {
     @ResponseStatus(HttpStatus.OK)
     public SearchResponse search(@RequestParam String query, @RequestParam(required = false) String site,
                                  @RequestParam(required = false, defaultValue = "0") Integer offset,
-                                 @RequestParam(required = false, defaultValue = "20") Integer limit) {
-        return searchService.search(query, site, offset, limit);
+                                 @RequestParam(required = false, defaultValue = "20") Integer limit,
+                                 @RequestParam(required = false) String cursor) {
+        return searchAdmissionService.search(query, site, offset, limit, cursor);
+    }
+
+    @GetMapping(value = "/shard/search")
+    @ResponseStatus(HttpStatus.OK)
+    public ShardSearchResponse shardSearch(@RequestParam String query, @RequestParam(required = false) String site,
+                                           @RequestParam(required = false, defaultValue = "0") Integer offset,
+                                           @RequestParam(required = false, defaultValue = "20") Integer limit,
+                                           @RequestParam(required = false) String cursor) {
+        return searchAdmissionService.searchShard(query, site, offset, limit, cursor);
+    }
+
+    @GetMapping(value = "/suggest")
+    @ResponseStatus(HttpStatus.OK)
+    public SuggestResponse suggest(@RequestParam String query, @RequestParam(required = false) String site,
+                                   @RequestParam(required = false, defaultValue = "10") Integer limit) {
+        return suggestService.suggest(query, site, limit);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package searchengine.dto.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class IndexPosting {
+    private final Integer id;
+    private final Integer lemmaId;
+    private final Integer pageId;
+    private final float rank;
+}
@@ -0,0 +1,11 @@
+package searchengine.dto.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class LemmaFrequency {
+    private final String lemma;
+    private final int frequency;
+}
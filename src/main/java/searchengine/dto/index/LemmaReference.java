@@ -0,0 +1,11 @@
+package searchengine.dto.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class LemmaReference {
+    private final Integer id;
+    private final String lemma;
+}
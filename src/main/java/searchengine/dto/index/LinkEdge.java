@@ -0,0 +1,11 @@
+package searchengine.dto.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class LinkEdge {
+    private final Integer sourceId;
+    private final String targetPath;
+}
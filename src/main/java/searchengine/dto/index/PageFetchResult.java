@@ -1,22 +1,32 @@
 package searchengine.dto.index;
 
-import org.jsoup.nodes.Document;
-
 public class PageFetchResult {
 
-    private final Document document;
+    private final String html;
+    private final String location;
     private final int statusCode;
 
-    public PageFetchResult(Document document, int statusCode) {
-        this.document = document;
+    public PageFetchResult(String html, String location, int statusCode) {
+        this.html = html;
+        this.location = location;
         this.statusCode = statusCode;
     }
 
-    public Document getDocument() {
-        return document;
+    /**
+     * @return тело ответа, обрезанное до indexing-settings.max-page-size байт
+     */
+    public String getHtml() {
+        return html;
+    }
+
+    /**
+     * @return адрес страницы после перенаправлений, от него разрешаются относительные ссылки
+     */
+    public String getLocation() {
+        return location;
     }
 
     public int getStatusCode() {
         return statusCode;
     }
-}
\ No newline at end of file
+}
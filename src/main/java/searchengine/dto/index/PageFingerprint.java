@@ -0,0 +1,11 @@
+package searchengine.dto.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class PageFingerprint {
+    private final String path;
+    private final Long fingerprint;
+}
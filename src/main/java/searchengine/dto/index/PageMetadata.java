@@ -0,0 +1,12 @@
+package searchengine.dto.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class PageMetadata {
+    private final Integer id;
+    private final String path;
+    private final float score;
+}
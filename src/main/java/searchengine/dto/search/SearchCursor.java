@@ -0,0 +1,77 @@
+package searchengine.dto.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import searchengine.exception.SearchException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Позиция в выдаче для постраничного вывода без offset: последний выданный результат (абсолютная релевантность
+ * и id страницы), поколение индекса, к которому он относится, и максимум релевантности для нормировки.
+ * Клиенту передаётся как непрозрачная строка.
+ */
+@Getter
+@AllArgsConstructor
+public class SearchCursor {
+
+    private static final String VERSION = "1";
+
+    private final long generation;
+    private final int queryHash;
+    private final double maxRelevance;
+    private final double relevance;
+    private final int pageId;
+
+    public static int hashQuery(String query, String siteUrl) {
+        return Objects.hash(query.trim().toLowerCase(Locale.ROOT), siteUrl == null || siteUrl.isBlank() ? null : siteUrl);
+    }
+
+    /**
+     * Курсор действителен только для того же запроса к тому же поколению индекса: после переиндексации
+     * релевантности и id страниц другие, и продолжение выдачи пропустило бы или повторило результаты.
+     */
+    public void checkMatches(long currentGeneration, int currentQueryHash) {
+        if (generation != currentGeneration || queryHash != currentQueryHash) {
+            throw new SearchException("Индекс изменился или запрос не совпадает с курсором, начните поиск с первой страницы");
+        }
+    }
+
+    /**
+     * @return последний выданный результат: выдача продолжается с записей, идущих после него в порядке
+     * {@link searchengine.index.ResultWindow#BEST_FIRST}
+     */
+    public Map.Entry<Integer, Double> after() {
+        return Map.entry(pageId, relevance);
+    }
+
+    public String encode() {
+        String raw = String.join(":", VERSION,
+                Long.toHexString(generation),
+                Integer.toHexString(queryHash),
+                Long.toHexString(Double.doubleToLongBits(maxRelevance)),
+                Long.toHexString(Double.doubleToLongBits(relevance)),
+                Integer.toString(pageId));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SearchCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 6 || !parts[0].equals(VERSION)) {
+                throw new IllegalArgumentException(token);
+            }
+            return new SearchCursor(
+                    Long.parseUnsignedLong(parts[1], 16),
+                    Integer.parseUnsignedInt(parts[2], 16),
+                    Double.longBitsToDouble(Long.parseUnsignedLong(parts[3], 16)),
+                    Double.longBitsToDouble(Long.parseUnsignedLong(parts[4], 16)),
+                    Integer.parseInt(parts[5]));
+        } catch (IllegalArgumentException e) {
+            throw new SearchException("Некорректный курсор выдачи");
+        }
+    }
+}
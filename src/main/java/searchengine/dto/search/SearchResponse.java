@@ -1,5 +1,6 @@
 package searchengine.dto.search;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,4 +14,13 @@ public class SearchResponse {
     private int count;
     private List<SearchData> data;
 
+    /**
+     * Курсор следующей страницы выдачи, если страница заполнена целиком.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
+    public SearchResponse(boolean result, int count, List<SearchData> data) {
+        this(result, count, data, null);
+    }
 }
\ No newline at end of file
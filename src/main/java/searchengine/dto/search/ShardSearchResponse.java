@@ -0,0 +1,21 @@
+package searchengine.dto.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * Ответ шарда координатору. Релевантность в data нормирована по максимуму шарда,
+ * maxRelevance — этот максимум в абсолютных единицах, чтобы координатор мог перенормировать выдачу.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardSearchResponse {
+    private boolean result;
+    private int count;
+    private double maxRelevance;
+    private List<SearchData> data;
+    private String nextCursor;
+}
@@ -11,4 +11,7 @@ public class DetailedStatisticsItem {
     private String error;
     private int pages;
     private int lemmas;
+    private double pagesPerSecond;
+    private int frontierSize;
+    private long errors;
 }
\ No newline at end of file
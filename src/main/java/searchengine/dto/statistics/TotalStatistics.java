@@ -8,4 +8,6 @@ public class TotalStatistics {
     private int pages;
     private int lemmas;
     private boolean indexing;
+    private double pagesPerSecond;
+    private long errors;
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package searchengine.dto.suggest;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestData {
+    private String value;
+    private int frequency;
+}
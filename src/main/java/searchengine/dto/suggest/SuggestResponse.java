@@ -0,0 +1,14 @@
+package searchengine.dto.suggest;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestResponse {
+    private boolean result;
+    private List<SuggestData> data;
+}
@@ -0,0 +1,14 @@
+package searchengine.exception;
+
+public class SearchOverloadedException extends RuntimeException {
+    private final String message;
+
+    public SearchOverloadedException(String message) {
+        super(message);
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,17 @@
+package searchengine.feed;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import java.util.List;
+
+/**
+ * Результат чтения журнала. Если truncated, запрошенное смещение уже вытеснено из журнала,
+ * а nextOffset указывает на самое старое доступное событие.
+ */
+@Getter
+@AllArgsConstructor
+public class ChangeBatch {
+    private final List<IndexChangeEvent> events;
+    private final long nextOffset;
+    private final boolean truncated;
+}
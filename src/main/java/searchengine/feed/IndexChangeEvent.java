@@ -0,0 +1,38 @@
+package searchengine.feed;
+
+import lombok.Getter;
+import java.util.Map;
+
+/**
+ * Событие журнала изменений индекса. Для PAGE_REMOVED и LEMMA_DELTA в lemmaDeltas лежат изменения частот
+ * лемм сайта: по +1 за каждую лемму новой страницы и по -1 за каждую лемму удалённой.
+ */
+@Getter
+public class IndexChangeEvent {
+    private final long offset;
+    private final IndexChangeType type;
+    private final int siteId;
+    private final int pageId;
+    private final Map<String, Integer> lemmaDeltas;
+
+    private IndexChangeEvent(long offset, IndexChangeType type, int siteId, int pageId, Map<String, Integer> lemmaDeltas) {
+        this.offset = offset;
+        this.type = type;
+        this.siteId = siteId;
+        this.pageId = pageId;
+        this.lemmaDeltas = lemmaDeltas;
+    }
+
+    static IndexChangeEvent of(IndexChangeType type, int siteId, int pageId, Map<String, Integer> lemmaDeltas) {
+        return new IndexChangeEvent(-1, type, siteId, pageId, lemmaDeltas);
+    }
+
+    IndexChangeEvent withOffset(long offset) {
+        return new IndexChangeEvent(offset, type, siteId, pageId, lemmaDeltas);
+    }
+
+    @Override
+    public String toString() {
+        return type + "@" + offset + "[site=" + siteId + ", page=" + pageId + ", lemmas=" + lemmaDeltas.size() + "]";
+    }
+}
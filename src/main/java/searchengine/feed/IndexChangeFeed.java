@@ -0,0 +1,180 @@
+package searchengine.feed;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import searchengine.config.AppConfig;
+import searchengine.model.Page;
+import searchengine.model.Site;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Журнал изменений индекса внутри процесса. DatabaseHelperService и индексатор записывают в него события,
+ * а кэши и производные структуры обновляются по ним вместо полной перезагрузки из БД.
+ * <p>
+ * События транзакции попадают в журнал одной пачкой только после её фиксации, поэтому подписчики
+ * не видят откатившихся изменений. Каждое событие получает последовательное смещение; журнал хранит
+ * последние indexing-settings.change-feed-capacity событий, и с любого из них можно перечитать изменения.
+ */
+@Component
+public class IndexChangeFeed {
+
+    private static final int DELIVERY_BATCH_SIZE = 1024;
+
+    private final IndexChangeEvent[] events;
+    private long nextOffset;
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "index-change-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean deliveryScheduled = new AtomicBoolean(false);
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexChangeFeed.class);
+
+    public IndexChangeFeed(AppConfig appConfig) {
+        this.events = new IndexChangeEvent[Math.max(appConfig.getChangeFeedCapacity(), 1)];
+    }
+
+    public void pageAdded(Site site, Page page) {
+        record(IndexChangeEvent.of(IndexChangeType.PAGE_ADDED, site.getId(), page.getId(), Map.of()));
+    }
+
+    public void pageRemoved(Site site, Page page, Map<String, Integer> lemmaDeltas) {
+        record(IndexChangeEvent.of(IndexChangeType.PAGE_REMOVED, site.getId(), page.getId(), lemmaDeltas));
+    }
+
+    public void lemmasChanged(Site site, Page page, Map<String, Integer> lemmaDeltas) {
+        if (!lemmaDeltas.isEmpty()) {
+            record(IndexChangeEvent.of(IndexChangeType.LEMMA_DELTA, site.getId(), page.getId(), lemmaDeltas));
+        }
+    }
+
+    /**
+     * Данные сайта в БД пришли в согласованное состояние: закончен обход или переиндексация страницы.
+     */
+    public void siteGenerationCompleted(Site site) {
+        record(IndexChangeEvent.of(IndexChangeType.SITE_GENERATION_COMPLETED, site.getId(), 0, Map.of()));
+    }
+
+    public void sitesCleared() {
+        record(IndexChangeEvent.of(IndexChangeType.SITES_CLEARED, 0, 0, Map.of()));
+    }
+
+    /**
+     * Подписка с текущего конца журнала.
+     */
+    public void subscribe(IndexChangeListener listener) {
+        subscribe(listener, getNextOffset());
+    }
+
+    public void subscribe(IndexChangeListener listener, long fromOffset) {
+        subscriptions.add(new Subscription(listener, fromOffset));
+        scheduleDelivery();
+    }
+
+    public synchronized long getNextOffset() {
+        return nextOffset;
+    }
+
+    public synchronized ChangeBatch read(long fromOffset, int maxEvents) {
+        long firstOffset = Math.max(0, nextOffset - events.length);
+        if (fromOffset < firstOffset) {
+            return new ChangeBatch(List.of(), firstOffset, true);
+        }
+        long toOffset = Math.min(nextOffset, fromOffset + maxEvents);
+        List<IndexChangeEvent> batch = new ArrayList<>((int) Math.max(toOffset - fromOffset, 0));
+        for (long offset = fromOffset; offset < toOffset; offset++) {
+            batch.add(events[(int) (offset % events.length)]);
+        }
+        return new ChangeBatch(batch, Math.max(toOffset, fromOffset), false);
+    }
+
+    private void record(IndexChangeEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(List.of(event));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<IndexChangeEvent> pending = (List<IndexChangeEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<IndexChangeEvent> transactionEvents = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, transactionEvents);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(IndexChangeFeed.this);
+                    if (status == STATUS_COMMITTED) {
+                        append(transactionEvents);
+                    }
+                }
+            });
+            pending = transactionEvents;
+        }
+        pending.add(event);
+    }
+
+    private void append(List<IndexChangeEvent> batch) {
+        synchronized (this) {
+            for (IndexChangeEvent event : batch) {
+                events[(int) (nextOffset % events.length)] = event.withOffset(nextOffset);
+                nextOffset++;
+            }
+        }
+        scheduleDelivery();
+    }
+
+    private void scheduleDelivery() {
+        if (deliveryScheduled.compareAndSet(false, true)) {
+            dispatcher.execute(this::deliver);
+        }
+    }
+
+    private void deliver() {
+        deliveryScheduled.set(false);
+        for (Subscription subscription : subscriptions) {
+            while (true) {
+                ChangeBatch batch = read(subscription.position, DELIVERY_BATCH_SIZE);
+                subscription.position = batch.getNextOffset();
+                try {
+                    if (batch.isTruncated()) {
+                        logger.warn("Подписчик {} отстал от журнала изменений, требуется полная перезагрузка",
+                                subscription.listener.getClass().getSimpleName());
+                        subscription.listener.onReset();
+                        continue;
+                    }
+                    if (batch.getEvents().isEmpty()) {
+                        break;
+                    }
+                    subscription.listener.onChanges(batch.getEvents());
+                } catch (Exception e) {
+                    logger.error("Ошибка подписчика {} журнала изменений", subscription.listener.getClass().getSimpleName(), e);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+    }
+
+    private static class Subscription {
+        private final IndexChangeListener listener;
+        private long position;
+
+        private Subscription(IndexChangeListener listener, long position) {
+            this.listener = listener;
+            this.position = position;
+        }
+    }
+}
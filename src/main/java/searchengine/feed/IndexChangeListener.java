@@ -0,0 +1,17 @@
+package searchengine.feed;
+
+import java.util.List;
+
+public interface IndexChangeListener {
+
+    /**
+     * События приходят пачками в порядке смещений, по одному потоку на весь журнал.
+     */
+    void onChanges(List<IndexChangeEvent> events);
+
+    /**
+     * Журнал уже не хранит события, с которых подписчик должен продолжить: его состояние нужно перестроить целиком.
+     */
+    default void onReset() {
+    }
+}
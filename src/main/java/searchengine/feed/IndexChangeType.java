@@ -0,0 +1,5 @@
+package searchengine.feed;
+
+public enum IndexChangeType {
+    PAGE_ADDED, PAGE_REMOVED, LEMMA_DELTA, SITE_GENERATION_COMPLETED, SITES_CLEARED
+}
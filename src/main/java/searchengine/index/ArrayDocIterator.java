@@ -0,0 +1,51 @@
+package searchengine.index;
+
+import java.util.Arrays;
+
+/**
+ * Список вхождений, загруженный в память: номера страниц по возрастанию и rank каждой из них.
+ */
+public final class ArrayDocIterator implements DocIterator {
+
+    private final int[] docs;
+    private final float[] ranks;
+    private int index = -1;
+
+    public ArrayDocIterator(int[] docs, float[] ranks) {
+        this.docs = docs;
+        this.ranks = ranks;
+    }
+
+    public static ArrayDocIterator empty() {
+        return new ArrayDocIterator(new int[0], new float[0]);
+    }
+
+    @Override
+    public int doc() {
+        return index < 0 ? -1 : index < docs.length ? docs[index] : NO_MORE_DOCS;
+    }
+
+    @Override
+    public int next() {
+        index = Math.min(index + 1, docs.length);
+        return doc();
+    }
+
+    @Override
+    public int advance(int target) {
+        int from = Math.min(index + 1, docs.length);
+        int found = Arrays.binarySearch(docs, from, docs.length, target);
+        index = found >= 0 ? found : -found - 1;
+        return doc();
+    }
+
+    @Override
+    public double score() {
+        return ranks[index];
+    }
+
+    @Override
+    public long cost() {
+        return docs.length;
+    }
+}
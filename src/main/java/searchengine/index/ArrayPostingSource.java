@@ -0,0 +1,49 @@
+package searchengine.index;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Списки вхождений, загруженные из БД для сайта без сегмента. Номер страницы — её id.
+ */
+public final class ArrayPostingSource implements PostingSource {
+
+    private final Map<String, int[]> pageIds = new HashMap<>();
+    private final Map<String, float[]> ranks = new HashMap<>();
+    private final Map<Integer, String> paths = new HashMap<>();
+    private final Map<Integer, Float> scores = new HashMap<>();
+
+    public void addPage(int pageId, String path, float score) {
+        paths.put(pageId, path);
+        scores.put(pageId, score);
+    }
+
+    /**
+     * @param lemmaPageIds id страниц по возрастанию
+     */
+    public void addPostings(String lemma, int[] lemmaPageIds, float[] lemmaRanks) {
+        pageIds.put(lemma, lemmaPageIds);
+        ranks.put(lemma, lemmaRanks);
+    }
+
+    @Override
+    public DocIterator postings(String lemma) {
+        int[] docs = pageIds.get(lemma);
+        return docs == null ? ArrayDocIterator.empty() : new ArrayDocIterator(docs, ranks.get(lemma));
+    }
+
+    @Override
+    public int getPageId(int doc) {
+        return doc;
+    }
+
+    @Override
+    public float getPageScore(int doc) {
+        return scores.getOrDefault(doc, 0f);
+    }
+
+    @Override
+    public String getPagePath(int doc) {
+        return paths.getOrDefault(doc, "");
+    }
+}
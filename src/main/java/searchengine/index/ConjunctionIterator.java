@@ -0,0 +1,68 @@
+package searchengine.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Пересечение: страницы, найденные всеми частями. Ведущей становится самая короткая часть,
+ * остальные догоняют её перескоком.
+ */
+public final class ConjunctionIterator implements DocIterator {
+
+    private final List<DocIterator> iterators;
+    private final DocIterator lead;
+    private int doc = -1;
+
+    public ConjunctionIterator(List<DocIterator> iterators) {
+        this.iterators = new ArrayList<>(iterators);
+        this.iterators.sort(Comparator.comparingLong(DocIterator::cost));
+        this.lead = this.iterators.get(0);
+    }
+
+    @Override
+    public int doc() {
+        return doc;
+    }
+
+    @Override
+    public int next() {
+        return align(lead.next());
+    }
+
+    @Override
+    public int advance(int target) {
+        return align(lead.advance(target));
+    }
+
+    private int align(int candidate) {
+        search:
+        while (candidate != NO_MORE_DOCS) {
+            for (int i = 1; i < iterators.size(); i++) {
+                DocIterator iterator = iterators.get(i);
+                int current = iterator.doc() < candidate ? iterator.advance(candidate) : iterator.doc();
+                if (current > candidate) {
+                    candidate = current == NO_MORE_DOCS ? NO_MORE_DOCS : lead.advance(current);
+                    continue search;
+                }
+            }
+            break;
+        }
+        doc = candidate;
+        return doc;
+    }
+
+    @Override
+    public double score() {
+        double score = 0;
+        for (DocIterator iterator : iterators) {
+            score += iterator.score();
+        }
+        return score;
+    }
+
+    @Override
+    public long cost() {
+        return lead.cost();
+    }
+}
@@ -0,0 +1,66 @@
+package searchengine.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Объединение: страницы, найденные хотя бы одной частью. Слияние идёт по наименьшему текущему номеру,
+ * релевантность складывается из частей, стоящих на этой странице.
+ */
+public final class DisjunctionIterator implements DocIterator {
+
+    private final List<DocIterator> iterators;
+    private int doc = -1;
+
+    public DisjunctionIterator(List<DocIterator> iterators) {
+        this.iterators = new ArrayList<>(iterators);
+    }
+
+    @Override
+    public int doc() {
+        return doc;
+    }
+
+    @Override
+    public int next() {
+        int current = doc;
+        int candidate = NO_MORE_DOCS;
+        for (DocIterator iterator : iterators) {
+            int position = iterator.doc() <= current ? iterator.next() : iterator.doc();
+            candidate = Math.min(candidate, position);
+        }
+        doc = candidate;
+        return doc;
+    }
+
+    @Override
+    public int advance(int target) {
+        int candidate = NO_MORE_DOCS;
+        for (DocIterator iterator : iterators) {
+            int position = iterator.doc() < target ? iterator.advance(target) : iterator.doc();
+            candidate = Math.min(candidate, position);
+        }
+        doc = candidate;
+        return doc;
+    }
+
+    @Override
+    public double score() {
+        double score = 0;
+        for (DocIterator iterator : iterators) {
+            if (iterator.doc() == doc) {
+                score += iterator.score();
+            }
+        }
+        return score;
+    }
+
+    @Override
+    public long cost() {
+        long cost = 0;
+        for (DocIterator iterator : iterators) {
+            cost += iterator.cost();
+        }
+        return cost;
+    }
+}
@@ -0,0 +1,35 @@
+package searchengine.index;
+
+/**
+ * Проход по возрастающим номерам страниц, найденных частью запроса. Номер страницы — порядковый номер
+ * в сегменте или id страницы, если списки вхождений загружены из БД. До первого вызова {@link #next()}
+ * или {@link #advance(int)} текущий номер равен -1.
+ */
+public interface DocIterator {
+
+    int NO_MORE_DOCS = Integer.MAX_VALUE;
+
+    int doc();
+
+    /**
+     * @return следующий номер страницы или {@link #NO_MORE_DOCS}
+     */
+    int next();
+
+    /**
+     * Переходит к первой странице с номером не меньше target; target больше текущего номера.
+     *
+     * @return номер страницы или {@link #NO_MORE_DOCS}
+     */
+    int advance(int target);
+
+    /**
+     * @return сумма rank лемм, найденных на текущей странице
+     */
+    double score();
+
+    /**
+     * @return оценка числа страниц сверху, по ней пересечение выбирает ведущий список
+     */
+    long cost();
+}
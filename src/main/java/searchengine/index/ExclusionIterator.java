@@ -0,0 +1,54 @@
+package searchengine.index;
+
+/**
+ * Разность: страницы включаемой части, которых нет в исключаемой. Исключаемая часть читается только
+ * перескоком к очередному кандидату и в релевантность не входит.
+ */
+public final class ExclusionIterator implements DocIterator {
+
+    private final DocIterator include;
+    private final DocIterator exclude;
+    private int doc = -1;
+
+    public ExclusionIterator(DocIterator include, DocIterator exclude) {
+        this.include = include;
+        this.exclude = exclude;
+    }
+
+    @Override
+    public int doc() {
+        return doc;
+    }
+
+    @Override
+    public int next() {
+        return skipExcluded(include.next());
+    }
+
+    @Override
+    public int advance(int target) {
+        return skipExcluded(include.advance(target));
+    }
+
+    private int skipExcluded(int candidate) {
+        while (candidate != NO_MORE_DOCS) {
+            int excluded = exclude.doc() < candidate ? exclude.advance(candidate) : exclude.doc();
+            if (excluded != candidate) {
+                break;
+            }
+            candidate = include.next();
+        }
+        doc = candidate;
+        return doc;
+    }
+
+    @Override
+    public double score() {
+        return include.score();
+    }
+
+    @Override
+    public long cost() {
+        return include.cost();
+    }
+}
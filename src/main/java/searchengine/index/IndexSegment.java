@@ -0,0 +1,198 @@
+package searchengine.index;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Неизменяемый сегмент индекса одного сайта, отображённый в память.
+ * Данные читаются напрямую из страничного кэша ОС и не копируются в кучу, все чтения абсолютные,
+ * поэтому сегмент можно использовать из нескольких потоков одновременно.
+ *
+ * <pre>
+ * заголовок   MAGIC, VERSION, siteId, pageCount, lemmaCount, длина url, createdAt, смещения секций, url сайта
+ * словарь     lemmaCount записей: смещение и длина леммы, число страниц, максимальный rank, смещение вхождений
+ * леммы       UTF-8, отсортированы побайтно
+ * вхождения   для каждой леммы сжатый список (номер страницы в сегменте, rank) по возрастанию номера,
+ *             формат описан в {@link PostingsCodec}
+ * страницы    pageCount записей: id страницы, смещение и длина пути, статическая оценка
+ * пути        UTF-8
+ * </pre>
+ * Номера страниц в сегменте назначаются по убыванию статической оценки, так что списки вхождений
+ * начинаются с лучших страниц. Сегмент старой версии не открывается и переписывается заново.
+ */
+public final class IndexSegment {
+
+    static final int MAGIC = 0x53454731;
+    static final int VERSION = 3;
+    static final int HEADER_SIZE = 80;
+    static final int DICTIONARY_ENTRY_SIZE = 24;
+    static final int PAGE_ENTRY_SIZE = 16;
+
+    private final Path path;
+    private final int siteId;
+    private final String siteUrl;
+    private final int pageCount;
+    private final int lemmaCount;
+    private final long createdAt;
+    private final ByteBuffer dictionary;
+    private final ByteBuffer terms;
+    private final ByteBuffer postings;
+    private final ByteBuffer pages;
+    private final ByteBuffer paths;
+
+    private IndexSegment(Path path, ByteBuffer header, FileChannel channel) throws IOException {
+        this.path = path;
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Неизвестный формат сегмента " + path);
+        }
+        siteId = header.getInt(8);
+        pageCount = header.getInt(12);
+        lemmaCount = header.getInt(16);
+        int urlLength = header.getInt(20);
+        createdAt = header.getLong(24);
+        long dictionaryOffset = header.getLong(32);
+        long termsOffset = header.getLong(40);
+        long postingsOffset = header.getLong(48);
+        long pagesOffset = header.getLong(56);
+        long pathsOffset = header.getLong(64);
+        long fileLength = header.getLong(72);
+        if (fileLength != channel.size()) {
+            throw new IOException("Сегмент " + path + " повреждён: ожидалось " + fileLength + " байт, получено " + channel.size());
+        }
+
+        byte[] url = new byte[urlLength];
+        channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, urlLength).get(url);
+        siteUrl = new String(url, StandardCharsets.UTF_8);
+
+        dictionary = map(channel, dictionaryOffset, termsOffset);
+        terms = map(channel, termsOffset, postingsOffset);
+        postings = map(channel, postingsOffset, pagesOffset);
+        pages = map(channel, pagesOffset, pathsOffset);
+        paths = map(channel, pathsOffset, fileLength);
+    }
+
+    public static IndexSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Сегмент " + path + " повреждён: нет заголовка");
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            return new IndexSegment(path, header, channel);
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long from, long to) throws IOException {
+        if (to - from > Integer.MAX_VALUE) {
+            throw new IOException("Секция сегмента больше 2 ГБ");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int getSiteId() {
+        return siteId;
+    }
+
+    public String getSiteUrl() {
+        return siteUrl;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public int getLemmaCount() {
+        return lemmaCount;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * @return номер леммы в словаре сегмента или -1, если леммы нет
+     */
+    public int findLemma(String lemma) {
+        byte[] key = lemma.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = lemmaCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareTerm(middle, key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    public String getLemma(int lemmaOrdinal) {
+        int entry = lemmaOrdinal * DICTIONARY_ENTRY_SIZE;
+        byte[] bytes = new byte[dictionary.getInt(entry + 4)];
+        terms.get(dictionary.getInt(entry), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public int getDocFrequency(int lemmaOrdinal) {
+        return dictionary.getInt(lemmaOrdinal * DICTIONARY_ENTRY_SIZE + 8);
+    }
+
+    public float getMaxRank(int lemmaOrdinal) {
+        return dictionary.getFloat(lemmaOrdinal * DICTIONARY_ENTRY_SIZE + 12);
+    }
+
+    public PostingsCursor postings(int lemmaOrdinal) {
+        int entry = lemmaOrdinal * DICTIONARY_ENTRY_SIZE;
+        return new PostingsCursor(postings, (int) dictionary.getLong(entry + 16), dictionary.getInt(entry + 8),
+                dictionary.getFloat(entry + 12));
+    }
+
+    public int getPageId(int pageOrdinal) {
+        return pages.getInt(pageOrdinal * PAGE_ENTRY_SIZE);
+    }
+
+    /**
+     * @return статическая оценка страницы; не возрастает с номером страницы
+     */
+    public float getPageScore(int pageOrdinal) {
+        return pages.getFloat(pageOrdinal * PAGE_ENTRY_SIZE + 12);
+    }
+
+    public String getPagePath(int pageOrdinal) {
+        int entry = pageOrdinal * PAGE_ENTRY_SIZE;
+        byte[] bytes = new byte[pages.getInt(entry + 8)];
+        paths.get(pages.getInt(entry + 4), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int compareTerm(int lemmaOrdinal, byte[] key) {
+        int entry = lemmaOrdinal * DICTIONARY_ENTRY_SIZE;
+        int offset = dictionary.getInt(entry);
+        int length = dictionary.getInt(entry + 4);
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int comparison = Integer.compare(terms.get(offset + i) & 0xFF, key[i] & 0xFF);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    @Override
+    public String toString() {
+        return "IndexSegment[" + siteUrl + ", страниц: " + pageCount + ", лемм: " + lemmaCount + "]";
+    }
+}
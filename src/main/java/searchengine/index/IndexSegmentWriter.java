@@ -0,0 +1,195 @@
+package searchengine.index;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Собирает сегмент индекса сайта в памяти и записывает его на диск в формате {@link IndexSegment}.
+ * Файл сначала пишется во временный и затем атомарно переименовывается, поэтому читатели
+ * никогда не видят недописанный сегмент.
+ */
+public final class IndexSegmentWriter {
+
+    private final int siteId;
+    private final String siteUrl;
+    private final Map<Integer, PageEntry> pagesById = new HashMap<>();
+    private final Map<String, PostingsBuffer> postingsByLemma = new HashMap<>();
+
+    public IndexSegmentWriter(int siteId, String siteUrl) {
+        this.siteId = siteId;
+        this.siteUrl = siteUrl;
+    }
+
+    public void addPage(int pageId, String path, float score) {
+        pagesById.put(pageId, new PageEntry(path, score));
+    }
+
+    public void addPosting(String lemma, int pageId, float rank) {
+        postingsByLemma.computeIfAbsent(lemma, key -> new PostingsBuffer()).add(pageId, rank);
+    }
+
+    public void write(Path target) throws IOException {
+        int[] pageIds = pagesById.keySet().stream()
+                .sorted(Comparator.comparing((Integer pageId) -> pagesById.get(pageId).score).reversed()
+                        .thenComparing(Comparator.naturalOrder()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        byte[][] paths = new byte[pageIds.length][];
+        for (int i = 0; i < pageIds.length; i++) {
+            paths[i] = pagesById.get(pageIds[i]).path.getBytes(StandardCharsets.UTF_8);
+        }
+        int[] sortedPageIds = pageIds.clone();
+        Arrays.sort(sortedPageIds);
+        int[] ordinalsBySortedId = new int[pageIds.length];
+        for (int ordinal = 0; ordinal < pageIds.length; ordinal++) {
+            ordinalsBySortedId[Arrays.binarySearch(sortedPageIds, pageIds[ordinal])] = ordinal;
+        }
+
+        List<byte[]> lemmas = new ArrayList<>(postingsByLemma.size());
+        Map<byte[], PostingsBuffer> postingsByTerm = new IdentityHashMap<>();
+        for (Map.Entry<String, PostingsBuffer> entry : postingsByLemma.entrySet()) {
+            byte[] term = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            entry.getValue().toOrdinals(sortedPageIds, ordinalsBySortedId);
+            if (entry.getValue().size > 0) {
+                lemmas.add(term);
+                postingsByTerm.put(term, entry.getValue());
+            }
+        }
+        lemmas.sort(Arrays::compareUnsigned);
+
+        byte[] url = siteUrl.getBytes(StandardCharsets.UTF_8);
+        long dictionaryOffset = IndexSegment.HEADER_SIZE + url.length;
+        long termsOffset = dictionaryOffset + (long) lemmas.size() * IndexSegment.DICTIONARY_ENTRY_SIZE;
+        long postingsOffset = termsOffset + lemmas.stream().mapToLong(term -> term.length).sum();
+        Map<byte[], byte[]> encodedByTerm = new IdentityHashMap<>();
+        for (byte[] term : lemmas) {
+            encodedByTerm.put(term, postingsByTerm.get(term).encode());
+        }
+        long pagesOffset = postingsOffset + encodedByTerm.values().stream().mapToLong(encoded -> encoded.length).sum();
+        long pathsOffset = pagesOffset + (long) pageIds.length * IndexSegment.PAGE_ENTRY_SIZE;
+        long fileLength = pathsOffset + Arrays.stream(paths).mapToLong(path -> path.length).sum();
+        if (pagesOffset - postingsOffset > Integer.MAX_VALUE) {
+            throw new IOException("Списки вхождений сайта " + siteUrl + " не помещаются в один сегмент");
+        }
+
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (OutputStream file = Files.newOutputStream(temporary);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(IndexSegment.MAGIC);
+            out.writeInt(IndexSegment.VERSION);
+            out.writeInt(siteId);
+            out.writeInt(pageIds.length);
+            out.writeInt(lemmas.size());
+            out.writeInt(url.length);
+            out.writeLong(System.currentTimeMillis());
+            out.writeLong(dictionaryOffset);
+            out.writeLong(termsOffset);
+            out.writeLong(postingsOffset);
+            out.writeLong(pagesOffset);
+            out.writeLong(pathsOffset);
+            out.writeLong(fileLength);
+            out.write(url);
+
+            int termOffset = 0;
+            long postingOffset = 0;
+            for (byte[] term : lemmas) {
+                PostingsBuffer postings = postingsByTerm.get(term);
+                out.writeInt(termOffset);
+                out.writeInt(term.length);
+                out.writeInt(postings.size);
+                out.writeFloat(postings.maxRank());
+                out.writeLong(postingOffset);
+                termOffset += term.length;
+                postingOffset += encodedByTerm.get(term).length;
+            }
+            for (byte[] term : lemmas) {
+                out.write(term);
+            }
+            for (byte[] term : lemmas) {
+                out.write(encodedByTerm.get(term));
+            }
+
+            int pathOffset = 0;
+            for (int i = 0; i < pageIds.length; i++) {
+                out.writeInt(pageIds[i]);
+                out.writeInt(pathOffset);
+                out.writeInt(paths[i].length);
+                out.writeFloat(pagesById.get(pageIds[i]).score);
+                pathOffset += paths[i].length;
+            }
+            for (byte[] path : paths) {
+                out.write(path);
+            }
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Вхождения одной леммы: номер страницы в старших 32 битах, биты rank в младших,
+     * так что сортировка long-значений упорядочивает вхождения по странице.
+     */
+    private static final class PostingsBuffer {
+        private long[] entries = new long[4];
+        private int size;
+
+        void add(int pageId, float rank) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = ((long) pageId << 32) | (Float.floatToIntBits(rank) & 0xFFFFFFFFL);
+        }
+
+        void toOrdinals(int[] sortedPageIds, int[] ordinalsBySortedId) {
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                int position = Arrays.binarySearch(sortedPageIds, (int) (entries[i] >>> 32));
+                if (position >= 0) {
+                    entries[count++] = ((long) ordinalsBySortedId[position] << 32) | (entries[i] & 0xFFFFFFFFL);
+                }
+            }
+            Arrays.sort(entries, 0, count);
+            size = 0;
+            for (int i = 0; i < count; i++) {
+                if (size == 0 || (entries[size - 1] >>> 32) != (entries[i] >>> 32)) {
+                    entries[size++] = entries[i];
+                }
+            }
+        }
+
+        float maxRank() {
+            float max = 0;
+            for (int i = 0; i < size; i++) {
+                max = Math.max(max, Float.intBitsToFloat((int) entries[i]));
+            }
+            return max;
+        }
+
+        byte[] encode() {
+            int[] ordinals = new int[size];
+            float[] ranks = new float[size];
+            for (int i = 0; i < size; i++) {
+                ordinals[i] = (int) (entries[i] >>> 32);
+                ranks[i] = Float.intBitsToFloat((int) entries[i]);
+            }
+            return PostingsCodec.encode(ordinals, ranks, size);
+        }
+    }
+
+    private static final class PageEntry {
+        private final String path;
+        private final float score;
+
+        private PageEntry(String path, float score) {
+            this.path = path;
+            this.score = score;
+        }
+    }
+}
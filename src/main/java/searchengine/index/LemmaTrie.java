@@ -0,0 +1,229 @@
+package searchengine.index;
+
+import searchengine.dto.index.LemmaFrequency;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Неизменяемое префиксное дерево лемм с весами, упакованное в плоские массивы.
+ * Дети каждого узла лежат подряд и отсортированы по символу, так что переход по символу - двоичный поиск,
+ * а для выбора лучших продолжений в каждом узле хранится максимальный вес его поддерева.
+ */
+public final class LemmaTrie {
+
+    private static final LemmaTrie EMPTY = build(new String[0], new int[0]);
+
+    private final char[] labels;
+    private final int[] parents;
+    private final int[] childStart;
+    private final int[] weights;
+    private final int[] maxWeights;
+
+    private LemmaTrie(char[] labels, int[] parents, int[] childStart, int[] weights, int[] maxWeights) {
+        this.labels = labels;
+        this.parents = parents;
+        this.childStart = childStart;
+        this.weights = weights;
+        this.maxWeights = maxWeights;
+    }
+
+    public static LemmaTrie empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @param lemmas  леммы, отсортированные по возрастанию и без повторов
+     * @param weights веса лемм, больше нуля
+     */
+    public static LemmaTrie build(String[] lemmas, int[] weights) {
+        int capacity = Math.max(16, lemmas.length * 2);
+        char[] labels = new char[capacity];
+        int[] parents = new int[capacity];
+        int[] nodeWeights = new int[capacity];
+        int[] childStart = new int[capacity + 1];
+        int[] rangeFrom = new int[capacity];
+        int[] rangeTo = new int[capacity];
+        int[] depths = new int[capacity];
+
+        parents[0] = -1;
+        rangeTo[0] = lemmas.length;
+        int nodeCount = 1;
+
+        for (int node = 0; node < nodeCount; node++) {
+            int from = rangeFrom[node];
+            int to = rangeTo[node];
+            int depth = depths[node];
+            if (from < to && lemmas[from].length() == depth) {
+                nodeWeights[node] = weights[from];
+                from++;
+            }
+            childStart[node] = nodeCount;
+            while (from < to) {
+                char label = lemmas[from].charAt(depth);
+                int next = from + 1;
+                while (next < to && lemmas[next].charAt(depth) == label) {
+                    next++;
+                }
+                if (nodeCount == labels.length) {
+                    int newCapacity = labels.length * 2;
+                    labels = Arrays.copyOf(labels, newCapacity);
+                    parents = Arrays.copyOf(parents, newCapacity);
+                    nodeWeights = Arrays.copyOf(nodeWeights, newCapacity);
+                    childStart = Arrays.copyOf(childStart, newCapacity + 1);
+                    rangeFrom = Arrays.copyOf(rangeFrom, newCapacity);
+                    rangeTo = Arrays.copyOf(rangeTo, newCapacity);
+                    depths = Arrays.copyOf(depths, newCapacity);
+                }
+                labels[nodeCount] = label;
+                parents[nodeCount] = node;
+                rangeFrom[nodeCount] = from;
+                rangeTo[nodeCount] = next;
+                depths[nodeCount] = depth + 1;
+                nodeCount++;
+                from = next;
+            }
+        }
+        childStart[nodeCount] = nodeCount;
+
+        int[] maxWeights = Arrays.copyOf(nodeWeights, nodeCount);
+        for (int node = nodeCount - 1; node > 0; node--) {
+            int parent = parents[node];
+            maxWeights[parent] = Math.max(maxWeights[parent], maxWeights[node]);
+        }
+
+        return new LemmaTrie(
+                Arrays.copyOf(labels, nodeCount),
+                Arrays.copyOf(parents, nodeCount),
+                Arrays.copyOf(childStart, nodeCount + 1),
+                Arrays.copyOf(nodeWeights, nodeCount),
+                maxWeights
+        );
+    }
+
+    public int size() {
+        return labels.length;
+    }
+
+    /**
+     * @return не более limit лемм, начинающихся с prefix, в порядке убывания веса
+     */
+    public List<LemmaFrequency> topByPrefix(CharSequence prefix, int limit) {
+        int node = 0;
+        for (int i = 0; i < prefix.length() && node >= 0; i++) {
+            node = findChild(node, prefix.charAt(i));
+        }
+        if (node < 0 || limit <= 0 || maxWeights[node] == 0) {
+            return List.of();
+        }
+
+        List<LemmaFrequency> result = new ArrayList<>(limit);
+        LongHeap heap = new LongHeap();
+        heap.push(encode(maxWeights[node], node, false));
+        while (!heap.isEmpty() && result.size() < limit) {
+            long entry = heap.pop();
+            int current = decodeNode(entry);
+            if (isTerminal(entry)) {
+                result.add(new LemmaFrequency(wordOf(current), weights[current]));
+                continue;
+            }
+            if (weights[current] > 0) {
+                heap.push(encode(weights[current], current, true));
+            }
+            for (int child = childStart[current]; child < childStart[current + 1]; child++) {
+                heap.push(encode(maxWeights[child], child, false));
+            }
+        }
+        return result;
+    }
+
+    private int findChild(int node, char label) {
+        int low = childStart[node];
+        int high = childStart[node + 1] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (labels[middle] < label) {
+                low = middle + 1;
+            } else if (labels[middle] > label) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private String wordOf(int node) {
+        int length = 0;
+        for (int current = node; current > 0; current = parents[current]) {
+            length++;
+        }
+        char[] word = new char[length];
+        for (int current = node; current > 0; current = parents[current]) {
+            word[--length] = labels[current];
+        }
+        return new String(word);
+    }
+
+    /**
+     * Вес в старших битах, при равных весах раньше идут узлы с меньшим номером, то есть более короткие леммы.
+     */
+    private static long encode(int weight, int node, boolean terminal) {
+        return ((long) weight << 32) | ((long) (Integer.MAX_VALUE - node) << 1) | (terminal ? 1 : 0);
+    }
+
+    private static int decodeNode(long entry) {
+        return Integer.MAX_VALUE - (int) ((entry & 0xFFFFFFFFL) >>> 1);
+    }
+
+    private static boolean isTerminal(long entry) {
+        return (entry & 1) != 0;
+    }
+
+    private static final class LongHeap {
+        private long[] values = new long[32];
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            int index = size++;
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (values[parent] >= value) {
+                    break;
+                }
+                values[index] = values[parent];
+                index = parent;
+            }
+            values[index] = value;
+        }
+
+        long pop() {
+            long top = values[0];
+            long last = values[--size];
+            int index = 0;
+            while (true) {
+                int child = index * 2 + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && values[child + 1] > values[child]) {
+                    child++;
+                }
+                if (values[child] <= last) {
+                    break;
+                }
+                values[index] = values[child];
+                index = child;
+            }
+            values[index] = last;
+            return top;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package searchengine.index;
+
+/**
+ * Какие страницы считаются найденными по запросу из нескольких лемм.
+ */
+public enum MatchMode {
+    /**
+     * Страницы, содержащие все леммы запроса.
+     */
+    ALL,
+    /**
+     * Страницы, содержащие хотя бы одну лемму; страницы с большим числом лемм получают большую релевантность.
+     */
+    ANY
+}
@@ -0,0 +1,107 @@
+package searchengine.index;
+
+import java.util.Arrays;
+
+/**
+ * Статическая оценка страниц по графу ссылок внутри сайта. Граф хранится в плоских массивах:
+ * входящие рёбра каждой страницы лежат подряд, поэтому одна итерация — один линейный проход.
+ */
+public final class PageRank {
+
+    private static final double DAMPING = 0.85;
+    private static final int MAX_ITERATIONS = 50;
+    private static final double TOLERANCE = 1e-6;
+
+    private PageRank() {
+    }
+
+    /**
+     * Петли и повторные ссылки с одной страницы на другую не учитываются. Вес страниц без исходящих ссылок
+     * на каждой итерации распределяется поровну между всеми страницами.
+     *
+     * @param pageCount число страниц, номера страниц в рёбрах от 0 до pageCount - 1
+     * @param sources   начала рёбер
+     * @param targets   концы рёбер
+     * @param edgeCount число используемых элементов в sources и targets
+     * @return оценки страниц, делённые на максимальную, то есть от 0 до 1
+     */
+    public static float[] compute(int pageCount, int[] sources, int[] targets, int edgeCount) {
+        float[] scores = new float[pageCount];
+        if (pageCount == 0) {
+            return scores;
+        }
+
+        long[] edges = new long[edgeCount];
+        int uniqueEdges = 0;
+        for (int i = 0; i < edgeCount; i++) {
+            if (sources[i] != targets[i]) {
+                edges[uniqueEdges++] = ((long) targets[i] << 32) | sources[i];
+            }
+        }
+        Arrays.sort(edges, 0, uniqueEdges);
+
+        int[] inStart = new int[pageCount + 1];
+        int[] inSources = new int[uniqueEdges];
+        int[] outDegree = new int[pageCount];
+        int inCount = 0;
+        for (int i = 0; i < uniqueEdges; i++) {
+            if (i > 0 && edges[i] == edges[i - 1]) {
+                continue;
+            }
+            int target = (int) (edges[i] >>> 32);
+            int source = (int) edges[i];
+            inStart[target + 1]++;
+            inSources[inCount++] = source;
+            outDegree[source]++;
+        }
+        for (int page = 0; page < pageCount; page++) {
+            inStart[page + 1] += inStart[page];
+        }
+
+        double[] rank = new double[pageCount];
+        double[] next = new double[pageCount];
+        double[] contribution = new double[pageCount];
+        Arrays.fill(rank, 1.0 / pageCount);
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            double danglingRank = 0;
+            for (int page = 0; page < pageCount; page++) {
+                if (outDegree[page] == 0) {
+                    danglingRank += rank[page];
+                    contribution[page] = 0;
+                } else {
+                    contribution[page] = rank[page] / outDegree[page];
+                }
+            }
+            double base = (1 - DAMPING + DAMPING * danglingRank) / pageCount;
+            double delta = 0;
+            for (int page = 0; page < pageCount; page++) {
+                double sum = 0;
+                for (int edge = inStart[page]; edge < inStart[page + 1]; edge++) {
+                    sum += contribution[inSources[edge]];
+                }
+                next[page] = base + DAMPING * sum;
+                delta += Math.abs(next[page] - rank[page]);
+            }
+            double[] previous = rank;
+            rank = next;
+            next = previous;
+            if (delta < TOLERANCE) {
+                break;
+            }
+        }
+
+        double max = Arrays.stream(rank).max().orElse(0);
+        for (int page = 0; page < pageCount; page++) {
+            scores[page] = max > 0 ? (float) (rank[page] / max) : 0;
+        }
+        return scores;
+    }
+
+    /**
+     * Итоговая релевантность страницы: сумма rank лемм запроса, увеличенная пропорционально статической оценке.
+     * Монотонна по обоим аргументам, на этом основана досрочная остановка в {@link SegmentSearcher}.
+     */
+    public static double combine(double rankSum, float score, double scoreWeight) {
+        return rankSum * (1 + scoreWeight * score);
+    }
+}
@@ -0,0 +1,18 @@
+package searchengine.index;
+
+/**
+ * Откуда берутся списки вхождений и сведения о страницах при выполнении запроса с операторами.
+ */
+public interface PostingSource {
+
+    /**
+     * @return список вхождений леммы; пустой, если леммы нет
+     */
+    DocIterator postings(String lemma);
+
+    int getPageId(int doc);
+
+    float getPageScore(int doc);
+
+    String getPagePath(int doc);
+}
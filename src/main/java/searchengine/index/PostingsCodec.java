@@ -0,0 +1,134 @@
+package searchengine.index;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Сжатый формат списка вхождений леммы.
+ * <pre>
+ * перескоки   для каждого блока: последний номер страницы в блоке, смещение блока от начала данных
+ * данные      блоки по BLOCK_SIZE вхождений: разности номеров страниц, затем rank, всё в varint
+ * </pre>
+ * Разность считается от предыдущей страницы за вычетом единицы, для первой страницы блока — от последней
+ * страницы предыдущего блока, поэтому любой блок распаковывается независимо. rank в индексе — число
+ * вхождений леммы на страницу, он хранится точно как целое плюс один; дробный или отрицательный rank
+ * записывается нулём и следующими за ним четырьмя байтами float.
+ * При плотных списках вхождение занимает два-три байта вместо восьми.
+ */
+final class PostingsCodec {
+
+    static final int BLOCK_SIZE = 128;
+    static final int SKIP_ENTRY_SIZE = 8;
+
+    private static final int MAX_EXACT_RANK = 1 << 28;
+
+    private PostingsCodec() {
+    }
+
+    static int blockCount(int count) {
+        return (count + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    /**
+     * @param ordinals номера страниц по строгому возрастанию
+     */
+    static byte[] encode(int[] ordinals, float[] ranks, int count) {
+        int blockCount = blockCount(count);
+        ByteSink data = new ByteSink(count * 3);
+        ByteSink skips = new ByteSink(blockCount * SKIP_ENTRY_SIZE);
+        int previous = -1;
+        for (int start = 0; start < count; start += BLOCK_SIZE) {
+            int end = Math.min(start + BLOCK_SIZE, count);
+            skips.writeInt(ordinals[end - 1]);
+            skips.writeInt(data.size);
+            for (int i = start; i < end; i++) {
+                data.writeVarInt(ordinals[i] - previous - 1);
+                previous = ordinals[i];
+            }
+            for (int i = start; i < end; i++) {
+                float rank = ranks[i];
+                if (rank >= 0 && rank < MAX_EXACT_RANK && rank == (int) rank) {
+                    data.writeVarInt((int) rank + 1);
+                } else {
+                    data.writeVarInt(0);
+                    data.writeInt(Float.floatToIntBits(rank));
+                }
+            }
+        }
+        byte[] encoded = Arrays.copyOf(skips.bytes, skips.size + data.size);
+        System.arraycopy(data.bytes, 0, encoded, skips.size, data.size);
+        return encoded;
+    }
+
+    /**
+     * @return смещение rank блока
+     */
+    static int decodeOrdinals(ByteBuffer buffer, int offset, int length, int previous, int[] ordinals) {
+        int position = offset;
+        for (int i = 0; i < length; i++) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(position++);
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            previous += value + 1;
+            ordinals[i] = previous;
+        }
+        return position;
+    }
+
+    static void decodeRanks(ByteBuffer buffer, int offset, int length, float[] ranks) {
+        int position = offset;
+        for (int i = 0; i < length; i++) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(position++);
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            if (value == 0) {
+                ranks[i] = Float.intBitsToFloat(buffer.getInt(position));
+                position += 4;
+            } else {
+                ranks[i] = value - 1;
+            }
+        }
+    }
+
+    private static final class ByteSink {
+        private byte[] bytes;
+        private int size;
+
+        private ByteSink(int capacity) {
+            bytes = new byte[Math.max(capacity, 16)];
+        }
+
+        private void writeVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        private void writeInt(int value) {
+            ensure(4);
+            bytes[size++] = (byte) (value >>> 24);
+            bytes[size++] = (byte) (value >>> 16);
+            bytes[size++] = (byte) (value >>> 8);
+            bytes[size++] = (byte) value;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
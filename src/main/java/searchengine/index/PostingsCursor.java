@@ -0,0 +1,147 @@
+package searchengine.index;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Последовательный проход по списку вхождений леммы, упорядоченному по номеру страницы в сегменте.
+ * Перед первым чтением нужно вызвать {@link #next()} или {@link #advance(int)}.
+ * <p>
+ * Список хранится блоками по {@link #BLOCK_SIZE} вхождений в формате {@link PostingsCodec}. Номера страниц блока
+ * распаковываются целиком при переходе в него, rank — только при первом обращении к {@link #rank()} в блоке,
+ * поэтому при пересечении блоки, в которых нет общих страниц, не читаются дальше номеров, а пропускаемые
+ * {@link #advance(int)} блоки не читаются вовсе.
+ */
+public final class PostingsCursor {
+
+    static final int BLOCK_SIZE = PostingsCodec.BLOCK_SIZE;
+
+    private final ByteBuffer postings;
+    private final int skipBase;
+    private final int dataBase;
+    private final int count;
+    private final int blockCount;
+    private final float maxRank;
+
+    private final int[] ordinals = new int[BLOCK_SIZE];
+    private final float[] ranks = new float[BLOCK_SIZE];
+    private int block = -1;
+    private int blockLength;
+    private int ranksOffset;
+    private boolean ranksDecoded;
+    private int index = -1;
+
+    PostingsCursor(ByteBuffer postings, int base, int count, float maxRank) {
+        this.postings = postings;
+        this.skipBase = base;
+        this.count = count;
+        this.blockCount = PostingsCodec.blockCount(count);
+        this.dataBase = base + blockCount * PostingsCodec.SKIP_ENTRY_SIZE;
+        this.maxRank = maxRank;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return наибольший rank в списке — верхняя граница вклада леммы в релевантность любой страницы
+     */
+    public float maxRank() {
+        return maxRank;
+    }
+
+    /**
+     * @return число пройденных вхождений
+     */
+    public int position() {
+        if (block < 0) {
+            return 0;
+        }
+        return Math.min(block * BLOCK_SIZE + index + 1, count);
+    }
+
+    public boolean next() {
+        if (block >= blockCount) {
+            return false;
+        }
+        if (block >= 0 && ++index < blockLength) {
+            return true;
+        }
+        if (block + 1 >= blockCount) {
+            block = blockCount;
+            return false;
+        }
+        loadBlock(block + 1);
+        index = 0;
+        return true;
+    }
+
+    public int ordinal() {
+        return ordinals[index];
+    }
+
+    public float rank() {
+        if (!ranksDecoded) {
+            PostingsCodec.decodeRanks(postings, ranksOffset, blockLength, ranks);
+            ranksDecoded = true;
+        }
+        return ranks[index];
+    }
+
+    /**
+     * Переходит к первому вхождению с номером страницы не меньше target, не возвращаясь назад.
+     * Блоки, последняя страница которых меньше target, пропускаются по таблице перескоков без распаковки.
+     *
+     * @return false, если такого вхождения нет
+     */
+    public boolean advance(int target) {
+        if (block >= blockCount || blockCount == 0) {
+            return false;
+        }
+        if (block >= 0 && ordinals[index] >= target) {
+            return true;
+        }
+        int targetBlock = Math.max(block, 0);
+        if (lastOrdinal(targetBlock) < target) {
+            int low = targetBlock + 1;
+            int high = blockCount;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (lastOrdinal(middle) < target) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            if (low >= blockCount) {
+                block = blockCount;
+                return false;
+            }
+            targetBlock = low;
+        }
+        int from = 0;
+        if (targetBlock != block) {
+            loadBlock(targetBlock);
+        } else {
+            from = index;
+        }
+        while (ordinals[from] < target) {
+            from++;
+        }
+        index = from;
+        return true;
+    }
+
+    private int lastOrdinal(int blockIndex) {
+        return postings.getInt(skipBase + blockIndex * PostingsCodec.SKIP_ENTRY_SIZE);
+    }
+
+    private void loadBlock(int blockIndex) {
+        int previous = blockIndex == 0 ? -1 : lastOrdinal(blockIndex - 1);
+        int offset = dataBase + postings.getInt(skipBase + blockIndex * PostingsCodec.SKIP_ENTRY_SIZE + 4);
+        block = blockIndex;
+        blockLength = Math.min(BLOCK_SIZE, count - blockIndex * BLOCK_SIZE);
+        ranksOffset = PostingsCodec.decodeOrdinals(postings, offset, blockLength, previous, ordinals);
+        ranksDecoded = false;
+    }
+}
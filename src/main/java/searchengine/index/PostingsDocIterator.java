@@ -0,0 +1,41 @@
+package searchengine.index;
+
+/**
+ * Список вхождений леммы сегмента.
+ */
+final class PostingsDocIterator implements DocIterator {
+
+    private final PostingsCursor cursor;
+    private int doc = -1;
+
+    PostingsDocIterator(PostingsCursor cursor) {
+        this.cursor = cursor;
+    }
+
+    @Override
+    public int doc() {
+        return doc;
+    }
+
+    @Override
+    public int next() {
+        doc = cursor.next() ? cursor.ordinal() : NO_MORE_DOCS;
+        return doc;
+    }
+
+    @Override
+    public int advance(int target) {
+        doc = cursor.advance(target) ? cursor.ordinal() : NO_MORE_DOCS;
+        return doc;
+    }
+
+    @Override
+    public double score() {
+        return cursor.rank();
+    }
+
+    @Override
+    public long cost() {
+        return cursor.size();
+    }
+}
@@ -0,0 +1,47 @@
+package searchengine.index;
+
+import java.util.*;
+
+/**
+ * Выбор страницы результатов из найденных страниц без полной сортировки всех кандидатов.
+ */
+public final class ResultWindow {
+
+    /**
+     * Порядок выдачи: по убыванию релевантности, при равенстве по возрастанию id страницы.
+     */
+    public static final Comparator<Map.Entry<Integer, Double>> BEST_FIRST =
+            Map.Entry.<Integer, Double>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey());
+
+    private ResultWindow() {
+    }
+
+    /**
+     * Оставляет в куче только offset + limit лучших кандидатов, поэтому для первых страниц выдачи
+     * стоимость близка к линейной по числу кандидатов.
+     *
+     * @return записи с позиции offset длиной не более limit в порядке {@link #BEST_FIRST}
+     */
+    public static List<Map.Entry<Integer, Double>> select(Map<Integer, Double> relevance, int offset, int limit) {
+        int from = Math.max(offset, 0);
+        if (limit <= 0 || from >= relevance.size()) {
+            return List.of();
+        }
+        int keep = (int) Math.min((long) from + limit, relevance.size());
+
+        PriorityQueue<Map.Entry<Integer, Double>> heap = new PriorityQueue<>(keep, BEST_FIRST.reversed());
+        for (Map.Entry<Integer, Double> entry : relevance.entrySet()) {
+            if (heap.size() < keep) {
+                heap.add(entry);
+            } else if (BEST_FIRST.compare(entry, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+
+        List<Map.Entry<Integer, Double>> top = new ArrayList<>(heap);
+        top.sort(BEST_FIRST);
+        return new ArrayList<>(top.subList(from, top.size()));
+    }
+}
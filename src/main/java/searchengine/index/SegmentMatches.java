@@ -0,0 +1,40 @@
+package searchengine.index;
+
+import java.util.Map;
+
+/**
+ * Результат поиска по сегменту с досрочной остановкой.
+ */
+public final class SegmentMatches {
+
+    private final Map<Integer, Double> relevance;
+    private final int scored;
+    private final int count;
+
+    SegmentMatches(Map<Integer, Double> relevance, int scored, int count) {
+        this.relevance = relevance;
+        this.scored = scored;
+        this.count = count;
+    }
+
+    /**
+     * @return релевантность лучших страниц по id страницы
+     */
+    public Map<Integer, Double> getRelevance() {
+        return relevance;
+    }
+
+    /**
+     * @return сколько найденных страниц было оценено до остановки
+     */
+    public int getScored() {
+        return scored;
+    }
+
+    /**
+     * @return число страниц, содержащих все леммы: точное, если пересечение пройдено целиком, иначе оценка
+     */
+    public int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,34 @@
+package searchengine.index;
+
+/**
+ * Списки вхождений сегмента, номера страниц — порядковые номера в сегменте.
+ */
+public final class SegmentPostingSource implements PostingSource {
+
+    private final IndexSegment segment;
+
+    public SegmentPostingSource(IndexSegment segment) {
+        this.segment = segment;
+    }
+
+    @Override
+    public DocIterator postings(String lemma) {
+        int lemmaOrdinal = segment.findLemma(lemma);
+        return lemmaOrdinal >= 0 ? new PostingsDocIterator(segment.postings(lemmaOrdinal)) : ArrayDocIterator.empty();
+    }
+
+    @Override
+    public int getPageId(int doc) {
+        return segment.getPageId(doc);
+    }
+
+    @Override
+    public float getPageScore(int doc) {
+        return segment.getPageScore(doc);
+    }
+
+    @Override
+    public String getPagePath(int doc) {
+        return segment.getPagePath(doc);
+    }
+}
@@ -0,0 +1,311 @@
+package searchengine.index;
+
+import java.util.*;
+import java.util.function.IntPredicate;
+
+/**
+ * Поиск страниц, содержащих все или хотя бы одну из лемм запроса, по спискам вхождений сегмента,
+ * и выбор лучших страниц для запроса с операторами.
+ */
+public final class SegmentSearcher {
+
+    private static final int NO_MORE_PAGES = Integer.MAX_VALUE;
+
+    private SegmentSearcher() {
+    }
+
+    /**
+     * Пересечение списков вхождений с перескоком: каждый список догоняет наибольший текущий номер страницы.
+     * Леммы, которых нет в сегменте, пропускаются так же, как при поиске по БД.
+     *
+     * @return абсолютная релевантность (сумма rank) по id страницы
+     */
+    public static Map<Integer, Double> findAllMatching(IndexSegment segment, Collection<String> lemmas) {
+        List<PostingsCursor> cursors = openCursors(segment, lemmas);
+        Map<Integer, Double> result = new HashMap<>();
+        if (cursors.isEmpty()) {
+            return result;
+        }
+
+        PostingsCursor lead = cursors.get(0);
+        if (!lead.next()) {
+            return result;
+        }
+        int candidate = lead.ordinal();
+        while (true) {
+            boolean matched = true;
+            for (int i = 1; i < cursors.size(); i++) {
+                PostingsCursor cursor = cursors.get(i);
+                if (!cursor.advance(candidate)) {
+                    return result;
+                }
+                if (cursor.ordinal() != candidate) {
+                    candidate = cursor.ordinal();
+                    matched = false;
+                    break;
+                }
+            }
+
+            if (matched) {
+                double relevance = 0;
+                for (PostingsCursor cursor : cursors) {
+                    relevance += cursor.rank();
+                }
+                result.put(segment.getPageId(candidate), relevance);
+                if (!lead.next()) {
+                    return result;
+                }
+            } else if (!lead.advance(candidate)) {
+                return result;
+            }
+            candidate = lead.ordinal();
+        }
+    }
+
+    /**
+     * Пересечение с досрочной остановкой. Страницы в сегменте пронумерованы по убыванию статической оценки,
+     * поэтому ни одна из ещё не просмотренных страниц не может набрать больше, чем
+     * {@link PageRank#combine} от суммы максимальных rank лемм и оценки текущей страницы. Как только эта граница
+     * опускается ниже худшей из topK найденных страниц, первые topK результатов уже не изменятся.
+     *
+     * @param maxMatches после стольких оценённых страниц обход прекращается, даже если граница не достигнута
+     * @param after      если задан, учитываются только страницы, идущие в порядке {@link ResultWindow#BEST_FIRST}
+     *                   после этой записи, — продолжение выдачи по курсору
+     */
+    public static SegmentMatches findTopMatching(IndexSegment segment, Collection<String> lemmas, int topK,
+                                                 double scoreWeight, int maxMatches, Map.Entry<Integer, Double> after) {
+        List<PostingsCursor> cursors = openCursors(segment, lemmas);
+        if (cursors.isEmpty() || topK <= 0) {
+            return new SegmentMatches(Map.of(), 0, 0);
+        }
+        double maxRankSum = 0;
+        for (PostingsCursor cursor : cursors) {
+            maxRankSum += cursor.maxRank();
+        }
+
+        PriorityQueue<Map.Entry<Integer, Double>> top = new PriorityQueue<>(Math.min(topK, 1024), ResultWindow.BEST_FIRST.reversed());
+        int scored = 0;
+        boolean exhausted = false;
+        PostingsCursor lead = cursors.get(0);
+        if (lead.next()) {
+            int candidate = lead.ordinal();
+            search:
+            while (true) {
+                if (top.size() >= topK
+                        && PageRank.combine(maxRankSum, segment.getPageScore(candidate), scoreWeight) < top.peek().getValue()) {
+                    break;
+                }
+                boolean matched = true;
+                for (int i = 1; i < cursors.size(); i++) {
+                    PostingsCursor cursor = cursors.get(i);
+                    if (!cursor.advance(candidate)) {
+                        exhausted = true;
+                        break search;
+                    }
+                    if (cursor.ordinal() != candidate) {
+                        candidate = cursor.ordinal();
+                        matched = false;
+                        break;
+                    }
+                }
+
+                if (matched) {
+                    double rankSum = 0;
+                    for (PostingsCursor cursor : cursors) {
+                        rankSum += cursor.rank();
+                    }
+                    double relevance = PageRank.combine(rankSum, segment.getPageScore(candidate), scoreWeight);
+                    offer(top, topK, Map.entry(segment.getPageId(candidate), relevance), after);
+                    scored++;
+                    if (!lead.next()) {
+                        exhausted = true;
+                        break;
+                    }
+                    if (scored >= maxMatches) {
+                        break;
+                    }
+                } else if (!lead.advance(candidate)) {
+                    exhausted = true;
+                    break;
+                }
+                candidate = lead.ordinal();
+            }
+        } else {
+            exhausted = true;
+        }
+
+        Map<Integer, Double> relevance = new HashMap<>();
+        for (Map.Entry<Integer, Double> entry : top) {
+            relevance.put(entry.getKey(), entry.getValue());
+        }
+        int count = exhausted ? scored : estimateCount(scored, lead);
+        return new SegmentMatches(relevance, scored, count);
+    }
+
+    /**
+     * Страницы, содержащие хотя бы одну лемму, с отсечением MaxScore. Списки упорядочены по возрастанию maxRank;
+     * пока в куче меньше topK страниц, обходятся все. Затем несущественными становятся списки с наименьшими maxRank,
+     * сумма которых даже вместе с оценкой текущей страницы не дотягивает до худшей из topK. Страницы, встречающиеся
+     * только в них, пропускаются без чтения. Кандидаты берутся из существенных списков, а несущественные
+     * дочитываются перескоком, пока страница ещё может войти в topK.
+     * Досрочная остановка по статической оценке и продолжение после after те же, что в {@link #findTopMatching}.
+     */
+    public static SegmentMatches findTopMatchingAny(IndexSegment segment, Collection<String> lemmas, int topK,
+                                                    double scoreWeight, int maxMatches, Map.Entry<Integer, Double> after) {
+        List<PostingsCursor> cursors = openCursors(segment, lemmas);
+        if (cursors.isEmpty() || topK <= 0) {
+            return new SegmentMatches(Map.of(), 0, 0);
+        }
+        cursors.sort(Comparator.comparingDouble(PostingsCursor::maxRank));
+        int listCount = cursors.size();
+        double[] boundPrefix = new double[listCount];
+        int[] current = new int[listCount];
+        int maxDocFrequency = 0;
+        for (int i = 0; i < listCount; i++) {
+            PostingsCursor cursor = cursors.get(i);
+            boundPrefix[i] = (i == 0 ? 0 : boundPrefix[i - 1]) + cursor.maxRank();
+            current[i] = cursor.next() ? cursor.ordinal() : NO_MORE_PAGES;
+            maxDocFrequency = Math.max(maxDocFrequency, cursor.size());
+        }
+
+        PriorityQueue<Map.Entry<Integer, Double>> top = new PriorityQueue<>(Math.min(topK, 1024), ResultWindow.BEST_FIRST.reversed());
+        int firstEssential = 0;
+        int visited = 0;
+        boolean pruned = false;
+        while (true) {
+            int candidate = NO_MORE_PAGES;
+            for (int i = firstEssential; i < listCount; i++) {
+                candidate = Math.min(candidate, current[i]);
+            }
+            if (candidate == NO_MORE_PAGES) {
+                break;
+            }
+            float pageScore = segment.getPageScore(candidate);
+            double threshold = top.size() >= topK ? top.peek().getValue() : Double.NEGATIVE_INFINITY;
+            if (PageRank.combine(boundPrefix[listCount - 1], pageScore, scoreWeight) < threshold) {
+                pruned = true;
+                break;
+            }
+            int essentialBefore = firstEssential;
+            while (firstEssential < listCount
+                    && PageRank.combine(boundPrefix[firstEssential], pageScore, scoreWeight) < threshold) {
+                firstEssential++;
+            }
+            if (firstEssential != essentialBefore) {
+                pruned = true;
+                continue;
+            }
+
+            double rankSum = 0;
+            for (int i = firstEssential; i < listCount; i++) {
+                if (current[i] == candidate) {
+                    PostingsCursor cursor = cursors.get(i);
+                    rankSum += cursor.rank();
+                    current[i] = cursor.next() ? cursor.ordinal() : NO_MORE_PAGES;
+                }
+            }
+            boolean competitive = true;
+            for (int i = firstEssential - 1; i >= 0; i--) {
+                if (PageRank.combine(rankSum + boundPrefix[i], pageScore, scoreWeight) < threshold) {
+                    competitive = false;
+                    break;
+                }
+                PostingsCursor cursor = cursors.get(i);
+                if (current[i] < candidate) {
+                    current[i] = cursor.advance(candidate) ? cursor.ordinal() : NO_MORE_PAGES;
+                }
+                if (current[i] == candidate) {
+                    rankSum += cursor.rank();
+                }
+            }
+            if (competitive) {
+                offer(top, topK, Map.entry(segment.getPageId(candidate), PageRank.combine(rankSum, pageScore, scoreWeight)), after);
+            }
+            visited++;
+            if (visited >= maxMatches) {
+                pruned = true;
+                break;
+            }
+        }
+
+        Map<Integer, Double> relevance = new HashMap<>();
+        for (Map.Entry<Integer, Double> entry : top) {
+            relevance.put(entry.getKey(), entry.getValue());
+        }
+        int count = pruned ? Math.max(visited, maxDocFrequency) : visited;
+        return new SegmentMatches(relevance, visited, count);
+    }
+
+    /**
+     * Лучшие topK страниц, найденных запросом с операторами. Фильтр проверяется до оценки страницы,
+     * отброшенные им страницы не входят ни в число оценённых, ни в число найденных. Границы rank у составных
+     * частей запроса нет, поэтому досрочной остановки нет: обход идёт до конца или до maxMatches оценённых страниц.
+     */
+    public static SegmentMatches findTopMatching(PostingSource source, DocIterator matches, IntPredicate filter,
+                                                 int topK, double scoreWeight, int maxMatches,
+                                                 Map.Entry<Integer, Double> after) {
+        if (topK <= 0) {
+            return new SegmentMatches(Map.of(), 0, 0);
+        }
+        PriorityQueue<Map.Entry<Integer, Double>> top = new PriorityQueue<>(Math.min(topK, 1024), ResultWindow.BEST_FIRST.reversed());
+        int scored = 0;
+        long visited = 0;
+        boolean exhausted = true;
+        for (int doc = matches.next(); doc != DocIterator.NO_MORE_DOCS; doc = matches.next()) {
+            visited++;
+            if (!filter.test(doc)) {
+                continue;
+            }
+            if (scored >= maxMatches) {
+                exhausted = false;
+                break;
+            }
+            double relevance = PageRank.combine(matches.score(), source.getPageScore(doc), scoreWeight);
+            offer(top, topK, Map.entry(source.getPageId(doc), relevance), after);
+            scored++;
+        }
+
+        Map<Integer, Double> relevance = new HashMap<>();
+        for (Map.Entry<Integer, Double> entry : top) {
+            relevance.put(entry.getKey(), entry.getValue());
+        }
+        int count = exhausted ? scored : (int) Math.min(Math.round((double) scored * matches.cost() / visited), Integer.MAX_VALUE);
+        return new SegmentMatches(relevance, scored, Math.max(count, scored));
+    }
+
+    /**
+     * Курсоры лемм, которые есть в сегменте, от самого короткого списка к самому длинному.
+     */
+    private static List<PostingsCursor> openCursors(IndexSegment segment, Collection<String> lemmas) {
+        List<PostingsCursor> cursors = new ArrayList<>();
+        for (String lemma : lemmas) {
+            int lemmaOrdinal = segment.findLemma(lemma);
+            if (lemmaOrdinal >= 0) {
+                cursors.add(segment.postings(lemmaOrdinal));
+            }
+        }
+        cursors.sort(Comparator.comparingInt(PostingsCursor::size));
+        return cursors;
+    }
+
+    private static void offer(PriorityQueue<Map.Entry<Integer, Double>> top, int topK, Map.Entry<Integer, Double> entry,
+                              Map.Entry<Integer, Double> after) {
+        if (after != null && ResultWindow.BEST_FIRST.compare(entry, after) <= 0) {
+            return;
+        }
+        if (top.size() < topK) {
+            top.add(entry);
+        } else if (ResultWindow.BEST_FIRST.compare(entry, top.peek()) < 0) {
+            top.poll();
+            top.add(entry);
+        }
+    }
+
+    /**
+     * Доля совпадений в непройденной части ведущего списка считается такой же, как в пройденной.
+     */
+    private static int estimateCount(int scored, PostingsCursor lead) {
+        int position = Math.max(lead.position(), 1);
+        return (int) Math.max(scored, Math.round((double) scored * lead.size() / position));
+    }
+}
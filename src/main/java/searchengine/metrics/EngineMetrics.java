@@ -0,0 +1,293 @@
+package searchengine.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики этапов поиска и индексации. Все счётчики регистрируются заранее, на горячем пути остаётся
+ * только System.nanoTime() и запись в уже созданный метр. Доступны через /actuator/prometheus.
+ */
+@Component
+public class EngineMetrics {
+
+    private final MeterRegistry registry;
+    private final ThreadLocal<SearchEvent> currentSearchEvent = new ThreadLocal<>();
+
+    private final Timer searchDuration;
+    private final Timer searchLemmatize;
+    private final Timer searchLemmaLookup;
+    private final Timer searchIntersection;
+    private final Timer searchScoring;
+    private final Timer searchWindow;
+    private final Timer searchPageLoad;
+    private final Timer searchSnippets;
+    private final DistributionSummary searchCandidates;
+    private final Counter searchCoalesced;
+    private final Counter searchRejected;
+
+    private final Timer snippetBuild;
+    private final Timer lemmaParse;
+    private final DistributionSummary lemmaParseTokens;
+    private final Timer htmlParse;
+    private final Map<String, Timer> fetchByStatus = new ConcurrentHashMap<>();
+    private final Map<String, Counter> recrawlByOutcome = new ConcurrentHashMap<>();
+
+    private final Counter pagesIndexed;
+    private final Counter pagesDuplicate;
+    private final DistributionSummary lemmasPerPage;
+    private final Timer dbSavePage;
+    private final Timer dbUpdateLemmas;
+    private final Timer dbDeletePage;
+
+    public EngineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+
+        searchDuration = Timer.builder("search.duration")
+                .description("Полное время обработки поискового запроса")
+                .publishPercentileHistogram()
+                .register(registry);
+        searchLemmatize = searchStage("lemmatize");
+        searchLemmaLookup = searchStage("lemma_lookup");
+        searchIntersection = searchStage("intersection");
+        searchScoring = searchStage("scoring");
+        searchWindow = searchStage("window");
+        searchPageLoad = searchStage("page_load");
+        searchSnippets = searchStage("snippets");
+        searchCandidates = DistributionSummary.builder("search.candidates")
+                .description("Число страниц, найденных по запросу до пагинации")
+                .publishPercentileHistogram()
+                .register(registry);
+
+        searchCoalesced = Counter.builder("search.coalesced")
+                .description("Запросы, получившие результат уже выполнявшегося одинакового запроса")
+                .register(registry);
+        searchRejected = Counter.builder("search.rejected")
+                .description("Запросы, отклонённые с 503 из-за перегрузки")
+                .register(registry);
+
+        snippetBuild = Timer.builder("snippet.duration")
+                .description("Построение сниппета для одной страницы")
+                .register(registry);
+        lemmaParse = Timer.builder("lemma.parse.duration")
+                .description("Разбор текста на леммы")
+                .register(registry);
+        lemmaParseTokens = DistributionSummary.builder("lemma.parse.distinct")
+                .description("Число различных лемм в разобранном тексте")
+                .register(registry);
+        htmlParse = Timer.builder("html.parse.duration")
+                .description("Разбор HTML в Jsoup")
+                .register(registry);
+
+        pagesIndexed = Counter.builder("indexing.pages")
+                .description("Сохранённые при индексации страницы")
+                .register(registry);
+        pagesDuplicate = Counter.builder("indexing.pages.duplicate")
+                .description("Страницы, пропущенные как почти точные копии уже проиндексированных")
+                .register(registry);
+        lemmasPerPage = DistributionSummary.builder("indexing.lemmas.per.page")
+                .description("Число лемм, записанных в БД для одной страницы")
+                .publishPercentileHistogram()
+                .register(registry);
+        dbSavePage = dbOperation("save_page");
+        dbUpdateLemmas = dbOperation("update_lemmas");
+        dbDeletePage = dbOperation("delete_page");
+    }
+
+    /**
+     * Метрики без реестра для использования вне Spring-контекста, например в бенчмарках.
+     */
+    public static EngineMetrics noop() {
+        return new EngineMetrics(new CompositeMeterRegistry());
+    }
+
+    private Timer searchStage(String stage) {
+        return Timer.builder("search.stage.duration")
+                .description("Время этапа обработки поискового запроса")
+                .tag("stage", stage)
+                .register(registry);
+    }
+
+    private Timer dbOperation(String operation) {
+        return Timer.builder("db.write.duration")
+                .description("Время записи результатов индексации в БД")
+                .tag("operation", operation)
+                .register(registry);
+    }
+
+    /**
+     * Начинает событие JFR для запроса в текущем потоке. Пока запись JFR не идёт, событие выключено
+     * и этапы поиска в него не складываются. Завершать нужно {@link #commitSearchEvent} в том же потоке.
+     */
+    public SearchEvent beginSearchEvent(String query, String site) {
+        SearchEvent event = new SearchEvent();
+        if (event.isEnabled()) {
+            event.setQuery(query);
+            event.setSite(site);
+            event.begin();
+            currentSearchEvent.set(event);
+        }
+        return event;
+    }
+
+    public void commitSearchEvent(SearchEvent event) {
+        if (event.isEnabled()) {
+            currentSearchEvent.remove();
+            event.commit();
+        }
+    }
+
+    public void recordSearch(long startNanos) {
+        record(searchDuration, startNanos);
+    }
+
+    public void recordSearchLemmatize(long startNanos) {
+        long nanos = record(searchLemmatize, startNanos);
+        SearchEvent event = currentSearchEvent.get();
+        if (event != null) {
+            event.addLemmatize(nanos);
+        }
+    }
+
+    public void recordSearchLemmaLookup(long startNanos) {
+        long nanos = record(searchLemmaLookup, startNanos);
+        SearchEvent event = currentSearchEvent.get();
+        if (event != null) {
+            event.addLemmaLookup(nanos);
+        }
+    }
+
+    public void recordSearchIntersection(long startNanos) {
+        long nanos = record(searchIntersection, startNanos);
+        SearchEvent event = currentSearchEvent.get();
+        if (event != null) {
+            event.addIntersection(nanos);
+        }
+    }
+
+    public void recordSearchScoring(long startNanos) {
+        long nanos = record(searchScoring, startNanos);
+        SearchEvent event = currentSearchEvent.get();
+        if (event != null) {
+            event.addScoring(nanos);
+        }
+    }
+
+    /**
+     * Выбор страницы выдачи из уже оценённых страниц всех сайтов, в том числе проверка фраз.
+     */
+    public void recordSearchWindow(long startNanos) {
+        long nanos = record(searchWindow, startNanos);
+        SearchEvent event = currentSearchEvent.get();
+        if (event != null) {
+            event.addWindow(nanos);
+        }
+    }
+
+    public void recordSearchPageLoad(long startNanos) {
+        long nanos = record(searchPageLoad, startNanos);
+        SearchEvent event = currentSearchEvent.get();
+        if (event != null) {
+            event.addPageLoad(nanos);
+        }
+    }
+
+    public void recordSearchSnippets(long startNanos) {
+        long nanos = record(searchSnippets, startNanos);
+        SearchEvent event = currentSearchEvent.get();
+        if (event != null) {
+            event.addSnippets(nanos);
+        }
+    }
+
+    public void recordSearchCandidates(int candidates) {
+        searchCandidates.record(candidates);
+        SearchEvent event = currentSearchEvent.get();
+        if (event != null) {
+            event.addCandidates(candidates);
+        }
+    }
+
+    public void recordSearchCoalesced() {
+        searchCoalesced.increment();
+    }
+
+    public void recordSearchRejected() {
+        searchRejected.increment();
+    }
+
+    public void recordSnippet(long startNanos) {
+        record(snippetBuild, startNanos);
+    }
+
+    public void recordLemmaParse(long startNanos, int distinctLemmas) {
+        record(lemmaParse, startNanos);
+        lemmaParseTokens.record(distinctLemmas);
+    }
+
+    /**
+     * Для разбора, время которого накоплено по частям, а не измерено от одной начальной точки.
+     */
+    public void recordLemmaParse(Duration elapsed, int distinctLemmas) {
+        lemmaParse.record(elapsed);
+        lemmaParseTokens.record(distinctLemmas);
+    }
+
+    public void recordHtmlParse(long startNanos) {
+        record(htmlParse, startNanos);
+    }
+
+    /**
+     * @param status HTTP-код ответа или название ошибки, если ответ не получен
+     */
+    public void recordFetch(long startNanos, String status) {
+        Timer timer = fetchByStatus.computeIfAbsent(status, key -> Timer.builder("crawler.fetch.duration")
+                .description("Загрузка страницы краулером")
+                .tag("status", key)
+                .publishPercentileHistogram()
+                .register(registry));
+        record(timer, startNanos);
+    }
+
+    /**
+     * @param outcome чем закончилась повторная загрузка: unchanged, changed, removed или failed
+     */
+    public void recordRecrawl(String outcome) {
+        recrawlByOutcome.computeIfAbsent(outcome, key -> Counter.builder("recrawl.fetches")
+                .description("Повторные загрузки страниц планировщиком")
+                .tag("outcome", key)
+                .register(registry))
+                .increment();
+    }
+
+    public void recordSavePage(long startNanos) {
+        record(dbSavePage, startNanos);
+        pagesIndexed.increment();
+    }
+
+    public void recordDuplicatePage() {
+        pagesDuplicate.increment();
+    }
+
+    public void recordUpdateLemmas(long startNanos, int lemmaCount) {
+        record(dbUpdateLemmas, startNanos);
+        lemmasPerPage.record(lemmaCount);
+    }
+
+    public void recordDeletePage(long startNanos) {
+        record(dbDeletePage, startNanos);
+    }
+
+    private static long record(Timer timer, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+        return nanos;
+    }
+}
@@ -0,0 +1,59 @@
+package searchengine.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import searchengine.dto.index.IndexApiResponse;
+import searchengine.services.FlightRecorderService;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Управление записью JFR через actuator: POST /actuator/jfr/start и /actuator/jfr/stop, выгрузка — GET /actuator/jfr.
+ * Запись содержит аргументы JVM и системные свойства, в том числе пароли, переданные в командной строке,
+ * поэтому точка выключена по умолчанию и включается только вместе с management.server.port, закрытым снаружи.
+ */
+@Component
+@Endpoint(id = "jfr", enableByDefault = false)
+@RequiredArgsConstructor
+public class FlightRecorderEndpoint {
+
+    private final FlightRecorderService flightRecorderService;
+
+    /**
+     * @return содержимое записи или null, если запись не идёт (ответ 404)
+     */
+    @ReadOperation(produces = "application/octet-stream")
+    public Resource dump() throws IOException {
+        Optional<Path> dump = flightRecorderService.dump();
+        if (dump.isEmpty()) {
+            return null;
+        }
+        return new InputStreamResource(Files.newInputStream(dump.get(), StandardOpenOption.DELETE_ON_CLOSE));
+    }
+
+    /**
+     * @param maxAgeMinutes сколько последних минут хранить в записи, по умолчанию 10
+     * @param thresholdMs   общий порог событий движка или null, чтобы оставить пороги по умолчанию
+     */
+    @WriteOperation
+    public IndexApiResponse control(@Selector String action, @Nullable Long maxAgeMinutes, @Nullable Long thresholdMs) {
+        switch (action) {
+            case "start":
+                return flightRecorderService.start(maxAgeMinutes == null ? 10 : maxAgeMinutes, thresholdMs);
+            case "stop":
+                return flightRecorderService.stop();
+            default:
+                return new IndexApiResponse(false, "Неизвестное действие: " + action);
+        }
+    }
+}
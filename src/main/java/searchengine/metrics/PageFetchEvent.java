@@ -0,0 +1,34 @@
+package searchengine.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import lombok.Setter;
+
+/**
+ * Загрузка страницы краулером. Записывается, только пока идёт запись JFR, и только если загрузка
+ * длилась дольше порога.
+ */
+@Name("searchengine.PageFetch")
+@Label("Загрузка страницы")
+@Category({"Search Engine", "Crawl"})
+@Threshold("500 ms")
+@StackTrace(false)
+@Setter
+public class PageFetchEvent extends jdk.jfr.Event {
+
+    @Label("URL")
+    private String url;
+
+    @Label("Статус")
+    @Description("HTTP-код ответа или название ошибки, если ответ не получен")
+    private String status;
+
+    @Label("Размер ответа")
+    @DataAmount
+    private long bytes;
+}
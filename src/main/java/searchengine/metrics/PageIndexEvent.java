@@ -0,0 +1,53 @@
+package searchengine.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+import lombok.Setter;
+
+/**
+ * Индексация загруженной страницы. Разбор HTML и лемматизация идут одним проходом,
+ * поэтому время разбора — это время прохода без лемматизации.
+ */
+@Name("searchengine.PageIndex")
+@Label("Индексация страницы")
+@Category({"Search Engine", "Crawl"})
+@Threshold("100 ms")
+@StackTrace(false)
+@Setter
+public class PageIndexEvent extends jdk.jfr.Event {
+
+    @Label("URL")
+    private String url;
+
+    @Label("Размер HTML")
+    @DataAmount
+    private long bytes;
+
+    @Label("Различных лемм")
+    private int lemmaCount;
+
+    @Label("Ссылок")
+    private int linkCount;
+
+    @Label("Копия страницы")
+    @Description("Путь уже проиндексированной страницы, копией которой оказалась эта; копия не сохраняется")
+    private String duplicateOf;
+
+    @Label("Разбор HTML")
+    @Timespan
+    private long parseDuration;
+
+    @Label("Лемматизация")
+    @Timespan
+    private long lemmatizeDuration;
+
+    @Label("Запись в БД")
+    @Timespan
+    private long persistDuration;
+}
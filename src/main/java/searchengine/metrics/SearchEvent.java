@@ -0,0 +1,97 @@
+package searchengine.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+import lombok.Setter;
+
+/**
+ * Поисковый запрос с временем этапов. Этапы складываются из тех же замеров, что и метрики
+ * search.stage.duration, см. {@link EngineMetrics#beginSearchEvent}.
+ */
+@Name("searchengine.Search")
+@Label("Поисковый запрос")
+@Category({"Search Engine", "Search"})
+@Threshold("100 ms")
+@StackTrace(false)
+@Setter
+public class SearchEvent extends jdk.jfr.Event {
+
+    @Label("Запрос")
+    private String query;
+
+    @Label("Сайт")
+    private String site;
+
+    @Label("Оценено страниц")
+    private int candidates;
+
+    @Label("Найдено страниц")
+    private int count;
+
+    @Label("Результатов")
+    private int results;
+
+    @Label("Лемматизация")
+    @Timespan
+    private long lemmatizeDuration;
+
+    @Label("Поиск лемм")
+    @Timespan
+    private long lemmaLookupDuration;
+
+    @Label("Пересечение")
+    @Timespan
+    private long intersectionDuration;
+
+    @Label("Ранжирование")
+    @Timespan
+    private long scoringDuration;
+
+    @Label("Выбор окна выдачи")
+    @Timespan
+    private long windowDuration;
+
+    @Label("Загрузка страниц")
+    @Timespan
+    private long pageLoadDuration;
+
+    @Label("Сниппеты")
+    @Timespan
+    private long snippetsDuration;
+
+    void addLemmatize(long nanos) {
+        lemmatizeDuration += nanos;
+    }
+
+    void addLemmaLookup(long nanos) {
+        lemmaLookupDuration += nanos;
+    }
+
+    void addIntersection(long nanos) {
+        intersectionDuration += nanos;
+    }
+
+    void addScoring(long nanos) {
+        scoringDuration += nanos;
+    }
+
+    void addWindow(long nanos) {
+        windowDuration += nanos;
+    }
+
+    void addPageLoad(long nanos) {
+        pageLoadDuration += nanos;
+    }
+
+    void addSnippets(long nanos) {
+        snippetsDuration += nanos;
+    }
+
+    void addCandidates(int scored) {
+        candidates += scored;
+    }
+}
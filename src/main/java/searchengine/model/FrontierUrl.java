@@ -0,0 +1,48 @@
+package searchengine.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Адрес в общей очереди обхода. Воркер берёт адреса пачкой в аренду до lease_expires_at;
+ * если он не отчитался к этому сроку, адрес может забрать другой воркер.
+ */
+@Entity
+@Table(name = "frontier",
+        uniqueConstraints = @UniqueConstraint(name = "uk_frontier_site_url", columnNames = {"site_id", "url"}),
+        indexes = {
+                @javax.persistence.Index(name = "idx_frontier_status_lease", columnList = "status, lease_expires_at"),
+                @javax.persistence.Index(name = "idx_frontier_lease_token", columnList = "lease_token")
+        })
+@Getter
+@Setter
+public class FrontierUrl {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @ManyToOne
+    @JoinColumn(name = "site_id", nullable = false)
+    private Site site;
+
+    @Column(columnDefinition = "VARCHAR(512)", nullable = false)
+    private String url;
+
+    @Enumerated(EnumType.STRING)
+    @Column(columnDefinition = "ENUM('PENDING', 'LEASED', 'DONE', 'FAILED')", nullable = false)
+    private FrontierStatus status;
+
+    @Column(name = "lease_token", columnDefinition = "VARCHAR(64)")
+    private String leaseToken;
+
+    @Column(name = "lease_owner", columnDefinition = "VARCHAR(255)")
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at", columnDefinition = "DATETIME")
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(nullable = false)
+    private int attempts;
+}
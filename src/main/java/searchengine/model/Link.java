@@ -0,0 +1,26 @@
+package searchengine.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import javax.persistence.*;
+
+/**
+ * Ссылка со страницы на другую страницу того же сайта. Целевая страница хранится путём,
+ * потому что на момент сохранения она может быть ещё не загружена.
+ */
+@Entity
+@Table(name = "link", indexes = @javax.persistence.Index(name = "idx_link_source", columnList = "source_id"))
+@Getter
+@Setter
+public class Link {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @ManyToOne
+    @JoinColumn(name = "source_id", nullable = false)
+    private Page source;
+
+    @Column(name = "target_path", columnDefinition = "VARCHAR(255)", nullable = false)
+    private String targetPath;
+}
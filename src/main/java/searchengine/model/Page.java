@@ -6,7 +6,8 @@ import javax.persistence.*;
 import java.util.List;
 
 @Entity
-@Table(name = "page", indexes = @javax.persistence.Index(name = "idx_path", columnList = "path"))
+@Table(name = "page", indexes = @javax.persistence.Index(name = "idx_path", columnList = "path"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_page_site_path", columnNames = {"site_id", "path"}))
 @Getter
 @Setter
 public class Page {
@@ -27,6 +28,17 @@ public class Page {
     @Column(columnDefinition = "MEDIUMTEXT", nullable = false)
     private String content;
 
+    /**
+     * Статическая оценка страницы по ссылкам сайта от 0 до 1, пересчитывается после каждого обхода.
+     */
+    @Column(nullable = false)
+    private float score;
+
+    /**
+     * SimHash лемм страницы для поиска почти одинаковых страниц, null у страниц с малым числом лемм.
+     */
+    private Long fingerprint;
+
     @OneToMany(mappedBy = "page", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Index> indexesModel;
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package searchengine.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Статистика изменений страницы для повторного обхода. Хранится по пути, а не по странице: при переиндексации
+ * строка page пересоздаётся, а накопленная статистика должна сохраниться.
+ */
+@Entity
+@Table(name = "page_revisit",
+        uniqueConstraints = @UniqueConstraint(name = "uk_page_revisit_site_path", columnNames = {"site_id", "path"}),
+        indexes = @javax.persistence.Index(name = "idx_page_revisit_next_fetch", columnList = "next_fetch_at"))
+@Getter
+@Setter
+public class PageRevisit {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @ManyToOne
+    @JoinColumn(name = "site_id", nullable = false)
+    private Site site;
+
+    @Column(name = "path", columnDefinition = "VARCHAR(255)", nullable = false)
+    private String path;
+
+    /**
+     * Отпечаток текста страницы при последней загрузке.
+     */
+    @Column(name = "content_hash", nullable = false)
+    private long contentHash;
+
+    @Column(name = "fetch_count", nullable = false)
+    private int fetchCount;
+
+    /**
+     * Сколько повторных загрузок застали текст изменённым.
+     */
+    @Column(name = "change_count", nullable = false)
+    private int changeCount;
+
+    /**
+     * Суммарное время между загрузками в секундах, по нему оценивается частота изменений.
+     */
+    @Column(name = "observed_seconds", nullable = false)
+    private long observedSeconds;
+
+    @Column(name = "last_fetched_at", columnDefinition = "DATETIME", nullable = false)
+    private LocalDateTime lastFetchedAt;
+
+    @Column(name = "next_fetch_at", columnDefinition = "DATETIME", nullable = false)
+    private LocalDateTime nextFetchAt;
+}
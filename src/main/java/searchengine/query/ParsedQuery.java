@@ -0,0 +1,30 @@
+package searchengine.query;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class ParsedQuery {
+
+    /**
+     * Дерево операторов; null, если в запросе нет ни одного значимого слова.
+     */
+    private final QueryNode root;
+    private final List<String> siteFilters;
+    private final List<String> pathPrefixes;
+    /**
+     * Фразы, которые обязаны быть на каждой найденной странице. Списки вхождений не хранят позиций,
+     * поэтому порядок слов в этих фразах проверяется по тексту страницы.
+     */
+    private final List<List<String>> requiredPhrases;
+    /**
+     * Запрос без операторов, кавычек и фильтров ищется прежним способом — как набор лемм.
+     */
+    private final boolean plain;
+
+    public static ParsedQuery plain() {
+        return new ParsedQuery(null, List.of(), List.of(), List.of(), true);
+    }
+}
@@ -0,0 +1,39 @@
+package searchengine.query;
+
+import searchengine.dto.search.LemmaEntry;
+import java.util.List;
+
+/**
+ * Проверка фраз по тексту страницы. Служебные слова в тексте и во фразе не учитываются,
+ * поэтому между словами фразы в тексте могут стоять предлоги и союзы.
+ */
+public final class PhraseMatcher {
+
+    private PhraseMatcher() {
+    }
+
+    /**
+     * @param words слова текста страницы с их нормальными формами по порядку
+     */
+    public static boolean containsAll(List<LemmaEntry> words, List<List<String>> phrases) {
+        for (List<String> phrase : phrases) {
+            if (!contains(words, phrase)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(List<LemmaEntry> words, List<String> phrase) {
+        for (int start = 0; start + phrase.size() <= words.size(); start++) {
+            int matched = 0;
+            while (matched < phrase.size() && words.get(start + matched).getLemmaSet().contains(phrase.get(matched))) {
+                matched++;
+            }
+            if (matched == phrase.size()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,93 @@
+package searchengine.query;
+
+import searchengine.index.ConjunctionIterator;
+import searchengine.index.DisjunctionIterator;
+import searchengine.index.DocIterator;
+import searchengine.index.ExclusionIterator;
+import searchengine.index.PostingSource;
+import searchengine.index.SegmentMatches;
+import searchengine.index.SegmentSearcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * Выполнение дерева операторов над списками вхождений: AND — пересечение, OR — слияние,
+ * NOT — разность с остальными частями AND. Фраза до проверки порядка слов ищется как AND своих лемм.
+ */
+public final class QueryExecutor {
+
+    private QueryExecutor() {
+    }
+
+    /**
+     * Фильтр path: проверяется для каждой найденной страницы до её оценки.
+     */
+    public static SegmentMatches execute(ParsedQuery query, PostingSource source, int topK, double scoreWeight,
+                                         int maxMatches, Map.Entry<Integer, Double> after) {
+        DocIterator matches = toIterator(query.getRoot(), source);
+        return SegmentSearcher.findTopMatching(source, matches, pathFilter(query.getPathPrefixes(), source),
+                topK, scoreWeight, maxMatches, after);
+    }
+
+    private static DocIterator toIterator(QueryNode node, PostingSource source) {
+        switch (node.getType()) {
+            case TERM:
+                return source.postings(node.getLemmas().get(0));
+            case PHRASE:
+                List<DocIterator> words = new ArrayList<>();
+                for (String lemma : node.getLemmas()) {
+                    words.add(source.postings(lemma));
+                }
+                return new ConjunctionIterator(words);
+            case OR:
+                return new DisjunctionIterator(toIterators(node.getChildren(), source));
+            case AND:
+                List<QueryNode> included = new ArrayList<>();
+                List<QueryNode> excluded = new ArrayList<>();
+                for (QueryNode child : node.getChildren()) {
+                    if (child.getType() == QueryNode.Type.NOT) {
+                        excluded.add(child.getChildren().get(0));
+                    } else {
+                        included.add(child);
+                    }
+                }
+                DocIterator matches = included.size() == 1
+                        ? toIterator(included.get(0), source)
+                        : new ConjunctionIterator(toIterators(included, source));
+                if (excluded.isEmpty()) {
+                    return matches;
+                }
+                DocIterator exclusions = excluded.size() == 1
+                        ? toIterator(excluded.get(0), source)
+                        : new DisjunctionIterator(toIterators(excluded, source));
+                return new ExclusionIterator(matches, exclusions);
+            default:
+                throw new IllegalArgumentException("Исключение вне AND: " + node);
+        }
+    }
+
+    private static List<DocIterator> toIterators(List<QueryNode> nodes, PostingSource source) {
+        List<DocIterator> iterators = new ArrayList<>(nodes.size());
+        for (QueryNode node : nodes) {
+            iterators.add(toIterator(node, source));
+        }
+        return iterators;
+    }
+
+    private static IntPredicate pathFilter(List<String> pathPrefixes, PostingSource source) {
+        if (pathPrefixes.isEmpty()) {
+            return doc -> true;
+        }
+        return doc -> {
+            String path = source.getPagePath(doc);
+            for (String prefix : pathPrefixes) {
+                if (path.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+}
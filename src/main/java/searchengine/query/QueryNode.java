@@ -0,0 +1,119 @@
+package searchengine.query;
+
+import lombok.Getter;
+import java.util.*;
+
+/**
+ * Узел дерева операторов поискового запроса. Слова в листьях уже заменены леммами.
+ * Фабричные методы сразу упрощают дерево: вложенные AND и OR раскрываются, узел с одним потомком
+ * заменяется потомком, а узел без потомков — null.
+ */
+@Getter
+public final class QueryNode {
+
+    public enum Type {
+        TERM,
+        /**
+         * Леммы, идущие в тексте подряд.
+         */
+        PHRASE,
+        AND,
+        OR,
+        NOT
+    }
+
+    private final Type type;
+    private final List<String> lemmas;
+    private final List<QueryNode> children;
+
+    private QueryNode(Type type, List<String> lemmas, List<QueryNode> children) {
+        this.type = type;
+        this.lemmas = lemmas;
+        this.children = children;
+    }
+
+    public static QueryNode term(String lemma) {
+        return new QueryNode(Type.TERM, List.of(lemma), List.of());
+    }
+
+    public static QueryNode phrase(List<String> lemmas) {
+        if (lemmas.isEmpty()) {
+            return null;
+        }
+        return lemmas.size() == 1 ? term(lemmas.get(0)) : new QueryNode(Type.PHRASE, List.copyOf(lemmas), List.of());
+    }
+
+    public static QueryNode and(List<QueryNode> children) {
+        return combine(Type.AND, children);
+    }
+
+    public static QueryNode or(List<QueryNode> children) {
+        return combine(Type.OR, children);
+    }
+
+    public static QueryNode not(QueryNode child) {
+        return child == null ? null : new QueryNode(Type.NOT, List.of(), List.of(child));
+    }
+
+    private static QueryNode combine(Type type, List<QueryNode> children) {
+        List<QueryNode> flattened = new ArrayList<>();
+        for (QueryNode child : children) {
+            if (child == null) {
+                continue;
+            }
+            if (child.type == type) {
+                flattened.addAll(child.children);
+            } else {
+                flattened.add(child);
+            }
+        }
+        if (flattened.isEmpty()) {
+            return null;
+        }
+        return flattened.size() == 1 ? flattened.get(0) : new QueryNode(type, List.of(), List.copyOf(flattened));
+    }
+
+    /**
+     * @return все леммы поддерева, включая исключаемые
+     */
+    public Set<String> collectLemmas() {
+        Set<String> result = new LinkedHashSet<>();
+        collectLemmas(result, true);
+        return result;
+    }
+
+    /**
+     * @return леммы поддерева без исключаемых — то, что подсвечивается в сниппете
+     */
+    public Set<String> collectIncludedLemmas() {
+        Set<String> result = new LinkedHashSet<>();
+        collectLemmas(result, false);
+        return result;
+    }
+
+    private void collectLemmas(Set<String> result, boolean withExcluded) {
+        if (type == Type.NOT && !withExcluded) {
+            return;
+        }
+        result.addAll(lemmas);
+        for (QueryNode child : children) {
+            child.collectLemmas(result, withExcluded);
+        }
+    }
+
+    @Override
+    public String toString() {
+        switch (type) {
+            case TERM:
+                return lemmas.get(0);
+            case PHRASE:
+                return "\"" + String.join(" ", lemmas) + "\"";
+            case NOT:
+                return "NOT " + children.get(0);
+            default:
+                StringJoiner joiner = new StringJoiner(" " + type + " ", "(", ")");
+                children.forEach(child -> joiner.add(child.toString()));
+                return joiner.toString();
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package searchengine.query;
+
+import searchengine.exception.SearchException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Разбор поискового запроса с операторами:
+ * <pre>
+ *   запрос   := или
+ *   или      := и ( OR и )*
+ *   и        := унарный ( [AND] унарный )*
+ *   унарный  := ( NOT | - ) унарный | первичный
+ *   первичный := ( запрос ) | "фраза" | слово
+ * </pre>
+ * Операторы пишутся заглавными буквами, соседние части без оператора соединяются через AND.
+ * Фильтры site:хост и path:/префикс действуют на весь запрос независимо от того, где записаны;
+ * несколько фильтров одного вида объединяются через OR. Незакрытые скобки и кавычки закрываются в конце запроса.
+ * Минус перед цифрой считается знаком числа, а не исключением: запрос -10 ищет число.
+ */
+public final class QueryParser {
+
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final List<Token> tokens;
+    private final Function<String, String> lemmatizer;
+    private int position;
+
+    private QueryParser(List<Token> tokens, Function<String, String> lemmatizer) {
+        this.tokens = tokens;
+        this.lemmatizer = lemmatizer;
+    }
+
+    /**
+     * @param lemmatizer лемма слова или null для служебных слов, которые не индексируются
+     */
+    public static ParsedQuery parse(String query, Function<String, String> lemmatizer) {
+        List<String> siteFilters = new ArrayList<>();
+        List<String> pathPrefixes = new ArrayList<>();
+        List<Token> tokens = tokenize(query, siteFilters, pathPrefixes);
+        boolean plain = siteFilters.isEmpty() && pathPrefixes.isEmpty()
+                && tokens.stream().allMatch(token -> token.kind == TokenKind.WORD);
+        if (plain) {
+            return ParsedQuery.plain();
+        }
+
+        QueryParser parser = new QueryParser(tokens, lemmatizer);
+        QueryNode root = parser.parseOr();
+        while (parser.position < tokens.size()) {
+            // Лишняя закрывающая скобка: всё, что после неё, соединяется с уже разобранным через AND
+            parser.position++;
+            root = QueryNode.and(Arrays.asList(root, parser.parseOr()));
+        }
+        validate(root, true);
+        return new ParsedQuery(root, siteFilters, pathPrefixes, findRequiredPhrases(root), false);
+    }
+
+    private QueryNode parseOr() {
+        List<QueryNode> alternatives = new ArrayList<>();
+        alternatives.add(parseAnd());
+        while (accept(TokenKind.OR)) {
+            alternatives.add(parseAnd());
+        }
+        return QueryNode.or(alternatives);
+    }
+
+    private QueryNode parseAnd() {
+        List<QueryNode> parts = new ArrayList<>();
+        while (position < tokens.size()) {
+            TokenKind kind = tokens.get(position).kind;
+            if (kind == TokenKind.OR || kind == TokenKind.CLOSE) {
+                break;
+            }
+            if (!accept(TokenKind.AND)) {
+                parts.add(parseUnary());
+            }
+        }
+        return QueryNode.and(parts);
+    }
+
+    private QueryNode parseUnary() {
+        if (accept(TokenKind.NOT)) {
+            return position < tokens.size() ? QueryNode.not(parseUnary()) : null;
+        }
+        return parsePrimary();
+    }
+
+    private QueryNode parsePrimary() {
+        Token token = tokens.get(position);
+        if (token.kind == TokenKind.OR || token.kind == TokenKind.CLOSE) {
+            return null;
+        }
+        position++;
+        switch (token.kind) {
+            case OPEN:
+                QueryNode group = parseOr();
+                accept(TokenKind.CLOSE);
+                return group;
+            case PHRASE:
+            case WORD:
+                return QueryNode.phrase(lemmatize(token.text));
+            default:
+                // Оператор без операнда, например "NOT AND": пропускаем
+                return null;
+        }
+    }
+
+    private boolean accept(TokenKind kind) {
+        if (position < tokens.size() && tokens.get(position).kind == kind) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Слово с дефисом или другим разделителем внутри ищется как фраза из его частей.
+     */
+    private List<String> lemmatize(String text) {
+        List<String> lemmas = new ArrayList<>();
+        for (String word : WORD_SEPARATOR.split(text)) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String lemma = lemmatizer.apply(word);
+            if (lemma != null) {
+                lemmas.add(lemma);
+            }
+        }
+        return lemmas;
+    }
+
+    /**
+     * Исключение имеет смысл только как часть AND, в которой есть хотя бы одна включаемая часть.
+     */
+    private static void validate(QueryNode node, boolean top) {
+        if (node == null) {
+            return;
+        }
+        switch (node.getType()) {
+            case NOT:
+                if (top) {
+                    throw new SearchException("Запрос не может состоять только из исключений");
+                }
+                throw new SearchException("Исключение NOT можно использовать только вместе с AND");
+            case AND:
+                boolean hasPositive = false;
+                for (QueryNode child : node.getChildren()) {
+                    if (child.getType() == QueryNode.Type.NOT) {
+                        validate(child.getChildren().get(0), false);
+                    } else {
+                        hasPositive = true;
+                        validate(child, false);
+                    }
+                }
+                if (!hasPositive) {
+                    throw new SearchException("Запрос не может состоять только из исключений");
+                }
+                break;
+            case OR:
+                node.getChildren().forEach(child -> validate(child, false));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Фразы, от которых зависит, найдена ли страница: сам корень или включаемые части корневого AND.
+     * Фразы внутри OR и NOT ищутся как AND своих слов.
+     */
+    private static List<List<String>> findRequiredPhrases(QueryNode root) {
+        if (root == null) {
+            return List.of();
+        }
+        if (root.getType() == QueryNode.Type.PHRASE) {
+            return List.of(root.getLemmas());
+        }
+        List<List<String>> phrases = new ArrayList<>();
+        if (root.getType() == QueryNode.Type.AND) {
+            for (QueryNode child : root.getChildren()) {
+                if (child.getType() == QueryNode.Type.PHRASE) {
+                    phrases.add(child.getLemmas());
+                }
+            }
+        }
+        return phrases;
+    }
+
+    private static List<Token> tokenize(String query, List<String> siteFilters, List<String> pathPrefixes) {
+        List<Token> tokens = new ArrayList<>();
+        int length = query.length();
+        int i = 0;
+        while (i < length) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(') {
+                tokens.add(new Token(TokenKind.OPEN, "("));
+                i++;
+            } else if (c == ')') {
+                tokens.add(new Token(TokenKind.CLOSE, ")"));
+                i++;
+            } else if (c == '"') {
+                int end = query.indexOf('"', i + 1);
+                if (end < 0) {
+                    end = length;
+                }
+                tokens.add(new Token(TokenKind.PHRASE, query.substring(i + 1, end)));
+                i = end + 1;
+            } else if (c == '-' && i + 1 < length && !Character.isWhitespace(query.charAt(i + 1))
+                    && !Character.isDigit(query.charAt(i + 1))) {
+                tokens.add(new Token(TokenKind.NOT, "-"));
+                i++;
+            } else {
+                int end = i;
+                while (end < length && !Character.isWhitespace(query.charAt(end))
+                        && query.charAt(end) != '(' && query.charAt(end) != ')' && query.charAt(end) != '"') {
+                    end++;
+                }
+                addWord(query.substring(i, end), tokens, siteFilters, pathPrefixes);
+                i = end;
+            }
+        }
+        return tokens;
+    }
+
+    private static void addWord(String word, List<Token> tokens, List<String> siteFilters, List<String> pathPrefixes) {
+        String lowerCase = word.toLowerCase(Locale.ROOT);
+        if (lowerCase.startsWith("site:") && word.length() > "site:".length()) {
+            siteFilters.add(word.substring("site:".length()));
+        } else if (lowerCase.startsWith("path:") && word.length() > "path:".length()) {
+            String prefix = word.substring("path:".length());
+            pathPrefixes.add(prefix.startsWith("/") ? prefix : "/" + prefix);
+        } else if (word.equals("AND")) {
+            tokens.add(new Token(TokenKind.AND, word));
+        } else if (word.equals("OR")) {
+            tokens.add(new Token(TokenKind.OR, word));
+        } else if (word.equals("NOT")) {
+            tokens.add(new Token(TokenKind.NOT, word));
+        } else {
+            tokens.add(new Token(TokenKind.WORD, word));
+        }
+    }
+
+    private enum TokenKind {
+        WORD, PHRASE, AND, OR, NOT, OPEN, CLOSE
+    }
+
+    private record Token(TokenKind kind, String text) {
+    }
+}
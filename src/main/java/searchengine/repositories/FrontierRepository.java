@@ -0,0 +1,74 @@
+package searchengine.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import searchengine.model.FrontierStatus;
+import searchengine.model.FrontierUrl;
+import searchengine.model.Site;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface FrontierRepository extends JpaRepository<FrontierUrl, Integer> {
+
+    @Query("SELECT f.id FROM FrontierUrl f WHERE (f.status = searchengine.model.FrontierStatus.PENDING " +
+            "OR (f.status = searchengine.model.FrontierStatus.LEASED AND f.leaseExpiresAt < :now)) " +
+            "AND f.attempts < :maxAttempts ORDER BY f.id")
+    List<Integer> findLeasableIds(@Param("now") LocalDateTime now, @Param("maxAttempts") int maxAttempts,
+                                  Pageable pageable);
+
+    /**
+     * Условие повторяется в самом UPDATE: если два воркера выбрали одни и те же адреса,
+     * строку получит только тот, чьё обновление выполнится первым.
+     */
+    @Modifying
+    @Query("UPDATE FrontierUrl f SET f.status = searchengine.model.FrontierStatus.LEASED, f.leaseToken = :token, " +
+            "f.leaseOwner = :owner, f.leaseExpiresAt = :expiresAt, f.attempts = f.attempts + 1 " +
+            "WHERE f.id IN :ids AND (f.status = searchengine.model.FrontierStatus.PENDING " +
+            "OR (f.status = searchengine.model.FrontierStatus.LEASED AND f.leaseExpiresAt < :now))")
+    int lease(@Param("ids") Collection<Integer> ids, @Param("token") String token, @Param("owner") String owner,
+              @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    List<FrontierUrl> findByLeaseToken(String leaseToken);
+
+    /**
+     * Продлевает аренду адреса, только если она всё ещё за этим воркером: после истечения аренды
+     * адрес мог получить другой воркер с новым токеном.
+     */
+    @Modifying
+    @Query("UPDATE FrontierUrl f SET f.leaseExpiresAt = :expiresAt WHERE f.id = :id AND f.leaseToken = :token " +
+            "AND f.status = searchengine.model.FrontierStatus.LEASED")
+    int renewLease(@Param("id") int id, @Param("token") String token, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Отчёт воркера применяется, только если аренда всё ещё за ним.
+     */
+    @Modifying
+    @Query("UPDATE FrontierUrl f SET f.status = :status, f.leaseToken = NULL, f.leaseOwner = NULL, " +
+            "f.leaseExpiresAt = NULL WHERE f.id = :id AND f.leaseToken = :token")
+    int release(@Param("id") int id, @Param("token") String token, @Param("status") FrontierStatus status);
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO frontier (site_id, url, status, attempts) VALUES (:siteId, :url, 'PENDING', 0)",
+            nativeQuery = true)
+    int enqueue(@Param("siteId") int siteId, @Param("url") String url);
+
+    @Modifying
+    @Query("UPDATE FrontierUrl f SET f.status = searchengine.model.FrontierStatus.FAILED, f.leaseToken = NULL, " +
+            "f.leaseOwner = NULL, f.leaseExpiresAt = NULL WHERE f.status = searchengine.model.FrontierStatus.LEASED " +
+            "AND f.leaseExpiresAt < :now AND f.attempts >= :maxAttempts")
+    int failExhaustedLeases(@Param("now") LocalDateTime now, @Param("maxAttempts") int maxAttempts);
+
+    boolean existsBySite(Site site);
+
+    boolean existsBySiteAndStatusIn(Site site, Collection<FrontierStatus> statuses);
+
+    @Modifying
+    @Query("DELETE FROM FrontierUrl f WHERE f.site IN :sites")
+    void deleteAllBySiteIn(@Param("sites") Collection<Site> sites);
+}
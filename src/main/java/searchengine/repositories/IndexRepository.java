@@ -1,10 +1,15 @@
 package searchengine.repositories;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import searchengine.dto.index.IndexPosting;
 import searchengine.model.Index;
 import searchengine.model.Lemma;
 import searchengine.model.Page;
 import searchengine.model.Site;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -22,4 +27,12 @@ public interface IndexRepository extends JpaRepository<Index, Integer> {
 
     Set<Index> findByPageAndLemmaIn(Page page, Set<Lemma> lemmas);
 
+    @Query("SELECT new searchengine.dto.index.IndexPosting(i.id, i.lemma.id, i.page.id, i.rank) FROM Index i " +
+            "WHERE i.page.site = :site AND i.id > :afterId ORDER BY i.id")
+    List<IndexPosting> findPostingsBySiteAfter(@Param("site") Site site, @Param("afterId") int afterId, Pageable pageable);
+
+    @Query("SELECT new searchengine.dto.index.IndexPosting(i.id, i.lemma.id, i.page.id, i.rank) FROM Index i " +
+            "WHERE i.lemma.id IN :lemmaIds ORDER BY i.lemma.id, i.page.id")
+    List<IndexPosting> findPostingsByLemmaIdIn(@Param("lemmaIds") Collection<Integer> lemmaIds);
+
 }
\ No newline at end of file
@@ -2,11 +2,17 @@ package searchengine.repositories;
 
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import searchengine.dto.index.LemmaFrequency;
+import searchengine.dto.index.LemmaReference;
 import searchengine.model.Lemma;
 import searchengine.model.Site;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,8 +23,32 @@ public interface LemmaRepository extends JpaRepository<Lemma, Integer> {
     @Query("SELECT l FROM Lemma l WHERE l.site = :site")
     List<Lemma> findBySite(@Param("site") Site site, Pageable pageable);
 
+    List<Lemma> findBySiteAndLemmaIn(Site site, Collection<String> lemmas);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    @Query("SELECT new searchengine.dto.index.LemmaReference(l.id, l.lemma) FROM Lemma l " +
+            "WHERE l.site = :site AND l.lemma IN :lemmas")
+    List<LemmaReference> findReferencesBySiteAndLemmaIn(@Param("site") Site site, @Param("lemmas") Collection<String> lemmas);
+
+    @Query("SELECT new searchengine.dto.index.LemmaFrequency(l.lemma, l.frequency) FROM Lemma l WHERE l.site = :site")
+    List<LemmaFrequency> findFrequenciesBySite(@Param("site") Site site);
+
+    @Query("SELECT new searchengine.dto.index.LemmaReference(l.id, l.lemma) FROM Lemma l WHERE l.site = :site")
+    List<LemmaReference> findReferencesBySite(@Param("site") Site site);
+
     int countBySite(Site site);
 
+    @Query("SELECT COALESCE(SUM(l.frequency), 0) FROM Lemma l WHERE l.site = :site")
+    long sumFrequencyBySite(@Param("site") Site site);
+
+    @Modifying
+    @Query("UPDATE Lemma l SET l.frequency = l.frequency + :delta WHERE l.id IN :ids")
+    int addFrequency(@Param("ids") Collection<Integer> ids, @Param("delta") int delta);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Lemma l WHERE l.id IN :ids AND l.frequency <= 0")
+    int deleteUnusedByIdIn(@Param("ids") Collection<Integer> ids);
+
     void deleteBySite(Site site);
 
 }
\ No newline at end of file
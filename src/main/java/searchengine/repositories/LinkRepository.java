@@ -0,0 +1,23 @@
+package searchengine.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import searchengine.dto.index.LinkEdge;
+import searchengine.model.Link;
+import searchengine.model.Page;
+import searchengine.model.Site;
+import java.util.List;
+
+@Repository
+public interface LinkRepository extends JpaRepository<Link, Integer> {
+
+    @Modifying
+    @Query("DELETE FROM Link l WHERE l.source = :source")
+    void deleteAllBySource(@Param("source") Page source);
+
+    @Query("SELECT new searchengine.dto.index.LinkEdge(l.source.id, l.targetPath) FROM Link l WHERE l.source.site = :site")
+    List<LinkEdge> findEdgesBySite(@Param("site") Site site);
+}
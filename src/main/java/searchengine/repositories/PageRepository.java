@@ -1,9 +1,15 @@
 package searchengine.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import searchengine.dto.index.PageFingerprint;
+import searchengine.dto.index.PageMetadata;
 import searchengine.model.Page;
 import searchengine.model.Site;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -18,4 +24,15 @@ public interface PageRepository extends JpaRepository<Page, Integer> {
 
     Optional<Page> findBySiteAndPath(Site site, String path);
 
+    @Query("SELECT new searchengine.dto.index.PageMetadata(p.id, p.path, p.score) FROM Page p WHERE p.site = :site")
+    List<PageMetadata> findMetadataBySite(@Param("site") Site site);
+
+    @Query("SELECT new searchengine.dto.index.PageFingerprint(p.path, p.fingerprint) FROM Page p " +
+            "WHERE p.site = :site AND p.fingerprint IS NOT NULL")
+    List<PageFingerprint> findFingerprintsBySite(@Param("site") Site site);
+
+    @Modifying
+    @Query("UPDATE Page p SET p.score = :score WHERE p.id = :id")
+    void updateScore(@Param("id") int id, @Param("score") float score);
+
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package searchengine.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import searchengine.model.PageRevisit;
+import searchengine.model.Site;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PageRevisitRepository extends JpaRepository<PageRevisit, Integer> {
+
+    Optional<PageRevisit> findBySiteAndPath(Site site, String path);
+
+    @Query("SELECT r FROM PageRevisit r WHERE r.nextFetchAt <= :now " +
+            "AND r.site.status = searchengine.model.Status.INDEXED ORDER BY r.nextFetchAt")
+    List<PageRevisit> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Откладывает загрузку на время обработки. Срок сравнивается с прочитанным, поэтому страницу
+     * забирает только один экземпляр, даже если несколько выбрали её одновременно.
+     */
+    @Modifying
+    @Query("UPDATE PageRevisit r SET r.nextFetchAt = :claimedUntil WHERE r.id = :id AND r.nextFetchAt = :nextFetchAt")
+    int claim(@Param("id") int id, @Param("nextFetchAt") LocalDateTime nextFetchAt,
+              @Param("claimedUntil") LocalDateTime claimedUntil);
+}
\ No newline at end of file
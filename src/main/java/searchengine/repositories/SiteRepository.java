@@ -1,21 +1,47 @@
 package searchengine.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import searchengine.model.Site;
 import searchengine.model.Status;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface SiteRepository extends JpaRepository<Site, Integer> {
 
     void deleteByUrl(String url);
 
-    @Query("SELECT s FROM Site s WHERE :url LIKE CONCAT(s.url, '%')")
-    Site findByUrlStartingWith(@Param("url") String url);
+    @Override
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    List<Site> findAll();
 
     List<Site> findByStatus(Status status);
 
     boolean existsByStatus(Status status);
+
+    @Query("SELECT s.status FROM Site s WHERE s.id = :id")
+    Status findStatusById(@Param("id") int id);
+
+    @Query("SELECT s.statusTime FROM Site s WHERE s.id = :id")
+    LocalDateTime findStatusTimeById(@Param("id") int id);
+
+    @Modifying
+    @Query("UPDATE Site s SET s.statusTime = :statusTime " +
+            "WHERE s.id = :id AND s.status = searchengine.model.Status.INDEXED")
+    int touchIndexed(@Param("id") int id, @Param("statusTime") LocalDateTime statusTime);
+
+    @Modifying
+    @Query("UPDATE Site s SET s.statusTime = :claimedUntil " +
+            "WHERE s.id = :id AND s.status = searchengine.model.Status.INDEXING AND s.statusTime < :now")
+    int claimIndexing(@Param("id") int id, @Param("now") LocalDateTime now, @Param("claimedUntil") LocalDateTime claimedUntil);
+
+    @Modifying
+    @Query("UPDATE Site s SET s.status = searchengine.model.Status.INDEXED, s.statusTime = :now, s.lastError = NULL " +
+            "WHERE s.id = :id AND s.status = searchengine.model.Status.INDEXING")
+    int markIndexed(@Param("id") int id, @Param("now") LocalDateTime now);
 }
\ No newline at end of file
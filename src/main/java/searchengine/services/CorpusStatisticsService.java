@@ -0,0 +1,202 @@
+package searchengine.services;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import searchengine.dto.index.LemmaFrequency;
+import searchengine.feed.IndexChangeEvent;
+import searchengine.feed.IndexChangeFeed;
+import searchengine.feed.IndexChangeListener;
+import searchengine.feed.IndexChangeType;
+import searchengine.index.IndexSegment;
+import searchengine.model.Site;
+import searchengine.repositories.LemmaRepository;
+import searchengine.repositories.PageRepository;
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Статистика корпуса по каждому сайту: число страниц и частоты лемм.
+ * Если у сайта есть актуальный сегмент индекса, значения берутся из него без обращения к БД.
+ * Иначе статистика загружается из БД при первом обращении к сайту и дальше обновляется по журналу изменений
+ * индекса, а раз в несколько минут сверяется с БД.
+ */
+@Service
+@RequiredArgsConstructor
+public class CorpusStatisticsService implements IndexChangeListener {
+
+    private final PageRepository pageRepository;
+    private final LemmaRepository lemmaRepository;
+    private final IndexSegmentService indexSegmentService;
+    private final IndexChangeFeed indexChangeFeed;
+
+    private final Map<Integer, SiteStatistics> statisticsBySite = new ConcurrentHashMap<>();
+
+    private static final Logger logger = LoggerFactory.getLogger(CorpusStatisticsService.class);
+
+    @PostConstruct
+    public void subscribe() {
+        indexChangeFeed.subscribe(this);
+    }
+
+    public int getPageCount(Site site) {
+        Optional<IndexSegment> segment = indexSegmentService.getSegment(site);
+        if (segment.isPresent()) {
+            return segment.get().getPageCount();
+        }
+        return getSiteStatistics(site).pageCount.get();
+    }
+
+    public int getLemmaCount(Site site) {
+        Optional<IndexSegment> segment = indexSegmentService.getSegment(site);
+        if (segment.isPresent()) {
+            return segment.get().getLemmaCount();
+        }
+        return getSiteStatistics(site).frequencies.size();
+    }
+
+    /**
+     * @return частоты переданных лемм на сайте, отсутствующие на сайте леммы в результат не попадают
+     */
+    public Map<String, Integer> getFrequencies(Site site, Collection<String> lemmas) {
+        Optional<IndexSegment> segment = indexSegmentService.getSegment(site);
+        if (segment.isPresent()) {
+            return getFrequencies(segment.get(), lemmas);
+        }
+        Map<String, Integer> frequencies = getSiteStatistics(site).frequencies;
+        Map<String, Integer> result = new HashMap<>();
+        for (String lemma : lemmas) {
+            Integer frequency = frequencies.get(lemma);
+            if (frequency != null) {
+                result.put(lemma, frequency);
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Integer> getFrequencies(IndexSegment segment, Collection<String> lemmas) {
+        Map<String, Integer> result = new HashMap<>();
+        for (String lemma : lemmas) {
+            int lemmaOrdinal = segment.findLemma(lemma);
+            if (lemmaOrdinal >= 0) {
+                result.put(lemma, segment.getDocFrequency(lemmaOrdinal));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * События, записанные в журнал до загрузки статистики сайта из БД, уже учтены в ней и пропускаются.
+     */
+    @Override
+    public void onChanges(List<IndexChangeEvent> events) {
+        for (IndexChangeEvent event : events) {
+            if (event.getType() == IndexChangeType.SITES_CLEARED) {
+                statisticsBySite.clear();
+                continue;
+            }
+            if (event.getType() == IndexChangeType.SITE_GENERATION_COMPLETED) {
+                // поколение могли собрать другие экземпляры, их записи в этот журнал не попадали
+                statisticsBySite.remove(event.getSiteId());
+                continue;
+            }
+            SiteStatistics statistics = statisticsBySite.get(event.getSiteId());
+            if (statistics == null || event.getOffset() < statistics.loadedAtOffset) {
+                continue;
+            }
+            switch (event.getType()) {
+                case PAGE_ADDED:
+                    statistics.pageCount.incrementAndGet();
+                    break;
+                case PAGE_REMOVED:
+                    statistics.pageCount.decrementAndGet();
+                    applyLemmaDeltas(statistics, event.getLemmaDeltas());
+                    break;
+                case LEMMA_DELTA:
+                    applyLemmaDeltas(statistics, event.getLemmaDeltas());
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    @Override
+    public void onReset() {
+        invalidateAll();
+    }
+
+    private void applyLemmaDeltas(SiteStatistics statistics, Map<String, Integer> lemmaDeltas) {
+        for (Map.Entry<String, Integer> delta : lemmaDeltas.entrySet()) {
+            statistics.frequencies.compute(delta.getKey(), (key, frequency) -> {
+                int updated = (frequency == null ? 0 : frequency) + delta.getValue();
+                return updated > 0 ? updated : null;
+            });
+        }
+    }
+
+    /**
+     * Исправляет расхождения счётчиков с БД, например если транзакция индексатора зафиксировалась
+     * между загрузкой статистики сайта и записью её событий в журнал. Кроме числа лемм сравнивается сумма
+     * частот: пропущенное изменение частоты уже существующей леммы число лемм не меняет.
+     */
+    @Scheduled(fixedDelayString = "${indexing-settings.statistics-reconcile-interval-ms:300000}",
+            initialDelayString = "${indexing-settings.statistics-reconcile-interval-ms:300000}")
+    public void reconcile() {
+        for (Map.Entry<Integer, SiteStatistics> entry : statisticsBySite.entrySet()) {
+            SiteStatistics statistics = entry.getValue();
+            Site site = statistics.site;
+            statistics.pageCount.set(pageRepository.countBySite(site));
+            int lemmaCount = lemmaRepository.countBySite(site);
+            long frequencySum = lemmaRepository.sumFrequencyBySite(site);
+            long localFrequencySum = 0;
+            for (int frequency : statistics.frequencies.values()) {
+                localFrequencySum += frequency;
+            }
+            if (lemmaCount != statistics.frequencies.size() || frequencySum != localFrequencySum) {
+                logger.info("Статистика лемм сайта {} разошлась с БД (лемм {} против {}, сумма частот {} против {}), перезагружаю",
+                        site.getUrl(), statistics.frequencies.size(), lemmaCount, localFrequencySum, frequencySum);
+                statisticsBySite.replace(entry.getKey(), statistics, loadSiteStatistics(site));
+            }
+        }
+    }
+
+    public void invalidate(Site site) {
+        statisticsBySite.remove(site.getId());
+    }
+
+    public void invalidateAll() {
+        statisticsBySite.clear();
+    }
+
+    private SiteStatistics getSiteStatistics(Site site) {
+        return statisticsBySite.computeIfAbsent(site.getId(), id -> loadSiteStatistics(site));
+    }
+
+    private SiteStatistics loadSiteStatistics(Site site) {
+        SiteStatistics statistics = new SiteStatistics(site, indexChangeFeed.getNextOffset());
+        statistics.pageCount.set(pageRepository.countBySite(site));
+        for (LemmaFrequency lemmaFrequency : lemmaRepository.findFrequenciesBySite(site)) {
+            statistics.frequencies.put(lemmaFrequency.getLemma(), lemmaFrequency.getFrequency());
+        }
+        logger.info("Загружена статистика сайта {}: страниц {}, лемм {}",
+                site.getUrl(), statistics.pageCount.get(), statistics.frequencies.size());
+        return statistics;
+    }
+
+    private static class SiteStatistics {
+        private final Site site;
+        private final long loadedAtOffset;
+        private final AtomicInteger pageCount = new AtomicInteger();
+        private final Map<String, Integer> frequencies = new ConcurrentHashMap<>();
+
+        private SiteStatistics(Site site, long loadedAtOffset) {
+            this.site = site;
+            this.loadedAtOffset = loadedAtOffset;
+        }
+    }
+}
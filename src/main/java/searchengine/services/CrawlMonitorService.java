@@ -0,0 +1,113 @@
+package searchengine.services;
+
+import org.springframework.stereotype.Service;
+import searchengine.model.Site;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Текущее состояние обхода сайтов для статистики: идёт ли индексация, скорость, размер очереди и число ошибок.
+ */
+@Service
+public class CrawlMonitorService {
+
+    private final Map<Integer, CrawlProgress> progressBySite = new ConcurrentHashMap<>();
+    private final AtomicInteger activeCrawls = new AtomicInteger();
+
+    public void onCrawlStarted(Site site) {
+        progressBySite.put(site.getId(), new CrawlProgress());
+        activeCrawls.incrementAndGet();
+    }
+
+    public void onCrawlFinished(Site site) {
+        finish(progressBySite.get(site.getId()));
+        activeCrawls.decrementAndGet();
+    }
+
+    /**
+     * Обход, у которого на этом экземпляре нет единых начала и конца: адреса распределённого обхода, доставшиеся
+     * его воркерам, или пакет повторного обхода. Прогресс ведётся так же, но на {@link #isIndexing()} не влияет:
+     * идущий распределённый обход виден по статусу сайта в БД.
+     */
+    public void onBackgroundCrawlStarted(Site site) {
+        progressBySite.put(site.getId(), new CrawlProgress());
+    }
+
+    public void onBackgroundCrawlFinished(Site site) {
+        finish(progressBySite.get(site.getId()));
+    }
+
+    public void onPageIndexed(Site site) {
+        CrawlProgress progress = progressBySite.get(site.getId());
+        if (progress != null) {
+            progress.pagesIndexed.increment();
+        }
+    }
+
+    public void onPageFailed(Site site) {
+        CrawlProgress progress = progressBySite.get(site.getId());
+        if (progress != null) {
+            progress.errors.increment();
+        }
+    }
+
+    public void onFrontierSizeChanged(Site site, int frontierSize) {
+        CrawlProgress progress = progressBySite.get(site.getId());
+        if (progress != null) {
+            progress.frontierSize = frontierSize;
+        }
+    }
+
+    public boolean isIndexing() {
+        return activeCrawls.get() > 0;
+    }
+
+    public Optional<CrawlProgress> getProgress(Site site) {
+        return Optional.ofNullable(progressBySite.get(site.getId()));
+    }
+
+    public void clear() {
+        progressBySite.clear();
+    }
+
+    private static void finish(CrawlProgress progress) {
+        if (progress != null) {
+            progress.finishedAt = System.currentTimeMillis();
+            progress.frontierSize = 0;
+        }
+    }
+
+    public static class CrawlProgress {
+        private final long startedAt = System.currentTimeMillis();
+        private volatile long finishedAt;
+        private volatile int frontierSize;
+        private final LongAdder pagesIndexed = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        /**
+         * @return средняя скорость с начала обхода или 0, если обход завершён
+         */
+        public double getPagesPerSecond() {
+            if (finishedAt > 0) {
+                return 0;
+            }
+            long elapsed = Math.max(System.currentTimeMillis() - startedAt, 1);
+            return pagesIndexed.sum() * 1000.0 / elapsed;
+        }
+
+        public int getFrontierSize() {
+            return frontierSize;
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getPagesIndexed() {
+            return pagesIndexed.sum();
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package searchengine.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import searchengine.model.Site;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Обход нескольких сайтов общим пулом потоков. Следующую страницу выбирает deficit round-robin: сайты
+ * обходятся по кругу, в свою очередь сайт получает кредит, равный его весу, и каждая загрузка тратит
+ * одну единицу. Сайт с весом 2 получает вдвое больше загрузок, чем сайт с весом 1, и ни один сайт
+ * не ждёт, пока другой будет обойдён целиком.
+ * <p>
+ * У каждого сайта есть ограничение одновременных загрузок и бюджеты числа страниц и времени. Сайт,
+ * исчерпавший бюджет, больше не получает загрузок и завершается, когда закончатся уже начатые.
+ * Очередь сайта обходится в ширину, поэтому при ограниченном бюджете в индекс попадают страницы,
+ * ближайшие к главной.
+ */
+final class CrawlScheduler {
+
+    private static final long IDLE_WAIT_MS = 200;
+
+    private final BiFunction<Site, String, List<String>> pageProcessor;
+    private final Consumer<Site> onSiteFinished;
+    private final BooleanSupplier stopRequested;
+    private final CrawlMonitorService crawlMonitorService;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final List<SiteCrawl> ring = new ArrayList<>();
+    private int cursor;
+
+    private static final Logger logger = LoggerFactory.getLogger(CrawlScheduler.class);
+
+    /**
+     * @param pageProcessor  индексирует страницу и возвращает её ссылки на тот же сайт; ошибки обрабатывает сам
+     * @param onSiteFinished вызывается один раз для каждого сайта, когда его обход закончен или остановлен
+     */
+    CrawlScheduler(BiFunction<Site, String, List<String>> pageProcessor, Consumer<Site> onSiteFinished,
+                   BooleanSupplier stopRequested, CrawlMonitorService crawlMonitorService) {
+        this.pageProcessor = pageProcessor;
+        this.onSiteFinished = onSiteFinished;
+        this.stopRequested = stopRequested;
+        this.crawlMonitorService = crawlMonitorService;
+    }
+
+    /**
+     * @param maxConcurrency 0 — без ограничения
+     * @param maxPages       0 — без ограничения
+     * @param maxDurationMs  0 — без ограничения
+     */
+    void addSite(Site site, String startUrl, double weight, int maxConcurrency, int maxPages, long maxDurationMs) {
+        SiteCrawl crawl = new SiteCrawl(site, weight > 0 ? weight : 1, maxConcurrency, maxPages,
+                maxDurationMs > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDurationMs) : 0);
+        crawl.enqueue(startUrl);
+        crawlMonitorService.onCrawlStarted(site);
+        lock.lock();
+        try {
+            ring.add(crawl);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Обходит все добавленные сайты и возвращается, когда обход каждого закончен или остановлен.
+     */
+    void run(int threads) throws InterruptedException {
+        int workers = Math.max(threads, 1);
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "crawl-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (int i = 0; i < workers; i++) {
+                executor.submit(this::runWorker);
+            }
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } finally {
+            executor.shutdownNow();
+            List<SiteCrawl> remaining;
+            lock.lock();
+            try {
+                remaining = new ArrayList<>(ring);
+                ring.clear();
+            } finally {
+                lock.unlock();
+            }
+            finish(remaining);
+        }
+    }
+
+    private void runWorker() {
+        try {
+            Task task;
+            while ((task = take()) != null) {
+                List<String> links = List.of();
+                try {
+                    links = pageProcessor.apply(task.crawl.site, task.url);
+                } catch (RuntimeException e) {
+                    logger.error("Ошибка при обработке страницы {}", task.url, e);
+                } finally {
+                    complete(task.crawl, links);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return следующая страница или null, если обход закончен или остановлен
+     */
+    private Task take() throws InterruptedException {
+        while (true) {
+            List<SiteCrawl> finished = new ArrayList<>();
+            lock.lock();
+            try {
+                while (finished.isEmpty()) {
+                    if (stopRequested.getAsBoolean() || ring.isEmpty()) {
+                        changed.signalAll();
+                        return null;
+                    }
+                    long now = System.nanoTime();
+                    removeFinished(now, finished);
+                    if (!finished.isEmpty() || ring.isEmpty()) {
+                        continue;
+                    }
+                    SiteCrawl crawl = pickNext(now);
+                    if (crawl != null) {
+                        crawl.inFlight++;
+                        crawl.dispatched++;
+                        crawl.deficit -= 1;
+                        crawlMonitorService.onFrontierSizeChanged(crawl.site, crawl.frontier.size() - 1);
+                        return new Task(crawl, crawl.frontier.poll());
+                    }
+                    changed.await(IDLE_WAIT_MS, TimeUnit.MILLISECONDS);
+                }
+            } finally {
+                lock.unlock();
+            }
+            // завершение сайта пишет в БД, поэтому выполняется без блокировки
+            finish(finished);
+        }
+    }
+
+    private void complete(SiteCrawl crawl, List<String> links) {
+        lock.lock();
+        try {
+            crawl.inFlight--;
+            for (String link : links) {
+                crawl.enqueue(link);
+            }
+            crawlMonitorService.onFrontierSizeChanged(crawl.site, crawl.frontier.size());
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Очередной сайт по кругу. Кредит начисляется сайту, когда до него доходит очередь и ему есть что загружать;
+     * сайт с пустой очередью теряет накопленный кредит, чтобы не получить потом загрузки вне очереди.
+     */
+    private SiteCrawl pickNext(long now) {
+        boolean anyReady = false;
+        for (SiteCrawl crawl : ring) {
+            anyReady |= crawl.canDispatch(now);
+        }
+        if (!anyReady) {
+            return null;
+        }
+        while (true) {
+            SiteCrawl crawl = ring.get(cursor);
+            if (crawl.canDispatch(now) && crawl.deficit >= 1) {
+                return crawl;
+            }
+            if (crawl.frontier.isEmpty()) {
+                crawl.deficit = 0;
+            }
+            cursor = (cursor + 1) % ring.size();
+            SiteCrawl next = ring.get(cursor);
+            if (next.canDispatch(now)) {
+                next.deficit += next.weight;
+            }
+        }
+    }
+
+    private void removeFinished(long now, List<SiteCrawl> finished) {
+        for (int i = ring.size() - 1; i >= 0; i--) {
+            if (ring.get(i).isFinished(now)) {
+                finished.add(ring.remove(i));
+                if (i < cursor) {
+                    cursor--;
+                }
+            }
+        }
+        if (cursor >= ring.size()) {
+            cursor = 0;
+        }
+    }
+
+    private void finish(List<SiteCrawl> crawls) {
+        for (SiteCrawl crawl : crawls) {
+            if (!crawl.frontier.isEmpty() && !stopRequested.getAsBoolean()) {
+                logger.info("Обход сайта {} остановлен по бюджету: загружено страниц {}, в очереди осталось {}",
+                        crawl.site.getUrl(), crawl.dispatched, crawl.frontier.size());
+            }
+            crawlMonitorService.onCrawlFinished(crawl.site);
+            onSiteFinished.accept(crawl.site);
+        }
+    }
+
+    private static final class SiteCrawl {
+        private final Site site;
+        private final double weight;
+        private final int maxConcurrency;
+        private final int maxPages;
+        private final long deadlineNanos;
+        private final Deque<String> frontier = new ArrayDeque<>();
+        private final Set<String> seen = new HashSet<>();
+        private int inFlight;
+        private int dispatched;
+        private double deficit;
+
+        private SiteCrawl(Site site, double weight, int maxConcurrency, int maxPages, long deadlineNanos) {
+            this.site = site;
+            this.weight = weight;
+            this.maxConcurrency = maxConcurrency;
+            this.maxPages = maxPages;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        private void enqueue(String url) {
+            if (seen.add(url)) {
+                frontier.add(url);
+            }
+        }
+
+        private boolean isBudgetExhausted(long now) {
+            return (maxPages > 0 && dispatched >= maxPages) || (deadlineNanos != 0 && now - deadlineNanos >= 0);
+        }
+
+        private boolean canDispatch(long now) {
+            return !frontier.isEmpty() && (maxConcurrency <= 0 || inFlight < maxConcurrency) && !isBudgetExhausted(now);
+        }
+
+        private boolean isFinished(long now) {
+            return inFlight == 0 && (frontier.isEmpty() || isBudgetExhausted(now));
+        }
+    }
+
+    private record Task(SiteCrawl crawl, String url) {
+    }
+}
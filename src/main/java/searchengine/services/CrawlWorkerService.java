@@ -0,0 +1,170 @@
+package searchengine.services;
+
+import lombok.RequiredArgsConstructor;
+import org.jsoup.UnsupportedMimeTypeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import searchengine.config.AppConfig;
+import searchengine.model.FrontierUrl;
+import searchengine.model.Site;
+import searchengine.repositories.PageRepository;
+import javax.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Воркеры распределённого обхода: берут адреса из общей очереди {@link FrontierService}, индексируют страницы
+ * и добавляют найденные ссылки обратно в очередь. Работают на каждом экземпляре с включённым
+ * indexing-settings.distributed-crawl, независимо от того, какой из них получил /api/startIndexing.
+ */
+@Service
+@RequiredArgsConstructor
+public class CrawlWorkerService {
+
+    private final AppConfig appConfig;
+    private final FrontierService frontierService;
+    private final PageIndexingService pageIndexingService;
+    private final HtmlParserService htmlParserService;
+    private final PageRepository pageRepository;
+    private final PageScoreService pageScoreService;
+    private final DatabaseHelperService databaseHelperService;
+    private final CrawlMonitorService crawlMonitorService;
+
+    private final String workerId = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final Map<Integer, Site> activeSites = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    private static final Logger logger = LoggerFactory.getLogger(CrawlWorkerService.class);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWorkers() {
+        int threads = appConfig.getCrawlWorkerThreads();
+        if (!appConfig.isDistributedCrawl() || threads <= 0) {
+            return;
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "crawl-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running.set(true);
+        for (int i = 0; i < threads; i++) {
+            executor.submit(this::runWorker);
+        }
+        logger.info("Запущено воркеров обхода: {}, идентификатор экземпляра {}", threads, workerId);
+    }
+
+    private void runWorker() {
+        while (running.get()) {
+            try {
+                List<FrontierUrl> batch = frontierService.lease(workerId, appConfig.getFrontierBatchSize());
+                if (batch.isEmpty()) {
+                    finishCompletedSites();
+                    Thread.sleep(appConfig.getFrontierPollIntervalMs());
+                    continue;
+                }
+                for (FrontierUrl entry : batch) {
+                    if (!running.get()) {
+                        return;
+                    }
+                    process(entry);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Ошибка воркера обхода", e);
+                try {
+                    Thread.sleep(appConfig.getFrontierPollIntervalMs());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void process(FrontierUrl entry) {
+        Site site = entry.getSite();
+        String url = entry.getUrl();
+        if (!frontierService.isSiteIndexing(site)) {
+            // индексация сайта остановлена на одном из экземпляров
+            frontierService.complete(entry);
+            finishActiveSite(site);
+            return;
+        }
+        if (!frontierService.renew(entry)) {
+            logger.info("Аренда адреса {} истекла до начала обработки, пропускаю", url);
+            return;
+        }
+        if (activeSites.putIfAbsent(site.getId(), site) == null) {
+            crawlMonitorService.onBackgroundCrawlStarted(site);
+        }
+        String path = null;
+        try {
+            path = htmlParserService.getPath(url);
+            if (pageRepository.existsBySiteAndPath(site, path)) {
+                frontierService.complete(entry);
+                return;
+            }
+            List<String> links = pageIndexingService.fetchAndIndexPage(site, url);
+            frontierService.enqueue(site, links);
+            frontierService.complete(entry);
+        } catch (UnsupportedMimeTypeException e) {
+            logger.warn("UnsupportedMimeTypeException для {}: {}", url, e.getMimeType());
+            frontierService.complete(entry);
+        } catch (Exception e) {
+            if (e instanceof DataIntegrityViolationException && pageRepository.existsBySiteAndPath(site, path)) {
+                // тот же адрес одновременно сохранил другой воркер, его ссылки он уже поставил в очередь
+                logger.info("Страница {} уже сохранена другим воркером", url);
+                frontierService.complete(entry);
+                return;
+            }
+            logger.error("Ошибка при обработке страницы {}", url, e);
+            crawlMonitorService.onPageFailed(site);
+            frontierService.fail(entry);
+        }
+    }
+
+    private void finishCompletedSites() {
+        for (Site site : frontierService.claimCompletedSites()) {
+            pageScoreService.computeScores(site);
+            if (databaseHelperService.markIndexed(site)) {
+                logger.info("Распределённый обход сайта {} завершён", site.getUrl());
+            }
+        }
+        // Завершение отмечает только один экземпляр, остальные узнают о нём по статусу сайта
+        for (Site site : activeSites.values()) {
+            if (!frontierService.isSiteIndexing(site)) {
+                finishActiveSite(site);
+            }
+        }
+    }
+
+    private void finishActiveSite(Site site) {
+        if (activeSites.remove(site.getId()) != null) {
+            crawlMonitorService.onBackgroundCrawlFinished(site);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running.set(false);
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -7,11 +7,17 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import searchengine.config.SiteConfig;
 import searchengine.config.SitesList;
+import searchengine.feed.IndexChangeFeed;
+import searchengine.metrics.EngineMetrics;
 import searchengine.model.*;
+import searchengine.repositories.FrontierRepository;
 import searchengine.repositories.IndexRepository;
 import searchengine.repositories.LemmaRepository;
+import searchengine.repositories.LinkRepository;
 import searchengine.repositories.PageRepository;
+import searchengine.repositories.PageRevisitRepository;
 import searchengine.repositories.SiteRepository;
+import javax.persistence.EntityManagerFactory;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -23,35 +29,59 @@ public class DatabaseHelperService {
     private final LemmaRepository lemmaRepository;
     private final IndexRepository indexRepository;
     private final SiteRepository siteRepository;
+    private final FrontierRepository frontierRepository;
+    private final LinkRepository linkRepository;
+    private final PageRevisitRepository pageRevisitRepository;
+    private final IndexChangeFeed indexChangeFeed;
+    private final IndexSegmentService indexSegmentService;
+    private final DuplicateDetectionService duplicateDetectionService;
+    private final SiteLookupService siteLookupService;
+    private final CrawlMonitorService crawlMonitorService;
+    private final EntityManagerFactory entityManagerFactory;
+    private final EngineMetrics engineMetrics;
 
     private static final Logger logger = LoggerFactory.getLogger(PageIndexingService.class);
 
     @Transactional
     public void deleteOldSitesData() {
+        indexSegmentService.invalidateAll();
+        duplicateDetectionService.clear();
         indexRepository.deleteAllInBatch();
         lemmaRepository.deleteAllInBatch();
+        linkRepository.deleteAllInBatch();
         pageRepository.deleteAllInBatch();
+        frontierRepository.deleteAllInBatch();
+        pageRevisitRepository.deleteAllInBatch();
         siteRepository.deleteAllInBatch();
+        evictSiteCaches();
+        crawlMonitorService.clear();
+        indexChangeFeed.sitesCleared();
     }
 
     @Transactional
     public void deletePageData(Page page) {
+        long startTime = System.nanoTime();
+        indexSegmentService.invalidate(page.getSite());
         List<Index> indices = indexRepository.findAllByPage(page);
+        Map<String, Integer> lemmaDeltas = new HashMap<>();
+        Set<Integer> lemmaIds = new HashSet<>();
 
         for (Index index : indices) {
-            Lemma lemma = index.getLemma();
-            lemma.setFrequency(lemma.getFrequency() - 1);
-
-            if (lemma.getFrequency() <= 0) {
-                lemmaRepository.delete(lemma);
-            } else {
-                lemmaRepository.save(lemma);
-            }
+            lemmaIds.add(index.getLemma().getId());
+            lemmaDeltas.merge(index.getLemma().getLemma(), -1, Integer::sum);
         }
 
         indexRepository.deleteAllByPage(page);
+        if (!lemmaIds.isEmpty()) {
+            lemmaRepository.addFrequency(lemmaIds, -1);
+            lemmaRepository.deleteUnusedByIdIn(lemmaIds);
+        }
+        linkRepository.deleteAllBySource(page);
 
         pageRepository.delete(page);
+        duplicateDetectionService.forget(page.getSite(), page.getPath());
+        indexChangeFeed.pageRemoved(page.getSite(), page, lemmaDeltas);
+        engineMetrics.recordDeletePage(startTime);
     }
 
     @Transactional
@@ -69,10 +99,14 @@ public class DatabaseHelperService {
         } else {
             logger.error("Список сайтов из конфигурации пуст или отсутствует");
         }
+        siteLookupService.invalidate();
     }
 
     @Transactional
     public void updateLemmaAndIndex(Site site, Page page, Map<String, Integer> lemmaCounts) {
+        long startTime = System.nanoTime();
+        Map<String, Integer> lemmaDeltas = new HashMap<>();
+        List<Integer> incrementedLemmaIds = new ArrayList<>();
         for (Map.Entry<String, Integer> entry : lemmaCounts.entrySet()) {
             String lemmaText = entry.getKey();
             int countOnPage = entry.getValue();
@@ -85,10 +119,11 @@ public class DatabaseHelperService {
                 lemma.setLemma(lemmaText);
                 lemma.setFrequency(1);
                 lemmaRepository.save(lemma);
+                lemmaDeltas.merge(lemmaText, 1, Integer::sum);
             } else {
                 if (indexRepository.findByLemmaAndPage(lemma, page).isEmpty()) {
-                    lemma.setFrequency(lemma.getFrequency() + 1);
-                    lemmaRepository.save(lemma);
+                    incrementedLemmaIds.add(lemma.getId());
+                    lemmaDeltas.merge(lemmaText, 1, Integer::sum);
                 }
             }
 
@@ -100,19 +135,44 @@ public class DatabaseHelperService {
                 indexRepository.save(index);
             }
         }
+        if (!incrementedLemmaIds.isEmpty()) {
+            lemmaRepository.addFrequency(incrementedLemmaIds, 1);
+        }
+        indexChangeFeed.lemmasChanged(site, page, lemmaDeltas);
+        engineMetrics.recordUpdateLemmas(startTime, lemmaCounts.size());
     }
 
+    /**
+     * @param fingerprint SimHash лемм страницы или null, если страница не проверяется на копии
+     */
     @Transactional
-    public Page savePage(Site site, String url, int statusCode, String content) {
+    public Page savePage(Site site, String url, int statusCode, String content, Long fingerprint) {
+        long startTime = System.nanoTime();
+        indexSegmentService.invalidate(site);
         Page page = new Page();
         page.setSite(site);
         page.setPath(url);
         page.setCode(statusCode);
         page.setContent(content);
+        page.setFingerprint(fingerprint);
         pageRepository.save(page);
+        indexChangeFeed.pageAdded(site, page);
+        engineMetrics.recordSavePage(startTime);
         return page;
     }
 
+    @Transactional
+    public void saveLinks(Page source, Collection<String> targetPaths) {
+        List<Link> links = new ArrayList<>(targetPaths.size());
+        for (String targetPath : targetPaths) {
+            Link link = new Link();
+            link.setSource(source);
+            link.setTargetPath(targetPath);
+            links.add(link);
+        }
+        linkRepository.saveAll(links);
+    }
+
     @Transactional
     public Site saveSite(SiteConfig siteConfig, Status status, LocalDateTime localDateTime) {
         Site newSite = new Site();
@@ -121,7 +181,28 @@ public class DatabaseHelperService {
         newSite.setStatus(status);
         newSite.setStatusTime(localDateTime);
         siteRepository.save(newSite);
+        siteLookupService.invalidate();
         return newSite;
     }
 
+    /**
+     * Переводит сайт в INDEXED, только если он всё ещё индексируется: остановка индексации, пришедшая
+     * во время вычисления оценок страниц, не перезаписывается.
+     *
+     * @return true, если сайт переведён
+     */
+    @Transactional
+    public boolean markIndexed(Site site) {
+        return siteRepository.markIndexed(site.getId(), LocalDateTime.now()) == 1;
+    }
+
+    /**
+     * Пакетные удаления и так сбрасывают кэш второго уровня, но сброс здесь не зависит от того,
+     * каким запросом удалены данные.
+     */
+    private void evictSiteCaches() {
+        entityManagerFactory.getCache().evict(Site.class);
+        siteLookupService.invalidate();
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package searchengine.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import searchengine.analysis.SimHash;
+import searchengine.analysis.SimHashIndex;
+import searchengine.config.AppConfig;
+import searchengine.dto.index.PageFingerprint;
+import searchengine.metrics.EngineMetrics;
+import searchengine.model.Site;
+import searchengine.repositories.PageRepository;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Поиск почти одинаковых страниц сайта по SimHash лемм: одно и то же содержимое под разными адресами
+ * (параметры сессии, версия для печати, сортировка) индексируется один раз, по первому найденному адресу.
+ * Отпечатки сайта держатся в памяти, при первом обращении к сайту загружаются из БД.
+ * Страницы, у которых меньше duplicate-min-lemmas различных лемм, не проверяются: у коротких текстов
+ * отпечатки случайно совпадают слишком часто.
+ */
+@Service
+@RequiredArgsConstructor
+public class DuplicateDetectionService {
+
+    private final PageRepository pageRepository;
+    private final AppConfig appConfig;
+    private final EngineMetrics engineMetrics;
+
+    private final Map<Integer, SimHashIndex> indexesBySite = new ConcurrentHashMap<>();
+
+    /**
+     * @return отпечаток страницы или null, если страницу не нужно проверять
+     */
+    public Long fingerprint(Map<String, Integer> lemmaCounts) {
+        if (!appConfig.isDuplicateDetectionEnabled() || lemmaCounts.size() < appConfig.getDuplicateMinLemmas()) {
+            return null;
+        }
+        return SimHash.of(lemmaCounts);
+    }
+
+    /**
+     * Ищет уже проиндексированную страницу сайта с почти таким же отпечатком. Если её нет, отпечаток
+     * запоминается за path; если страницу затем не удастся сохранить, его нужно снять через {@link #forget}.
+     *
+     * @return путь страницы, копией которой является path
+     */
+    public Optional<String> findDuplicate(Site site, String path, Long fingerprint) {
+        if (fingerprint == null) {
+            return Optional.empty();
+        }
+        String duplicateOf = getIndex(site).findOrAdd(path, fingerprint);
+        if (duplicateOf != null) {
+            engineMetrics.recordDuplicatePage();
+        }
+        return Optional.ofNullable(duplicateOf);
+    }
+
+    public void forget(Site site, String path) {
+        SimHashIndex index = indexesBySite.get(site.getId());
+        if (index != null) {
+            index.remove(path);
+        }
+    }
+
+    public void clear() {
+        indexesBySite.clear();
+    }
+
+    private SimHashIndex getIndex(Site site) {
+        return indexesBySite.computeIfAbsent(site.getId(), siteId -> {
+            SimHashIndex index = new SimHashIndex(appConfig.getDuplicateMaxDistance());
+            for (PageFingerprint page : pageRepository.findFingerprintsBySite(site)) {
+                index.add(page.getPath(), page.getFingerprint());
+            }
+            return index;
+        });
+    }
+}
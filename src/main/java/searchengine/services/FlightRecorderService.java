@@ -0,0 +1,109 @@
+package searchengine.services;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import searchengine.dto.index.IndexApiResponse;
+import searchengine.metrics.PageFetchEvent;
+import searchengine.metrics.PageIndexEvent;
+import searchengine.metrics.SearchEvent;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Запись JFR по запросу администратора: стандартные события JDK с настройками "default" и события
+ * загрузки, индексации и поиска. Пока запись не запущена, события движка выключены и ничего не стоят.
+ * Порог события движка по умолчанию задан в его классе, при запуске записи его можно понизить, например до 0,
+ * чтобы видеть все страницы и запросы.
+ */
+@Service
+public class FlightRecorderService {
+
+    private static final String RECORDING_NAME = "searchengine";
+    private static final long MAX_SIZE_BYTES = 256L * 1024 * 1024;
+    private static final List<Class<? extends Event>> ENGINE_EVENTS =
+            List.of(PageFetchEvent.class, PageIndexEvent.class, SearchEvent.class);
+
+    private Recording recording;
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecorderService.class);
+
+    /**
+     * @param maxAgeMinutes сколько последних минут хранить в записи
+     * @param thresholdMs   порог для событий движка или null, чтобы оставить пороги по умолчанию
+     */
+    public synchronized IndexApiResponse start(long maxAgeMinutes, Long thresholdMs) {
+        if (isRunning()) {
+            return new IndexApiResponse(false, "Запись JFR уже идёт");
+        }
+        Recording newRecording;
+        try {
+            newRecording = new Recording(Configuration.getConfiguration("default"));
+        } catch (IOException | ParseException e) {
+            logger.error("Не удалось загрузить настройки JFR", e);
+            return new IndexApiResponse(false, "Не удалось загрузить настройки JFR");
+        }
+        newRecording.setName(RECORDING_NAME);
+        newRecording.setToDisk(true);
+        newRecording.setMaxAge(Duration.ofMinutes(Math.max(maxAgeMinutes, 1)));
+        newRecording.setMaxSize(MAX_SIZE_BYTES);
+        for (Class<? extends Event> eventType : ENGINE_EVENTS) {
+            if (thresholdMs == null) {
+                newRecording.enable(eventType);
+            } else {
+                newRecording.enable(eventType).withThreshold(Duration.ofMillis(Math.max(thresholdMs, 0)));
+            }
+        }
+        newRecording.start();
+        recording = newRecording;
+        logger.info("Запись JFR запущена, хранятся последние {} мин., порог событий движка: {}",
+                maxAgeMinutes, thresholdMs == null ? "по умолчанию" : thresholdMs + " мс");
+        return new IndexApiResponse(true, null);
+    }
+
+    /**
+     * Сохраняет текущее содержимое записи во временный файл, запись продолжается.
+     * Удалить файл должен вызывающий.
+     */
+    public synchronized Optional<Path> dump() throws IOException {
+        if (!isRunning()) {
+            return Optional.empty();
+        }
+        Path file = Files.createTempFile(RECORDING_NAME + "-", ".jfr");
+        recording.dump(file);
+        logger.info("Запись JFR сохранена в {}, размер {} байт", file, Files.size(file));
+        return Optional.of(file);
+    }
+
+    public synchronized IndexApiResponse stop() {
+        if (recording == null) {
+            return new IndexApiResponse(false, "Запись JFR не запущена");
+        }
+        recording.close();
+        recording = null;
+        logger.info("Запись JFR остановлена");
+        return new IndexApiResponse(true, null);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    private boolean isRunning() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+}
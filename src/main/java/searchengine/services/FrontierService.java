@@ -0,0 +1,132 @@
+package searchengine.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import searchengine.config.AppConfig;
+import searchengine.model.FrontierStatus;
+import searchengine.model.FrontierUrl;
+import searchengine.model.Site;
+import searchengine.model.Status;
+import searchengine.repositories.FrontierRepository;
+import searchengine.repositories.SiteRepository;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Общая для всех экземпляров очередь обхода в таблице frontier. Каждый адрес сайта попадает в неё один раз,
+ * воркеры берут адреса в аренду пачками и отчитываются по каждому. Адреса с истёкшей арендой снова
+ * становятся доступны, так что работу упавшего воркера подбирают остальные.
+ */
+@Service
+@RequiredArgsConstructor
+public class FrontierService {
+
+    private final FrontierRepository frontierRepository;
+    private final SiteRepository siteRepository;
+    private final AppConfig appConfig;
+
+    private static final int MAX_URL_LENGTH = 512;
+    private static final int LEASE_CANDIDATES_FACTOR = 4;
+    private static final List<FrontierStatus> UNFINISHED = List.of(FrontierStatus.PENDING, FrontierStatus.LEASED);
+
+    @Transactional
+    public void enqueue(Site site, Collection<String> urls) {
+        for (String url : new LinkedHashSet<>(urls)) {
+            if (url.length() <= MAX_URL_LENGTH) {
+                frontierRepository.enqueue(site.getId(), url);
+            }
+        }
+    }
+
+    /**
+     * Кандидаты выбираются из окна в несколько раз больше пачки и перемешиваются,
+     * чтобы одновременно опрашивающие воркеры реже претендовали на одни и те же строки.
+     */
+    @Transactional
+    public List<FrontierUrl> lease(String owner, int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Integer> candidates = new ArrayList<>(frontierRepository.findLeasableIds(
+                now, appConfig.getFrontierMaxAttempts(), PageRequest.of(0, batchSize * LEASE_CANDIDATES_FACTOR)));
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        Collections.shuffle(candidates);
+        List<Integer> ids = candidates.subList(0, Math.min(batchSize, candidates.size()));
+
+        String token = UUID.randomUUID().toString();
+        LocalDateTime expiresAt = now.plus(appConfig.getFrontierLeaseMs(), ChronoUnit.MILLIS);
+        if (frontierRepository.lease(ids, token, owner, expiresAt, now) == 0) {
+            return List.of();
+        }
+        return frontierRepository.findByLeaseToken(token);
+    }
+
+    /**
+     * Аренда выдаётся на всю пачку, поэтому перед обработкой каждого адреса она продлевается ещё на
+     * frontier-lease-ms: иначе медленные страницы в начале пачки съедали бы время остальных.
+     *
+     * @return false, если адрес уже забрал другой воркер
+     */
+    @Transactional
+    public boolean renew(FrontierUrl entry) {
+        LocalDateTime expiresAt = LocalDateTime.now().plus(appConfig.getFrontierLeaseMs(), ChronoUnit.MILLIS);
+        if (frontierRepository.renewLease(entry.getId(), entry.getLeaseToken(), expiresAt) == 0) {
+            return false;
+        }
+        entry.setLeaseExpiresAt(expiresAt);
+        return true;
+    }
+
+    @Transactional
+    public void complete(FrontierUrl entry) {
+        frontierRepository.release(entry.getId(), entry.getLeaseToken(), FrontierStatus.DONE);
+    }
+
+    /**
+     * Возвращает адрес в очередь для повторной попытки или помечает его неудачным, если попытки исчерпаны.
+     */
+    @Transactional
+    public void fail(FrontierUrl entry) {
+        FrontierStatus status = entry.getAttempts() >= appConfig.getFrontierMaxAttempts()
+                ? FrontierStatus.FAILED
+                : FrontierStatus.PENDING;
+        frontierRepository.release(entry.getId(), entry.getLeaseToken(), status);
+    }
+
+    public boolean isSiteIndexing(Site site) {
+        return siteRepository.findStatusById(site.getId()) == Status.INDEXING;
+    }
+
+    /**
+     * Захватывает сайты, у которых в очереди не осталось незавершённых адресов, чтобы вычислить оценки страниц
+     * до перевода в INDEXED. Захват — условный UPDATE времени статуса на срок аренды, поэтому каждый сайт
+     * достаётся одному экземпляру; если тот не перевёл сайт за это время, сайт захватит другой.
+     *
+     * @return сайты, захваченные этим вызовом
+     */
+    @Transactional
+    public List<Site> claimCompletedSites() {
+        LocalDateTime now = LocalDateTime.now();
+        frontierRepository.failExhaustedLeases(now, appConfig.getFrontierMaxAttempts());
+        LocalDateTime claimedUntil = now.plus(appConfig.getFrontierLeaseMs(), ChronoUnit.MILLIS);
+        List<Site> claimed = new ArrayList<>();
+        for (Site site : siteRepository.findByStatus(Status.INDEXING)) {
+            if (frontierRepository.existsBySite(site)
+                    && !frontierRepository.existsBySiteAndStatusIn(site, UNFINISHED)
+                    && siteRepository.claimIndexing(site.getId(), now, claimedUntil) == 1) {
+                claimed.add(site);
+            }
+        }
+        return claimed;
+    }
+
+    @Transactional
+    public void clear(Collection<Site> sites) {
+        if (!sites.isEmpty()) {
+            frontierRepository.deleteAllBySiteIn(sites);
+        }
+    }
+}
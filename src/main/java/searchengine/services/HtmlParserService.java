@@ -2,39 +2,121 @@ package searchengine.services;
 
 import lombok.RequiredArgsConstructor;
 import org.jsoup.Connection;
+import org.jsoup.HttpStatusException;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
 import org.springframework.stereotype.Service;
 import searchengine.config.AppConfig;
 import searchengine.dto.index.PageFetchResult;
+import searchengine.metrics.EngineMetrics;
+import searchengine.metrics.PageFetchEvent;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Service
 @RequiredArgsConstructor
 public class HtmlParserService {
 
     private final AppConfig appConfig;
+    private final EngineMetrics engineMetrics;
+
+    private static final int CHARSET_SNIFF_LENGTH = 4096;
+    private static final Pattern META_CHARSET =
+            Pattern.compile("<meta[^>]+charset\\s*=\\s*[\"']?([\\w.:-]+)", Pattern.CASE_INSENSITIVE);
 
     public String cleanHtml(String html) {
-        return Jsoup.parse(html).text();
+        long startTime = System.nanoTime();
+        String text = Jsoup.parse(html).text();
+        engineMetrics.recordHtmlParse(startTime);
+        return text;
     }
 
-    public PageFetchResult fetchDocumentWithStatus(String url) throws IOException {
+    /**
+     * Загружает страницу, не строя DOM. Тело ответа читается не дальше indexing-settings.max-page-size байт.
+     */
+    public PageFetchResult fetchPage(String url) throws IOException {
         Connection connection = Jsoup.connect(url)
                 .userAgent(appConfig.getUserAgent())
                 .referrer(appConfig.getReferrer())
+                .maxBodySize(appConfig.getMaxPageSize())
                 .timeout(5000);
 
-        Document document = connection.get();
-        int statusCode = connection.response().statusCode();
+        PageFetchEvent event = new PageFetchEvent();
+        event.setUrl(url);
+        event.begin();
+        long startTime = System.nanoTime();
+        try {
+            Connection.Response response = connection.execute();
+            byte[] body = response.bodyAsBytes();
+            String html = new String(body, detectCharset(response.charset(), body));
+            int statusCode = response.statusCode();
+            engineMetrics.recordFetch(startTime, String.valueOf(statusCode));
+            event.setStatus(String.valueOf(statusCode));
+            event.setBytes(body.length);
+            return new PageFetchResult(html, response.url().toString(), statusCode);
+        } catch (HttpStatusException e) {
+            engineMetrics.recordFetch(startTime, String.valueOf(e.getStatusCode()));
+            event.setStatus(String.valueOf(e.getStatusCode()));
+            throw e;
+        } catch (IOException e) {
+            engineMetrics.recordFetch(startTime, e.getClass().getSimpleName());
+            event.setStatus(e.getClass().getSimpleName());
+            throw e;
+        } finally {
+            event.commit();
+        }
+    }
 
-        return new PageFetchResult(document, statusCode);
+    /**
+     * Потоковый разбор страницы: элементы обрабатываются по мере закрытия и сразу удаляются из дерева,
+     * поэтому в памяти не бывает ни полного DOM, ни полного текста страницы. В textHandler по одному передаются
+     * текстовые узлы с нормализованными пробелами; содержимое скриптов и стилей, как и в {@link #cleanHtml}, пропускается.
+     *
+     * @param baseUri адрес страницы, от которого разрешаются относительные ссылки
+     * @return абсолютные адреса всех ссылок a[href] в порядке появления на странице
+     */
+    public List<String> extractTextAndLinks(String html, String baseUri, Consumer<String> textHandler) throws IOException {
+        long startTime = System.nanoTime();
+        List<String> links = new ArrayList<>();
+        try (StreamParser streamParser = new StreamParser(Parser.htmlParser()).parse(html, baseUri)) {
+            Iterator<Element> elements = streamParser.iterator();
+            while (elements.hasNext()) {
+                Element element = elements.next();
+                for (TextNode textNode : element.textNodes()) {
+                    if (!textNode.isBlank()) {
+                        textHandler.accept(textNode.text());
+                    }
+                }
+                if (element.normalName().equals("a") && element.hasAttr("href")) {
+                    links.add(element.absUrl("href"));
+                }
+                if (element.parent() != null) {
+                    element.remove();
+                }
+            }
+        }
+        engineMetrics.recordHtmlParse(startTime);
+        return links;
     }
 
     public String getTitle(String content) {
+        long startTime = System.nanoTime();
         Document document = Jsoup.parse(content);
+        engineMetrics.recordHtmlParse(startTime);
         return document.title();
     }
 
@@ -42,4 +124,21 @@ public class HtmlParserService {
         URL parsedUrl = new URL(url);
         return parsedUrl.getPath();
     }
+
+    /**
+     * Кодировка из заголовка Content-Type, иначе из meta в начале документа, иначе UTF-8.
+     */
+    private static Charset detectCharset(String headerCharset, byte[] body) {
+        String name = headerCharset;
+        if (name == null) {
+            String head = new String(body, 0, Math.min(body.length, CHARSET_SNIFF_LENGTH), StandardCharsets.ISO_8859_1);
+            Matcher matcher = META_CHARSET.matcher(head);
+            name = matcher.find() ? matcher.group(1) : null;
+        }
+        try {
+            return name != null && Charset.isSupported(name) ? Charset.forName(name) : StandardCharsets.UTF_8;
+        } catch (IllegalCharsetNameException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
 }
\ No newline at end of file
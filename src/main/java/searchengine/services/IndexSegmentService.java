@@ -0,0 +1,263 @@
+package searchengine.services;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import searchengine.config.AppConfig;
+import searchengine.dto.index.IndexPosting;
+import searchengine.dto.index.LemmaReference;
+import searchengine.dto.index.PageMetadata;
+import searchengine.feed.IndexChangeEvent;
+import searchengine.feed.IndexChangeFeed;
+import searchengine.feed.IndexChangeListener;
+import searchengine.feed.IndexChangeType;
+import searchengine.index.IndexSegment;
+import searchengine.index.IndexSegmentWriter;
+import searchengine.model.Site;
+import searchengine.model.Status;
+import searchengine.repositories.IndexRepository;
+import searchengine.repositories.LemmaRepository;
+import searchengine.repositories.PageRepository;
+import searchengine.repositories.SiteRepository;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Управляет сегментами индекса на диске: открывает их при старте, пишет по событию завершения индексации
+ * сайта из журнала изменений и удаляет, как только данные сайта в БД меняются. Пока сегмента нет,
+ * поиск работает по БД.
+ * <p>
+ * Сегмент всегда пишется целиком по данным сайта из БД, поэтому запись откладывается на segment-write-delay-ms:
+ * все завершения индексации сайта за это время, например серия /api/indexPage или пакет повторного обхода,
+ * дают одну перезапись.
+ */
+@Service
+@RequiredArgsConstructor
+public class IndexSegmentService implements IndexChangeListener {
+
+    private final AppConfig appConfig;
+    private final SiteRepository siteRepository;
+    private final PageRepository pageRepository;
+    private final LemmaRepository lemmaRepository;
+    private final IndexRepository indexRepository;
+    private final IndexChangeFeed indexChangeFeed;
+
+    private final Map<Integer, IndexSegment> segmentsBySite = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> modificationsBySite = new HashMap<>();
+    private final Set<Integer> pendingWrites = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService writeExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "segment-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int POSTINGS_BATCH_SIZE = 50_000;
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexSegmentService.class);
+
+    @PostConstruct
+    public void subscribe() {
+        indexChangeFeed.subscribe(this);
+    }
+
+    @Override
+    public void onChanges(List<IndexChangeEvent> events) {
+        Set<Integer> completedSites = new LinkedHashSet<>();
+        for (IndexChangeEvent event : events) {
+            if (event.getType() == IndexChangeType.SITE_GENERATION_COMPLETED) {
+                completedSites.add(event.getSiteId());
+            }
+        }
+        for (int siteId : completedSites) {
+            scheduleWrite(siteId, appConfig.getSegmentWriteDelayMs());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void openSegments() {
+        Path directory = getSegmentsDirectory();
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Map<Integer, Site> sitesById = siteRepository.findAll().stream()
+                .collect(Collectors.toMap(Site::getId, Function.identity()));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                openSegment(file, sitesById);
+            }
+        } catch (IOException e) {
+            logger.error("Не удалось прочитать каталог сегментов {}", directory, e);
+        }
+    }
+
+    private void openSegment(Path file, Map<Integer, Site> sitesById) {
+        try {
+            IndexSegment segment = IndexSegment.open(file);
+            Site site = sitesById.get(segment.getSiteId());
+            if (site == null || site.getStatus() != Status.INDEXED || !site.getUrl().equals(segment.getSiteUrl())) {
+                logger.info("Сегмент {} устарел и будет удалён", file);
+                Files.deleteIfExists(file);
+                return;
+            }
+            segmentsBySite.put(site.getId(), segment);
+            logger.info("Открыт {}", segment);
+        } catch (IOException e) {
+            logger.warn("Не удалось открыть сегмент {}: {}", file, e.getMessage());
+            rewriteUnreadable(file, sitesById);
+        }
+    }
+
+    /**
+     * Сегмент старого формата или повреждённый записывается заново, пока поиск по сайту идёт через БД.
+     */
+    private void rewriteUnreadable(Path file, Map<Integer, Site> sitesById) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith("site-")) {
+            return;
+        }
+        Site site;
+        try {
+            site = sitesById.get(Integer.parseInt(name.substring("site-".length(), name.length() - SEGMENT_SUFFIX.length())));
+        } catch (NumberFormatException e) {
+            return;
+        }
+        if (site != null && site.getStatus() == Status.INDEXED) {
+            logger.info("Сегмент сайта {} будет записан заново", site.getUrl());
+            scheduleWrite(site.getId(), 0);
+        }
+    }
+
+    public Optional<IndexSegment> getSegment(Site site) {
+        return Optional.ofNullable(segmentsBySite.get(site.getId()));
+    }
+
+    /**
+     * Вызывается перед любым изменением данных сайта в БД.
+     */
+    public void invalidate(Site site) {
+        synchronized (modificationsBySite) {
+            modificationsBySite.merge(site.getId(), 1L, Long::sum);
+            IndexSegment segment = segmentsBySite.remove(site.getId());
+            if (segment != null) {
+                deleteSegmentFile(segment.getPath());
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (modificationsBySite) {
+            for (Integer siteId : new ArrayList<>(segmentsBySite.keySet())) {
+                modificationsBySite.merge(siteId, 1L, Long::sum);
+                IndexSegment segment = segmentsBySite.remove(siteId);
+                if (segment != null) {
+                    deleteSegmentFile(segment.getPath());
+                }
+            }
+        }
+    }
+
+    /**
+     * Если запись сайта уже запланирована, новая не добавляется: запланированная ещё не начала читать БД
+     * и увидит все изменения. Отметка снимается перед чтением, так что изменения во время записи
+     * запланируют следующую.
+     */
+    private void scheduleWrite(int siteId, long delayMs) {
+        if (pendingWrites.add(siteId)) {
+            writeExecutor.schedule(() -> {
+                pendingWrites.remove(siteId);
+                writeSegment(siteId);
+            }, delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void writeSegment(int siteId) {
+        Site site = siteRepository.findById(siteId).orElse(null);
+        if (site == null || site.getStatus() != Status.INDEXED) {
+            return;
+        }
+        long modification = getModification(siteId);
+        long startTime = System.currentTimeMillis();
+        Path target = getSegmentsDirectory().resolve("site-" + siteId + SEGMENT_SUFFIX);
+        try {
+            IndexSegmentWriter writer = new IndexSegmentWriter(siteId, site.getUrl());
+            for (PageMetadata page : pageRepository.findMetadataBySite(site)) {
+                writer.addPage(page.getId(), page.getPath(), page.getScore());
+            }
+            Map<Integer, String> lemmasById = lemmaRepository.findReferencesBySite(site).stream()
+                    .collect(Collectors.toMap(LemmaReference::getId, LemmaReference::getLemma));
+            int afterId = 0;
+            List<IndexPosting> batch;
+            do {
+                batch = indexRepository.findPostingsBySiteAfter(site, afterId, PageRequest.of(0, POSTINGS_BATCH_SIZE));
+                for (IndexPosting posting : batch) {
+                    String lemma = lemmasById.get(posting.getLemmaId());
+                    if (lemma != null) {
+                        writer.addPosting(lemma, posting.getPageId(), posting.getRank());
+                    }
+                    afterId = posting.getId();
+                }
+            } while (batch.size() == POSTINGS_BATCH_SIZE);
+
+            if (getModification(siteId) != modification) {
+                logger.info("Данные сайта {} изменились во время записи сегмента, запись отменена", site.getUrl());
+                return;
+            }
+            writer.write(target);
+            publish(siteId, modification, IndexSegment.open(target));
+            logger.info("Сегмент сайта {} записан за {} мс, размер {} байт", site.getUrl(),
+                    System.currentTimeMillis() - startTime, Files.size(target));
+        } catch (Exception e) {
+            logger.error("Ошибка при записи сегмента сайта {}", site.getUrl(), e);
+        }
+    }
+
+    private void publish(int siteId, long modification, IndexSegment segment) {
+        synchronized (modificationsBySite) {
+            if (modificationsBySite.getOrDefault(siteId, 0L) != modification) {
+                deleteSegmentFile(segment.getPath());
+                return;
+            }
+            segmentsBySite.put(siteId, segment);
+        }
+    }
+
+    private long getModification(int siteId) {
+        synchronized (modificationsBySite) {
+            return modificationsBySite.getOrDefault(siteId, 0L);
+        }
+    }
+
+    private void deleteSegmentFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Не удалось удалить сегмент {}: {}", file, e.getMessage());
+        }
+    }
+
+    private Path getSegmentsDirectory() {
+        return Paths.get(appConfig.getSegmentsPath());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writeExecutor.shutdownNow();
+    }
+}
@@ -1,78 +1,109 @@
 package searchengine.services;
 
-import org.apache.lucene.morphology.LuceneMorphology;
+import org.apache.lucene.morphology.english.EnglishLuceneMorphology;
 import org.apache.lucene.morphology.russian.RussianLuceneMorphology;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import searchengine.analysis.LanguageMorphology;
+import searchengine.analysis.LemmaCounter;
+import searchengine.analysis.Script;
+import searchengine.analysis.WordCache;
+import searchengine.analysis.WordScanner;
 import searchengine.dto.search.LemmaEntry;
+import searchengine.metrics.EngineMetrics;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.*;
-import java.util.function.Function;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 @Service
 public class LemmaParserService {
 
-    private final LuceneMorphology luceneMorph;
-    private static final String REGEX_FOR_NORMALIZE = "[^а-яА-Я]";
-    private static final Set<String> IGNORED_POS = Set.of("ЧАСТ", "МЕЖД", "СОЮЗ", "ПРЕДЛ");
+    private final Map<Script, LanguageMorphology> morphologies = new EnumMap<>(Script.class);
+    private final EngineMetrics engineMetrics;
+    private static final Set<String> RUSSIAN_IGNORED_POS = Set.of("ЧАСТ", "МЕЖД", "СОЮЗ", "ПРЕДЛ");
+    private static final Set<String> ENGLISH_IGNORED_POS = Set.of("PART", "INT", "CONJ", "PREP", "ARTICLE");
+    private static final String EXCLUDED_LEMMA = "";
+    private static final Set<String> EXCLUDED_FORMS = Collections.unmodifiableSet(new HashSet<>());
 
     public LemmaParserService() throws IOException {
-        this.luceneMorph = new RussianLuceneMorphology();
-    }
-    protected Map<String, Integer> parseLemmas(String content) {
-        return getLemmaCounts(content).entrySet().stream()
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> entry.getValue().intValue(),
-                        (e1, e2) -> e1,
-                        HashMap::new
-                ));
+        this(EngineMetrics.noop());
     }
 
-    private Map<String, Long> getLemmaCounts(String text) {
-        return Arrays.stream(splitIntoWords(text))
-                .map(this::normalize)
-                .filter(Predicate.not(String::isBlank))
-                .filter(this::isNotParticle)
-                .map(this::getFirstNormalForm)
-                .filter(Predicate.not(String::isBlank))
-                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+    @Autowired
+    public LemmaParserService(EngineMetrics engineMetrics) throws IOException {
+        this.engineMetrics = engineMetrics;
+        morphologies.put(Script.CYRILLIC, new LanguageMorphology(new RussianLuceneMorphology(), RUSSIAN_IGNORED_POS));
+        morphologies.put(Script.LATIN, new LanguageMorphology(new EnglishLuceneMorphology(), ENGLISH_IGNORED_POS));
     }
 
-    private String[] splitIntoWords(String text) {
-        return text.trim().split("\\s+");
+    public Map<String, Integer> parseLemmas(String content) {
+        LemmaAccumulator accumulator = startParsing();
+        accumulator.addText(content);
+        return accumulator.finish();
     }
 
-    String normalize(String word) {
-        return word.toLowerCase().replaceAll(REGEX_FOR_NORMALIZE, "");
+    /**
+     * Начинает подсчёт лемм текста, который поступает кусками по мере разбора страницы.
+     */
+    public LemmaAccumulator startParsing() {
+        return new LemmaAccumulator();
     }
 
-    private boolean isNotParticle(String word) {
-        return luceneMorph.getMorphInfo(word).stream()
-                .map(this::extractPartOfSpeech)
-                .noneMatch(IGNORED_POS::contains);
+    private String getLemma(LanguageMorphology morphology, String word) {
+        return morphology.isNotParticle(word) ? morphology.getFirstNormalForm(word) : EXCLUDED_LEMMA;
     }
 
-    String getFirstNormalForm(String word) {
-        List<String> normalForms = luceneMorph.getNormalForms(word);
-        return normalForms.isEmpty() ? "" : normalForms.get(0);
+    public List<LemmaEntry> matchWordWithLemmas(String text) {
+        List<LemmaEntry> lemmaEntries = new ArrayList<>();
+        WordCache<Set<String>> normalFormsCache = new WordCache<>();
+        WordScanner.scan(text, (buffer, length, script, wordIndex, start, end) -> {
+            LanguageMorphology morphology = morphologies.get(script);
+            Set<String> normalForms = normalFormsCache.computeIfAbsent(buffer, length, word -> getNormalForms(morphology, word));
+            if (normalForms != EXCLUDED_FORMS) {
+                lemmaEntries.add(new LemmaEntry(text.substring(start, end), normalForms, wordIndex));
+            }
+        });
+        return lemmaEntries;
     }
 
-    private String extractPartOfSpeech(String morphInfo) {
-        String[] parts = morphInfo.split("\\s+");
-        return parts.length > 1 ? parts[1] : "";
+    private Set<String> getNormalForms(LanguageMorphology morphology, String word) {
+        return morphology.isNotParticle(word) ? morphology.getNormalForms(word) : EXCLUDED_FORMS;
     }
 
-    public List<LemmaEntry> matchWordWithLemmas(String text) {
-        List<LemmaEntry> lemmaEntries = new ArrayList<>();
-        String[] words = splitIntoWords(text);
-        for (int i = 0; i < words.length; i++) {
-            String word = normalize(words[i]);
-            if (!word.isBlank() && isNotParticle(word)) {
-                lemmaEntries.add(new LemmaEntry(words[i], new HashSet<>(luceneMorph.getNormalForms(word)), i));
-            }
+    /**
+     * Куски текста разбираются независимо, слово не переходит из одного куска в другой.
+     * Время разбора для метрик складывается только из вызовов {@link #addText}.
+     */
+    public final class LemmaAccumulator {
+        private final LemmaCounter lemmaCounter = new LemmaCounter();
+        private final WordCache<String> lemmaCache = new WordCache<>();
+        private long elapsedNanos;
+
+        private LemmaAccumulator() {
+        }
+
+        public void addText(CharSequence text) {
+            long startTime = System.nanoTime();
+            WordScanner.scan(text, (buffer, length, script, wordIndex, start, end) -> {
+                LanguageMorphology morphology = morphologies.get(script);
+                String lemma = lemmaCache.computeIfAbsent(buffer, length, word -> getLemma(morphology, word));
+                if (!lemma.isEmpty()) {
+                    lemmaCounter.increment(lemma);
+                }
+            });
+            elapsedNanos += System.nanoTime() - startTime;
+        }
+
+        /**
+         * @return время лемматизации в наносекундах с начала подсчёта
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public Map<String, Integer> finish() {
+            engineMetrics.recordLemmaParse(Duration.ofNanos(elapsedNanos), lemmaCounter.size());
+            return lemmaCounter.toMap();
         }
-        return lemmaEntries;
     }
-}
\ No newline at end of file
+}
@@ -2,25 +2,25 @@ package searchengine.services;
 
 import lombok.RequiredArgsConstructor;
 import org.jsoup.UnsupportedMimeTypeException;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import searchengine.analysis.ContentHash;
+import searchengine.config.AppConfig;
 import searchengine.config.SiteConfig;
 import searchengine.config.SitesList;
 import searchengine.dto.index.IndexApiResponse;
 import searchengine.dto.index.PageFetchResult;
+import searchengine.metrics.PageIndexEvent;
 import searchengine.model.Page;
 import searchengine.model.Site;
 import searchengine.model.Status;
 import searchengine.repositories.PageRepository;
 import searchengine.repositories.SiteRepository;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
@@ -32,10 +32,20 @@ public class PageIndexingService {
     private final DatabaseHelperService databaseHelperService;
     private final LemmaParserService lemmaParserService;
     private final HtmlParserService htmlParserService;
+    private final SiteGenerationService siteGenerationService;
+    private final CrawlMonitorService crawlMonitorService;
+    private final FrontierService frontierService;
+    private final PageScoreService pageScoreService;
+    private final PageRevisitService pageRevisitService;
+    private final DuplicateDetectionService duplicateDetectionService;
+    private final SiteLookupService siteLookupService;
     private final SitesList sitesList;
+    private final AppConfig appConfig;
 
     private final AtomicBoolean stopRequested = new AtomicBoolean(false);
 
+    private static final int MAX_PATH_LENGTH = 255;
+
     private static final Logger logger = LoggerFactory.getLogger(PageIndexingService.class);
 
     public IndexApiResponse indexPage(String url) {
@@ -45,91 +55,134 @@ public class PageIndexingService {
                 databaseHelperService.populateDatabaseFromConfig(sitesList);
             }
 
-            Site site = sitesRepository.findByUrlStartingWith(url);
-            if (site == null) {
+            Optional<Site> foundSite = siteLookupService.findByUrl(url);
+            if (foundSite.isEmpty()) {
                 return new IndexApiResponse(false, "Данная страница находится за пределами сайтов, указанных в конфигурации");
             }
+            Site site = foundSite.get();
 
-            Optional<Page> existingPage = pageRepository.findBySiteAndPath(site, url);
+            Optional<Page> existingPage = pageRepository.findBySiteAndPath(site, htmlParserService.getPath(url));
             existingPage.ifPresent(databaseHelperService::deletePageData);
 
-            processPageIteratively(site, url, false);
+            fetchAndIndexPage(site, url);
+            siteGenerationService.completed(site);
             return new IndexApiResponse(true, null);
         } catch (Exception e) {
             return new IndexApiResponse(false, "Ошибка индексации страницы: " + e.getMessage());
         }
     }
 
-    private void processPageIteratively(Site site, String startUrl, boolean processAllLinks) {
-        Set<String> processedUrls = ConcurrentHashMap.newKeySet();
-        Deque<String> urlStack = new ArrayDeque<>();
-        urlStack.push(startUrl);
+    /**
+     * Индексирует страницу при обходе. Ошибка загрузки одной страницы не прерывает обход сайта.
+     *
+     * @return ссылки страницы на тот же сайт или пустой список при ошибке
+     */
+    private List<String> crawlPage(Site site, String url) {
+        try {
+            logger.info("Обрабатываю страницу: " + url + " в потоке: " + Thread.currentThread().getName());
+            return fetchAndIndexPage(site, url);
+        } catch (UnsupportedMimeTypeException e) {
+            logger.warn("UnsupportedMimeTypeException для {}: {}", url, e.getMimeType());
+        } catch (Exception e) {
+            logger.error("Ошибка при обработке страницы {}", url, e);
+            crawlMonitorService.onPageFailed(site);
+        }
+        return List.of();
+    }
 
-        while (!urlStack.isEmpty() && !stopRequested.get()) {
-            if (stopRequested.get()) {
-                logger.info("Индексация остановлена для сайта: {}", site.getUrl());
-                return;
-            }
+    /**
+     * Загружает страницу, сохраняет её и её леммы.
+     *
+     * @return ссылки страницы на тот же сайт или пустой список, если сервер ответил ошибкой
+     */
+    public List<String> fetchAndIndexPage(Site site, String url) throws IOException {
+        return indexFetchedPage(site, url, htmlParserService.fetchPage(url));
+    }
 
-            String currentUrl = urlStack.pop();
+    /**
+     * Сохраняет уже загруженную страницу, её леммы и ссылки и отмечает загрузку в статистике изменений.
+     * Почти точная копия уже проиндексированной страницы сайта не сохраняется, но её ссылки возвращаются
+     * и загрузка отмечается так же.
+     * Прежние данные страницы должен удалить вызывающий.
+     */
+    public List<String> indexFetchedPage(Site site, String url, PageFetchResult fetchResult) throws IOException {
+        if (fetchResult.getStatusCode() >= 400) {
+            logger.warn("HTTP ошибка {} для {}", fetchResult.getStatusCode(), url);
+            crawlMonitorService.onPageFailed(site);
+            return List.of();
+        }
 
-            if (!processedUrls.add(currentUrl)) {
-                logger.info("Страница {} уже обработана, пропускаю.", currentUrl);
-                continue;
+        PageIndexEvent event = new PageIndexEvent();
+        event.begin();
+        String path = htmlParserService.getPath(url);
+        LemmaParserService.LemmaAccumulator lemmas = lemmaParserService.startParsing();
+        ContentHash contentHash = new ContentHash();
+        long parseStart = System.nanoTime();
+        List<String> pageLinks = htmlParserService.extractTextAndLinks(fetchResult.getHtml(), fetchResult.getLocation(), text -> {
+            lemmas.addText(text);
+            contentHash.add(text);
+        });
+        long parseNanos = System.nanoTime() - parseStart;
+        Map<String, Integer> lemmaCounts = lemmas.finish();
+
+        List<String> links = new ArrayList<>();
+        Set<String> linkPaths = new LinkedHashSet<>();
+        for (String linkHref : pageLinks) {
+            if (linkHref.startsWith(site.getUrl())) {
+                links.add(linkHref);
+                String linkPath = htmlParserService.getPath(linkHref);
+                if (linkPath.length() <= MAX_PATH_LENGTH) {
+                    linkPaths.add(linkPath);
+                }
             }
+        }
 
+        Long fingerprint = duplicateDetectionService.fingerprint(lemmaCounts);
+        Optional<String> duplicateOf = duplicateDetectionService.findDuplicate(site, path, fingerprint);
+        long persistNanos = 0;
+        if (duplicateOf.isPresent()) {
+            // Ссылки копии ведут туда же, куда ссылки оригинала, но обход по ним продолжается:
+            // повторно загружены будут только ещё не виденные адреса
+            logger.info("Страница {} почти совпадает с {} и не индексируется", url, duplicateOf.get());
+            // Иначе повторный обход возвращался бы к копии после каждого истечения захвата
+            pageRevisitService.recordFetch(site, path, contentHash.value());
+        } else {
+            long persistStart = System.nanoTime();
+            Page page;
             try {
-                logger.info("Обрабатываю страницу: " + currentUrl + " в потоке: " + Thread.currentThread().getName());
-
-                PageFetchResult fetchResult = htmlParserService.fetchDocumentWithStatus(currentUrl);
-
-                if (fetchResult.getStatusCode() >= 400) {
-                    logger.warn("HTTP ошибка {} для {}", fetchResult.getStatusCode(), currentUrl);
-                    continue;
+                page = databaseHelperService.savePage(site, path, fetchResult.getStatusCode(), fetchResult.getHtml(), fingerprint);
+            } catch (RuntimeException e) {
+                // если адрес уже сохранён, отпечаток за ним принадлежит сохранённой странице
+                if (!(e instanceof DataIntegrityViolationException && pageRepository.existsBySiteAndPath(site, path))) {
+                    duplicateDetectionService.forget(site, path);
                 }
-
-                Page page = databaseHelperService.savePage(
-                        site,
-                        htmlParserService.getPath(currentUrl),
-                        fetchResult.getStatusCode(),
-                        fetchResult.getDocument().html()
-                );
-
-                String cleanContent = htmlParserService.cleanHtml(fetchResult.getDocument().html());
-                Map<String, Integer> lemmaCounts = lemmaParserService.parseLemmas(cleanContent);
+                throw e;
+            }
+            try {
                 databaseHelperService.updateLemmaAndIndex(site, page, lemmaCounts);
-
-                logger.info("Страница {} успешно проиндексирована", currentUrl);
-
-                if (stopRequested.get()) {
-                    logger.info("Остановка индексации после обработки страницы: {}", currentUrl);
-                    break;
-                }
-
-                if (processAllLinks) {
-                    Elements links = fetchResult.getDocument().select("a[href]");
-                    for (Element link : links) {
-                        if (stopRequested.get()) {
-                            logger.info("Остановка индексации при обработке ссылок страницы: {}", currentUrl);
-                            return;
-                        }
-                        String linkHref = link.absUrl("href");
-                        if (linkHref.startsWith(site.getUrl()) && !processedUrls.contains(linkHref)) {
-                            urlStack.push(linkHref);
-                        }
-                    }
-                }
-
-            } catch (UnsupportedMimeTypeException e) {
-                logger.warn("UnsupportedMimeTypeException для {}: {}", currentUrl, e.getMimeType());
-            } catch (Exception e) {
-                logger.error("Ошибка при обработке страницы {}", currentUrl, e);
+                pageRevisitService.recordFetch(site, path, contentHash.value());
+                databaseHelperService.saveLinks(page, linkPaths);
+            } catch (RuntimeException e) {
+                duplicateDetectionService.forget(site, path);
+                throw e;
             }
+            persistNanos = System.nanoTime() - persistStart;
+            logger.info("Страница {} успешно проиндексирована", url);
+            crawlMonitorService.onPageIndexed(site);
         }
 
-        if (stopRequested.get()) {
-            logger.info("Индексация остановлена для сайта {}", site.getUrl());
+        if (event.shouldCommit()) {
+            event.setUrl(url);
+            event.setBytes(fetchResult.getHtml().length());
+            event.setLemmaCount(lemmaCounts.size());
+            event.setLinkCount(pageLinks.size());
+            event.setDuplicateOf(duplicateOf.orElse(null));
+            event.setParseDuration(parseNanos - lemmas.getElapsedNanos());
+            event.setLemmatizeDuration(lemmas.getElapsedNanos());
+            event.setPersistDuration(persistNanos);
         }
+        event.commit();
+        return links;
     }
 
 
@@ -150,46 +203,69 @@ public class PageIndexingService {
 
         databaseHelperService.deleteOldSitesData();
 
-        ForkJoinPool forkJoinPool = new ForkJoinPool(4);
-        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        if (appConfig.isDistributedCrawl()) {
+            return startDistributedIndexing(siteConfigs);
+        }
 
+        CrawlScheduler scheduler = new CrawlScheduler(this::crawlPage, this::finishSiteCrawl, stopRequested::get, crawlMonitorService);
         for (SiteConfig siteConfig : siteConfigs) {
             Site newSite = databaseHelperService.saveSite(
                     siteConfig,
                     Status.INDEXING,
                     LocalDateTime.now()
             );
+            scheduler.addSite(newSite, siteConfig.getUrl(), siteConfig.getWeight(),
+                    siteConfig.getMaxConcurrency() > 0 ? siteConfig.getMaxConcurrency() : appConfig.getCrawlSiteMaxConcurrency(),
+                    siteConfig.getMaxPages() > 0 ? siteConfig.getMaxPages() : appConfig.getCrawlSiteMaxPages(),
+                    siteConfig.getMaxDurationMs() > 0 ? siteConfig.getMaxDurationMs() : appConfig.getCrawlSiteMaxDurationMs());
+        }
 
-            ForkJoinTask<?> task = forkJoinPool.submit(() -> processPageIteratively(newSite, siteConfig.getUrl(), true));
-            tasks.add(task);
+        try {
+            scheduler.run(appConfig.getCrawlWorkerThreads());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.info("Индексация прервана");
         }
+        stopRequested.set(false);
 
-        for (ForkJoinTask<?> task : tasks) {
-            if (stopRequested.get()) {
-                logger.info("Прерываю выполнение задачи");
-                task.cancel(true);
-            } else {
-                task.join();
-            }
+        return new IndexApiResponse(true, null);
+    }
+
+    /**
+     * Переводит сайт в INDEXED, когда его обход закончен, или в FAILED, если индексацию остановили.
+     * Оценки страниц вычисляются до перевода, так что поиск не видит сайт с оценками прошлого обхода.
+     * Сайт становится доступен для поиска сразу, не дожидаясь остальных.
+     */
+    private void finishSiteCrawl(Site crawledSite) {
+        Site site = sitesRepository.findById(crawledSite.getId()).orElse(null);
+        if (site == null) {
+            return;
+        }
+        if (stopRequested.get()) {
+            site.setStatus(Status.FAILED);
+            site.setLastError("Индексация остановлена пользователем");
+            sitesRepository.save(site);
+            return;
         }
+        if (site.getStatus() != Status.INDEXING) {
+            return;
+        }
+        pageScoreService.computeScores(site);
+        if (databaseHelperService.markIndexed(site)) {
+            siteGenerationService.completed(site);
+        }
+    }
 
+    /**
+     * Ставит стартовые адреса сайтов в общую очередь и сразу возвращает ответ: обход выполняют
+     * воркеры всех экземпляров, а сайт переводится в INDEXED, когда его очередь опустеет.
+     */
+    private IndexApiResponse startDistributedIndexing(List<SiteConfig> siteConfigs) {
         for (SiteConfig siteConfig : siteConfigs) {
-            Site site = sitesRepository.findByUrlStartingWith(siteConfig.getUrl());
-            if (site != null) {
-                if (stopRequested.get()) {
-                    site.setStatus(Status.FAILED);
-                    site.setLastError("Индексация остановлена пользователем");
-                } else if (site.getStatus() == Status.INDEXING) {
-                    site.setStatus(Status.INDEXED);
-                    site.setLastError(null);
-                }
-                sitesRepository.save(site);
-            }
+            Site newSite = databaseHelperService.saveSite(siteConfig, Status.INDEXING, LocalDateTime.now());
+            frontierService.enqueue(newSite, List.of(siteConfig.getUrl()));
         }
-
-        forkJoinPool.shutdown();
-        stopRequested.set(false);
-
+        logger.info("Распределённая индексация запущена для сайтов: {}", siteConfigs.size());
         return new IndexApiResponse(true, null);
     }
 
@@ -205,6 +281,7 @@ public class PageIndexingService {
             site.setLastError("Индексация остановлена пользователем");
             sitesRepository.save(site);
         }
+        frontierService.clear(indexingSites);
         return new IndexApiResponse(true, "Индексация остановлена.");
     }
 
@@ -0,0 +1,104 @@
+package searchengine.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import searchengine.config.AppConfig;
+import searchengine.model.PageRevisit;
+import searchengine.model.Site;
+import searchengine.repositories.PageRevisitRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Статистика изменений страниц и расписание их повторной загрузки.
+ * <p>
+ * Изменения страницы считаются пуассоновским потоком. Частота оценивается как (изменений + 0.5) / время наблюдения:
+ * половина изменения в числителе не даёт частоте обнулиться у страниц, которые пока ни разу не менялись.
+ * Интервал выбирается так, чтобы к следующей загрузке страница изменилась с вероятностью 1/2, то есть
+ * ln 2 / частота, и ограничивается recrawl-min-interval-ms и recrawl-max-interval-ms. Часто меняющиеся
+ * страницы загружаются чаще, стабильные — всё реже.
+ */
+@Service
+@RequiredArgsConstructor
+public class PageRevisitService {
+
+    private final PageRevisitRepository pageRevisitRepository;
+    private final AppConfig appConfig;
+
+    private static final double PRIOR_CHANGES = 0.5;
+    private static final Duration CLAIM_DURATION = Duration.ofMinutes(10);
+
+    /**
+     * Записывает результат успешной загрузки страницы и планирует следующую.
+     */
+    @Transactional
+    public void recordFetch(Site site, String path, long contentHash) {
+        LocalDateTime now = LocalDateTime.now();
+        PageRevisit revisit = pageRevisitRepository.findBySiteAndPath(site, path).orElse(null);
+        if (revisit == null) {
+            revisit = new PageRevisit();
+            revisit.setSite(site);
+            revisit.setPath(path);
+            revisit.setFetchCount(1);
+            revisit.setContentHash(contentHash);
+            revisit.setLastFetchedAt(now);
+            revisit.setNextFetchAt(now.plus(Duration.ofMillis(appConfig.getRecrawlInitialIntervalMs())));
+            pageRevisitRepository.save(revisit);
+            return;
+        }
+        revisit.setFetchCount(revisit.getFetchCount() + 1);
+        revisit.setObservedSeconds(revisit.getObservedSeconds()
+                + Math.max(Duration.between(revisit.getLastFetchedAt(), now).getSeconds(), 0));
+        if (revisit.getContentHash() != contentHash) {
+            revisit.setChangeCount(revisit.getChangeCount() + 1);
+            revisit.setContentHash(contentHash);
+        }
+        revisit.setLastFetchedAt(now);
+        revisit.setNextFetchAt(now.plus(planInterval(revisit)));
+        pageRevisitRepository.save(revisit);
+    }
+
+    /**
+     * Забирает страницы, срок загрузки которых наступил, начиная с самых просроченных.
+     */
+    @Transactional
+    public List<PageRevisit> claimDue(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<PageRevisit> claimed = new ArrayList<>();
+        for (PageRevisit revisit : pageRevisitRepository.findDue(now, PageRequest.of(0, limit))) {
+            if (pageRevisitRepository.claim(revisit.getId(), revisit.getNextFetchAt(), now.plus(CLAIM_DURATION)) == 1) {
+                claimed.add(revisit);
+            }
+        }
+        return claimed;
+    }
+
+    /**
+     * Сервер не ответил или ответил ошибкой: статистика не меняется, попытка повторяется через обычный интервал.
+     */
+    @Transactional
+    public void postpone(PageRevisit revisit) {
+        revisit.setNextFetchAt(LocalDateTime.now().plus(planInterval(revisit)));
+        pageRevisitRepository.save(revisit);
+    }
+
+    @Transactional
+    public void forget(PageRevisit revisit) {
+        pageRevisitRepository.deleteById(revisit.getId());
+    }
+
+    private Duration planInterval(PageRevisit revisit) {
+        long minMs = appConfig.getRecrawlMinIntervalMs();
+        long maxMs = Math.max(appConfig.getRecrawlMaxIntervalMs(), minMs);
+        if (revisit.getObservedSeconds() <= 0) {
+            return Duration.ofMillis(Math.min(Math.max(appConfig.getRecrawlInitialIntervalMs(), minMs), maxMs));
+        }
+        double changesPerMs = (revisit.getChangeCount() + PRIOR_CHANGES) / (revisit.getObservedSeconds() * 1000.0);
+        double intervalMs = Math.log(2) / changesPerMs;
+        return Duration.ofMillis((long) Math.min(Math.max(intervalMs, minMs), maxMs));
+    }
+}
@@ -0,0 +1,67 @@
+package searchengine.services;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import searchengine.dto.index.LinkEdge;
+import searchengine.dto.index.PageMetadata;
+import searchengine.index.PageRank;
+import searchengine.model.Site;
+import searchengine.repositories.LinkRepository;
+import searchengine.repositories.PageRepository;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Пересчитывает статические оценки страниц сайта по сохранённому графу ссылок. Вызывается по завершении обхода,
+ * до того как сайт объявлен готовым, так что новый сегмент индекса уже упорядочен по свежим оценкам.
+ */
+@Service
+@RequiredArgsConstructor
+public class PageScoreService {
+
+    private final PageRepository pageRepository;
+    private final LinkRepository linkRepository;
+
+    private static final Logger logger = LoggerFactory.getLogger(PageScoreService.class);
+
+    @Transactional
+    public void computeScores(Site site) {
+        long startTime = System.currentTimeMillis();
+        List<PageMetadata> pages = pageRepository.findMetadataBySite(site);
+        Map<Integer, Integer> ordinalsById = new HashMap<>();
+        Map<String, Integer> ordinalsByPath = new HashMap<>();
+        for (int ordinal = 0; ordinal < pages.size(); ordinal++) {
+            ordinalsById.put(pages.get(ordinal).getId(), ordinal);
+            ordinalsByPath.put(pages.get(ordinal).getPath(), ordinal);
+        }
+
+        List<LinkEdge> links = linkRepository.findEdgesBySite(site);
+        int[] sources = new int[links.size()];
+        int[] targets = new int[links.size()];
+        int edgeCount = 0;
+        for (LinkEdge link : links) {
+            Integer source = ordinalsById.get(link.getSourceId());
+            Integer target = ordinalsByPath.get(link.getTargetPath());
+            if (source != null && target != null) {
+                sources[edgeCount] = source;
+                targets[edgeCount] = target;
+                edgeCount++;
+            }
+        }
+
+        float[] scores = PageRank.compute(pages.size(), sources, targets, edgeCount);
+        int updated = 0;
+        for (int ordinal = 0; ordinal < pages.size(); ordinal++) {
+            if (scores[ordinal] != pages.get(ordinal).getScore()) {
+                pageRepository.updateScore(pages.get(ordinal).getId(), scores[ordinal]);
+                updated++;
+            }
+        }
+        logger.info("Оценки страниц сайта {} пересчитаны за {} мс: страниц {}, ссылок {}, изменено оценок {}",
+                site.getUrl(), System.currentTimeMillis() - startTime, pages.size(), edgeCount, updated);
+    }
+}
@@ -0,0 +1,40 @@
+package searchengine.services;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.function.Supplier;
+
+/**
+ * Выполняет чтения поиска и статистики транзакцией только для чтения, которую маршрутизирующий источник
+ * данных направляет в реплику БД, если она настроена. Подключение занято до конца транзакции, поэтому
+ * в неё заворачиваются только сами выборки, а не обработка их результатов.
+ */
+@Service
+public class ReadWorkloadService {
+
+    private static final ThreadLocal<Boolean> ACTIVE = ThreadLocal.withInitial(() -> false);
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ReadWorkloadService(PlatformTransactionManager transactionManager) {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    public <T> T execute(Supplier<T> action) {
+        if (ACTIVE.get()) {
+            return action.get();
+        }
+        ACTIVE.set(true);
+        try {
+            return readOnlyTransaction.execute(status -> action.get());
+        } finally {
+            ACTIVE.set(false);
+        }
+    }
+
+    public static boolean isActive() {
+        return ACTIVE.get();
+    }
+}
@@ -0,0 +1,185 @@
+package searchengine.services;
+
+import lombok.RequiredArgsConstructor;
+import org.jsoup.HttpStatusException;
+import org.jsoup.UnsupportedMimeTypeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import searchengine.analysis.ContentHash;
+import searchengine.config.AppConfig;
+import searchengine.dto.index.PageFetchResult;
+import searchengine.metrics.EngineMetrics;
+import searchengine.model.PageRevisit;
+import searchengine.model.Site;
+import searchengine.model.Status;
+import searchengine.repositories.PageRepository;
+import searchengine.repositories.SiteRepository;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Непрерывный повторный обход проиндексированных сайтов. Страницы загружаются по расписанию
+ * {@link PageRevisitService} не чаще recrawl-fetches-per-minute в минуту на все сайты вместе, запросы
+ * распределяются по минуте равномерно. Пока идёт полная индексация, повторный обход не выполняется.
+ * <p>
+ * Текст загруженной страницы сравнивается с отпечатком прошлой загрузки. Страница переиндексируется,
+ * только если текст изменился; страница, которая отвечает 404 или 410, удаляется из индекса.
+ */
+@Service
+@RequiredArgsConstructor
+public class RecrawlService {
+
+    private final AppConfig appConfig;
+    private final PageRevisitService pageRevisitService;
+    private final PageIndexingService pageIndexingService;
+    private final HtmlParserService htmlParserService;
+    private final DatabaseHelperService databaseHelperService;
+    private final PageScoreService pageScoreService;
+    private final SiteGenerationService siteGenerationService;
+    private final CrawlMonitorService crawlMonitorService;
+    private final EngineMetrics engineMetrics;
+    private final PageRepository pageRepository;
+    private final SiteRepository siteRepository;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private Thread thread;
+    private long nextFetchNanos;
+
+    private static final Logger logger = LoggerFactory.getLogger(RecrawlService.class);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!appConfig.isRecrawlEnabled() || appConfig.getRecrawlFetchesPerMinute() <= 0) {
+            return;
+        }
+        running.set(true);
+        thread = new Thread(this::run, "recrawl");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Повторный обход запущен, не более {} загрузок в минуту", appConfig.getRecrawlFetchesPerMinute());
+    }
+
+    private void run() {
+        long spacingNanos = TimeUnit.MINUTES.toNanos(1) / appConfig.getRecrawlFetchesPerMinute();
+        nextFetchNanos = System.nanoTime();
+        while (running.get()) {
+            try {
+                List<PageRevisit> due = isIndexing() ? List.of() : pageRevisitService.claimDue(appConfig.getRecrawlFetchesPerMinute());
+                if (due.isEmpty()) {
+                    Thread.sleep(appConfig.getRecrawlPollIntervalMs());
+                    continue;
+                }
+                Map<Integer, Site> visitedSites = new LinkedHashMap<>();
+                Map<Integer, Site> changedSites = new LinkedHashMap<>();
+                try {
+                    for (PageRevisit revisit : due) {
+                        awaitBudget(spacingNanos);
+                        if (!running.get() || isIndexing()) {
+                            break;
+                        }
+                        Site site = revisit.getSite();
+                        if (visitedSites.putIfAbsent(site.getId(), site) == null) {
+                            crawlMonitorService.onBackgroundCrawlStarted(site);
+                        }
+                        if (refresh(revisit)) {
+                            changedSites.put(site.getId(), site);
+                        }
+                    }
+                } finally {
+                    visitedSites.values().forEach(crawlMonitorService::onBackgroundCrawlFinished);
+                }
+                for (Site site : changedSites.values()) {
+                    pageScoreService.computeScores(site);
+                    siteGenerationService.completed(site);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Ошибка повторного обхода", e);
+                try {
+                    Thread.sleep(appConfig.getRecrawlPollIntervalMs());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true, если индекс сайта изменился
+     */
+    boolean refresh(PageRevisit revisit) {
+        Site site = revisit.getSite();
+        String url = site.getUrl().replaceAll("/+$", "") + revisit.getPath();
+        try {
+            PageFetchResult fetchResult = htmlParserService.fetchPage(url);
+            ContentHash contentHash = new ContentHash();
+            htmlParserService.extractTextAndLinks(fetchResult.getHtml(), fetchResult.getLocation(), contentHash::add);
+            if (contentHash.value() == revisit.getContentHash()) {
+                pageRevisitService.recordFetch(site, revisit.getPath(), contentHash.value());
+                engineMetrics.recordRecrawl("unchanged");
+                return false;
+            }
+            pageRepository.findBySiteAndPath(site, revisit.getPath()).ifPresent(databaseHelperService::deletePageData);
+            pageIndexingService.indexFetchedPage(site, url, fetchResult);
+            engineMetrics.recordRecrawl("changed");
+            logger.info("Страница {} изменилась и переиндексирована", url);
+            return true;
+        } catch (HttpStatusException e) {
+            // ответы с кодом 400 и выше jsoup возвращает исключением
+            int statusCode = e.getStatusCode();
+            if (statusCode == 404 || statusCode == 410) {
+                pageRepository.findBySiteAndPath(site, revisit.getPath()).ifPresent(databaseHelperService::deletePageData);
+                pageRevisitService.forget(revisit);
+                engineMetrics.recordRecrawl("removed");
+                logger.info("Страница {} больше не существует, удалена из индекса", url);
+                return true;
+            }
+            crawlMonitorService.onPageFailed(site);
+            pageRevisitService.postpone(revisit);
+            engineMetrics.recordRecrawl("failed");
+            logger.warn("Повторная загрузка {} вернула HTTP {}", url, statusCode);
+            return false;
+        } catch (UnsupportedMimeTypeException e) {
+            pageRevisitService.forget(revisit);
+            engineMetrics.recordRecrawl("removed");
+            return false;
+        } catch (IOException e) {
+            crawlMonitorService.onPageFailed(site);
+            pageRevisitService.postpone(revisit);
+            engineMetrics.recordRecrawl("failed");
+            logger.warn("Не удалось повторно загрузить {}: {}", url, e.getMessage());
+            return false;
+        }
+    }
+
+    private void awaitBudget(long spacingNanos) throws InterruptedException {
+        long waitNanos = nextFetchNanos - System.nanoTime();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        nextFetchNanos = Math.max(nextFetchNanos, System.nanoTime() - spacingNanos) + spacingNanos;
+    }
+
+    private boolean isIndexing() {
+        return siteRepository.existsByStatus(Status.INDEXING);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running.set(false);
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package searchengine.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import searchengine.config.AppConfig;
+import searchengine.config.ShardingConfig;
+import searchengine.dto.search.SearchResponse;
+import searchengine.dto.search.ShardSearchResponse;
+import searchengine.exception.SearchException;
+import searchengine.exception.SearchOverloadedException;
+import searchengine.metrics.EngineMetrics;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Вход для /api/search и /api/shard/search. Одинаковые запросы, пришедшие, пока такой же уже выполняется, получают его результат
+ * и не занимают ресурсов. Одновременно выполняется не больше search-max-concurrent запросов,
+ * ещё search-max-queue ждут не дольше search-queue-timeout-ms, остальным сразу отвечаем 503.
+ */
+@Service
+public class SearchAdmissionService {
+
+    private final SearchService searchService;
+    private final ShardedSearchService shardedSearchService;
+    private final ShardingConfig shardingConfig;
+    private final AppConfig appConfig;
+    private final EngineMetrics engineMetrics;
+
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Map<Object, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchAdmissionService.class);
+
+    public SearchAdmissionService(SearchService searchService, ShardedSearchService shardedSearchService,
+                                  ShardingConfig shardingConfig, AppConfig appConfig, EngineMetrics engineMetrics) {
+        this.searchService = searchService;
+        this.shardedSearchService = shardedSearchService;
+        this.shardingConfig = shardingConfig;
+        this.appConfig = appConfig;
+        this.engineMetrics = engineMetrics;
+        this.permits = new Semaphore(Math.max(appConfig.getSearchMaxConcurrent(), 1), true);
+    }
+
+    public SearchResponse search(String query, String siteUrl, Integer offset, Integer limit, String cursor) {
+        SearchKey key = new SearchKey(query == null ? null : query.trim(), siteUrl, offset, limit, cursor);
+        return coalesce(key, () -> executeAdmitted(() -> {
+            if (shardingConfig.isCoordinator()) {
+                if (cursor != null && !cursor.isBlank()) {
+                    throw new SearchException("Постраничный вывод по курсору недоступен в режиме координатора, используйте offset");
+                }
+                return shardedSearchService.search(query, siteUrl, offset, limit);
+            }
+            return searchService.search(query, siteUrl, offset, limit, cursor);
+        }));
+    }
+
+    /**
+     * Запрос координатора к шарду проходит те же лимиты, что и /api/search: шарды принимают всю нагрузку
+     * координаторов. Одинаковые запросы шарда объединяются отдельно от пользовательских, ключ учитывает
+     * число запрошенных результатов.
+     */
+    public ShardSearchResponse searchShard(String query, String siteUrl, Integer offset, Integer limit, String cursor) {
+        int topK = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        ShardSearchKey key = new ShardSearchKey(query == null ? null : query.trim(), siteUrl, offset, topK, cursor);
+        return coalesce(key, () -> executeAdmitted(() -> searchService.searchShard(query, siteUrl, offset, limit, cursor)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T coalesce(Object key, Supplier<T> search) {
+        CompletableFuture<T> computation = new CompletableFuture<>();
+        CompletableFuture<T> existing = (CompletableFuture<T>) inFlight.putIfAbsent(key, computation);
+        if (existing != null) {
+            engineMetrics.recordSearchCoalesced();
+            return await(existing);
+        }
+        try {
+            computation.complete(search.get());
+        } catch (RuntimeException e) {
+            computation.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, computation);
+        }
+        return await(computation);
+    }
+
+    private <T> T executeAdmitted(Supplier<T> search) {
+        if (!permits.tryAcquire()) {
+            if (waiting.incrementAndGet() > appConfig.getSearchMaxQueue()) {
+                waiting.decrementAndGet();
+                throw reject("очередь заполнена");
+            }
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(appConfig.getSearchQueueTimeoutMs(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            } finally {
+                waiting.decrementAndGet();
+            }
+            if (!acquired) {
+                throw reject("истекло время ожидания в очереди");
+            }
+        }
+        try {
+            return search.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private SearchOverloadedException reject(String reason) {
+        engineMetrics.recordSearchRejected();
+        logger.warn("Поисковый запрос отклонён: {}", reason);
+        return new SearchOverloadedException("Сервис поиска перегружен, повторите запрос позже");
+    }
+
+    private static <T> T await(CompletableFuture<T> computation) {
+        try {
+            return computation.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private record SearchKey(String query, String siteUrl, Integer offset, Integer limit, String cursor) {
+    }
+
+    private record ShardSearchKey(String query, String siteUrl, int offset, int topK, String cursor) {
+    }
+}
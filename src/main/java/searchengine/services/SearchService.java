@@ -4,14 +4,36 @@ import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import searchengine.config.AppConfig;
+import searchengine.dto.index.IndexPosting;
+import searchengine.dto.index.LemmaReference;
+import searchengine.dto.index.PageMetadata;
+import searchengine.dto.search.SearchCursor;
 import searchengine.dto.search.SearchData;
 import searchengine.dto.search.SearchResponse;
+import searchengine.dto.search.ShardSearchResponse;
 import searchengine.exception.SearchException;
+import searchengine.index.ArrayPostingSource;
+import searchengine.index.IndexSegment;
+import searchengine.index.MatchMode;
+import searchengine.index.PageRank;
+import searchengine.index.PostingSource;
+import searchengine.index.ResultWindow;
+import searchengine.index.SegmentMatches;
+import searchengine.index.SegmentPostingSource;
+import searchengine.index.SegmentSearcher;
+import searchengine.metrics.EngineMetrics;
+import searchengine.metrics.SearchEvent;
 import searchengine.model.*;
+import searchengine.query.ParsedQuery;
+import searchengine.query.PhraseMatcher;
+import searchengine.query.QueryExecutor;
+import searchengine.query.QueryParser;
 import searchengine.repositories.IndexRepository;
 import searchengine.repositories.LemmaRepository;
 import searchengine.repositories.PageRepository;
 import searchengine.repositories.SiteRepository;
+import java.time.ZoneOffset;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -23,6 +45,12 @@ public class SearchService {
     private final LemmaParserService lemmaParserService;
     private final SnippetBuilderService snippetBuilderService;
     private final HtmlParserService htmlParserService;
+    private final CorpusStatisticsService corpusStatisticsService;
+    private final IndexSegmentService indexSegmentService;
+    private final SiteLookupService siteLookupService;
+    private final ReadWorkloadService readWorkloadService;
+    private final EngineMetrics engineMetrics;
+    private final AppConfig appConfig;
 
     private final SiteRepository siteRepository;
     private final LemmaRepository lemmaRepository;
@@ -30,68 +58,318 @@ public class SearchService {
     private final IndexRepository indexRepository;
 
     private final static double LEMMA_EXCLUDE_THRESHOLD_PERCENTAGE = 75.0;
+    private static final int PHRASE_CHECK_BATCH_SIZE = 50;
 
     private static final Logger logger = LoggerFactory.getLogger(SearchService.class);
 
     public SearchResponse search(String query, String siteUrl, Integer offset, Integer limit) {
+        return search(query, siteUrl, offset, limit, null);
+    }
 
+    public SearchResponse search(String query, String siteUrl, Integer offset, Integer limit, String cursor) {
+        ShardSearchResponse response = searchShard(query, siteUrl, offset, limit, cursor);
+        return new SearchResponse(true, response.getCount(), response.getData(), response.getNextCursor());
+    }
+
+    /**
+     * Поиск по сайтам этого экземпляра. Кроме выдачи возвращает максимальную абсолютную релевантность,
+     * по которой координатор сводит выдачи нескольких шардов в общую шкалу.
+     * <p>
+     * Если передан курсор из предыдущего ответа, offset не используется: выдача продолжается сразу после
+     * последнего результата курсора, и ищутся только limit следующих страниц. Курсор действителен, пока
+     * не изменились сегменты сайтов, иначе выдача могла бы пропустить или повторить результаты.
+     * Обращения к БД идут в реплику, если она настроена.
+     */
+    public ShardSearchResponse searchShard(String query, String siteUrl, Integer offset, Integer limit, String cursorToken) {
+        SearchEvent event = engineMetrics.beginSearchEvent(query, siteUrl);
+        try {
+            ShardSearchResponse response = searchLocal(query, siteUrl, offset, limit, cursorToken);
+            event.setCount(response.getCount());
+            event.setResults(response.getData().size());
+            return response;
+        } finally {
+            engineMetrics.commitSearchEvent(event);
+        }
+    }
+
+    /**
+     * Чтения из БД выполняются короткими транзакциями {@link ReadWorkloadService}: подключение занято только
+     * на время выборки, а проверка фраз и построение сниппетов идут уже без него.
+     */
+    private ShardSearchResponse searchLocal(String query, String siteUrl, Integer offset, Integer limit, String cursorToken) {
+        long startTime = System.nanoTime();
 
         if (isInvalidQuery(query)) {
             throw new SearchException("Поисковый запрос пуст");
         }
+        ParsedQuery parsedQuery = parseQuery(query);
 
-        List<Site> sites = getSites(siteUrl);
+        List<Site> sites = readWorkloadService.execute(() -> filterSites(getSites(siteUrl), parsedQuery.getSiteFilters()));
 
         logger.info("Поиск начат с запросом: '{}', сайт: '{}', смещение: {}, лимит: {}",
                     query, sites.stream().map(Site::getUrl).collect(Collectors.joining(", ", "[", "]")), offset, limit);
         if (!areSitesIndexed(sites)) {
             throw new SearchException("Указанные сайты не были полностью проиндексированы");
         }
-        Set<String> parsedLemmas = parseQueryLemmas(query);
-        Map<Page, Double> pageRank = calculatePageRank(parsedLemmas, sites);
-        logger.info("Ранжирование страниц выполнено. Всего страниц: {}", pageRank.size());
+        long generation = getGeneration(sites);
+        int queryHash = SearchCursor.hashQuery(query, siteUrl);
+        SearchCursor cursor = cursorToken == null || cursorToken.isBlank() ? null : SearchCursor.decode(cursorToken);
+        if (cursor != null) {
+            cursor.checkMatches(generation, queryHash);
+        }
+        int from = cursor == null ? offset : 0;
+        Map.Entry<Integer, Double> after = cursor == null ? null : cursor.after();
+        int topK = (int) Math.min((long) from + limit, Integer.MAX_VALUE);
 
-        List<SearchData> searchData = generateSearchData(query, pageRank);
+        RankedPages rankedPages;
+        String snippetQuery = query;
+        if (parsedQuery.isPlain()) {
+            Set<String> queryLemmas = parseQueryLemmas(query);
+            rankedPages = readWorkloadService.execute(() -> calculatePageRank(queryLemmas, sites, topK, after));
+        } else {
+            logger.info("Дерево запроса: {}, фильтры site: {}, path: {}",
+                    parsedQuery.getRoot(), parsedQuery.getSiteFilters(), parsedQuery.getPathPrefixes());
+            boolean verifyPhrases = !parsedQuery.getRequiredPhrases().isEmpty();
+            int candidates = verifyPhrases ? appConfig.getSearchMaxCandidates() : topK;
+            rankedPages = readWorkloadService.execute(() -> calculateQueryRank(parsedQuery, sites, candidates, after));
+            snippetQuery = String.join(" ", parsedQuery.getRoot().collectIncludedLemmas());
+        }
+        Map<Integer, Double> pageRank = rankedPages.relevance;
+        logger.info("Ранжирование страниц выполнено. Найдено страниц: {}, оценено: {}", rankedPages.count, rankedPages.scored);
+        engineMetrics.recordSearchCandidates(rankedPages.scored);
+
+        double maxRank = cursor != null ? cursor.getMaxRelevance() : pageRank.isEmpty() ? 0 : Collections.max(pageRank.values());
+        long windowStartTime = System.nanoTime();
+        List<Map.Entry<Integer, Double>> window = parsedQuery.getRequiredPhrases().isEmpty()
+                ? ResultWindow.select(pageRank, from, limit)
+                : selectWithPhrases(rankedPages, parsedQuery.getRequiredPhrases(), from, limit);
+        engineMetrics.recordSearchWindow(windowStartTime);
+        List<SearchData> searchData = generateSearchData(snippetQuery, window, maxRank);
         logger.info("Сформированы данные поиска. Всего результатов: {}", searchData.size());
 
-        return new SearchResponse(true, searchData.size(), paginate(searchData, offset, limit));
+        String nextCursor = null;
+        if (limit > 0 && window.size() == limit) {
+            Map.Entry<Integer, Double> last = window.get(window.size() - 1);
+            nextCursor = new SearchCursor(generation, queryHash, maxRank, last.getValue(), last.getKey()).encode();
+        }
+        engineMetrics.recordSearch(startTime);
+        return new ShardSearchResponse(true, rankedPages.count, maxRank, searchData, nextCursor);
     }
 
     private boolean isInvalidQuery(String query) {
         return query == null || query.isBlank();
     }
 
+    private ParsedQuery parseQuery(String query) {
+        long startTime = System.nanoTime();
+        ParsedQuery parsedQuery = QueryParser.parse(query, word -> lemmaParserService.parseLemmas(word).keySet().stream()
+                .findFirst()
+                .orElse(null));
+        engineMetrics.recordSearchLemmatize(startTime);
+        if (!parsedQuery.isPlain() && parsedQuery.getRoot() == null) {
+            throw new SearchException("В запросе нет слов для поиска");
+        }
+        return parsedQuery;
+    }
+
     private Set<String> parseQueryLemmas(String query) {
-        return lemmaParserService.parseLemmas(query).keySet();
+        long startTime = System.nanoTime();
+        Set<String> lemmas = lemmaParserService.parseLemmas(query).keySet();
+        engineMetrics.recordSearchLemmatize(startTime);
+        return lemmas;
+    }
+
+    /**
+     * Число оцениваемых страниц ограничено indexing-settings.search-max-candidates: слишком широкий запрос
+     * прекращает поиск, набрав столько кандидатов, вместо того чтобы оценивать каждую страницу сайта.
+     * По сегменту ищутся только topK лучших страниц каждого сайта, этого достаточно для окна выдачи.
+     * В режиме {@link MatchMode#ANY} страница находится, если содержит хотя бы одну из лемм.
+     */
+    private RankedPages calculatePageRank(Set<String> parsedLemmas, List<Site> sites, int topK,
+                                          Map.Entry<Integer, Double> after) {
+        RankedPages rankedPages = new RankedPages();
+        int maxCandidates = appConfig.getSearchMaxCandidates();
+        double scoreWeight = appConfig.getPageScoreWeight();
+        MatchMode matchMode = appConfig.getSearchMatchMode();
+        for (Site site : sites) {
+            int budget = maxCandidates - rankedPages.scored;
+            if (budget <= 0) {
+                logger.info("Запрос исчерпал бюджет в {} страниц, остальные сайты пропущены", maxCandidates);
+                break;
+            }
+            List<String> filteredLemmas = getFilteredLemmas(parsedLemmas, site);
+            if (filteredLemmas.isEmpty()) {
+                continue;
+            }
+            Optional<IndexSegment> segment = indexSegmentService.getSegment(site);
+            long startTime = System.nanoTime();
+            if (segment.isPresent()) {
+                SegmentMatches matches = matchMode == MatchMode.ANY
+                        ? SegmentSearcher.findTopMatchingAny(segment.get(), filteredLemmas, topK, scoreWeight, budget, after)
+                        : SegmentSearcher.findTopMatching(segment.get(), filteredLemmas, topK, scoreWeight, budget, after);
+                engineMetrics.recordSearchIntersection(startTime);
+                rankedPages.relevance.putAll(matches.getRelevance());
+                rankedPages.scored += matches.getScored();
+                rankedPages.count += matches.getCount();
+            } else {
+                List<Lemma> lemmas = loadLemmas(site, filteredLemmas);
+                Set<Page> matchedPages = matchMode == MatchMode.ANY ? getPagesWithAnyLemma(lemmas) : getPagesFromLemmas(lemmas);
+                Set<Page> pages = limitCandidates(matchedPages, budget);
+                engineMetrics.recordSearchIntersection(startTime);
+                long scoringStartTime = System.nanoTime();
+                Map<Integer, Double> relevance = calculateRelevanceForPages(pages, new HashSet<>(lemmas), scoreWeight);
+                if (after != null) {
+                    relevance.entrySet().removeIf(entry -> ResultWindow.BEST_FIRST.compare(entry, after) <= 0);
+                }
+                rankedPages.relevance.putAll(relevance);
+                engineMetrics.recordSearchScoring(scoringStartTime);
+                rankedPages.scored += pages.size();
+                rankedPages.count += matchedPages.size();
+            }
+        }
+        return rankedPages;
     }
 
-    private Map<Page, Double> calculatePageRank(Set<String> parsedLemmas, List<Site> sites) {
-        Map<Page, Double> pageRank = new HashMap<>();
+    /**
+     * Запрос с операторами выполняется над списками вхождений сегмента, а для сайта без сегмента — над
+     * списками, загруженными из БД. Частые леммы здесь не отбрасываются: пользователь указал их явно.
+     */
+    private RankedPages calculateQueryRank(ParsedQuery parsedQuery, List<Site> sites, int topK,
+                                           Map.Entry<Integer, Double> after) {
+        RankedPages rankedPages = new RankedPages();
+        int maxCandidates = appConfig.getSearchMaxCandidates();
+        double scoreWeight = appConfig.getPageScoreWeight();
+        Set<String> lemmas = parsedQuery.getRoot().collectLemmas();
         for (Site site : sites) {
-            List<Lemma> filteredLemmas = getFilteredLemmas(parsedLemmas, site);
-            Set<Page> pages = getPagesFromLemmas(filteredLemmas);
-            pageRank.putAll(calculateRelevanceForPages(pages, new HashSet<>(filteredLemmas)));
+            int budget = maxCandidates - rankedPages.scored;
+            if (budget <= 0) {
+                logger.info("Запрос исчерпал бюджет в {} страниц, остальные сайты пропущены", maxCandidates);
+                break;
+            }
+            long startTime = System.nanoTime();
+            PostingSource source = indexSegmentService.getSegment(site)
+                    .<PostingSource>map(SegmentPostingSource::new)
+                    .orElseGet(() -> loadPostingSource(site, lemmas));
+            SegmentMatches matches = QueryExecutor.execute(parsedQuery, source, topK, scoreWeight, budget, after);
+            engineMetrics.recordSearchIntersection(startTime);
+            rankedPages.relevance.putAll(matches.getRelevance());
+            rankedPages.scored += matches.getScored();
+            rankedPages.count += matches.getCount();
+        }
+        return rankedPages;
+    }
+
+    private PostingSource loadPostingSource(Site site, Collection<String> lemmas) {
+        ArrayPostingSource source = new ArrayPostingSource();
+        Map<Integer, String> lemmasById = lemmaRepository.findReferencesBySiteAndLemmaIn(site, lemmas).stream()
+                .collect(Collectors.toMap(LemmaReference::getId, LemmaReference::getLemma));
+        if (lemmasById.isEmpty()) {
+            return source;
+        }
+        Map<Integer, List<IndexPosting>> postingsByLemma = indexRepository.findPostingsByLemmaIdIn(lemmasById.keySet()).stream()
+                .collect(Collectors.groupingBy(IndexPosting::getLemmaId));
+        for (Map.Entry<Integer, List<IndexPosting>> entry : postingsByLemma.entrySet()) {
+            List<IndexPosting> postings = entry.getValue();
+            int[] pageIds = new int[postings.size()];
+            float[] ranks = new float[postings.size()];
+            for (int i = 0; i < postings.size(); i++) {
+                pageIds[i] = postings.get(i).getPageId();
+                ranks[i] = postings.get(i).getRank();
+            }
+            source.addPostings(lemmasById.get(entry.getKey()), pageIds, ranks);
+        }
+        for (PageMetadata page : pageRepository.findMetadataBySite(site)) {
+            source.addPage(page.getId(), page.getPath(), page.getScore());
+        }
+        return source;
+    }
+
+    /**
+     * Порядок слов фраз проверяется по тексту страниц, от лучших к худшим, пока не наберётся окно выдачи.
+     * Если проверены все найденные страницы, число результатов точное, иначе это число страниц со всеми
+     * словами фраз — верхняя граница.
+     */
+    private List<Map.Entry<Integer, Double>> selectWithPhrases(RankedPages rankedPages, List<List<String>> phrases,
+                                                               int from, int limit) {
+        List<Map.Entry<Integer, Double>> candidates = ResultWindow.select(rankedPages.relevance, 0, rankedPages.relevance.size());
+        int needed = (int) Math.min((long) from + limit, Integer.MAX_VALUE);
+        List<Map.Entry<Integer, Double>> verified = new ArrayList<>();
+        int checked = 0;
+        while (checked < candidates.size() && verified.size() < needed) {
+            List<Map.Entry<Integer, Double>> batch = candidates.subList(checked, Math.min(checked + PHRASE_CHECK_BATCH_SIZE, candidates.size()));
+            Map<Integer, Page> pagesById = loadPages(batch);
+            for (Map.Entry<Integer, Double> entry : batch) {
+                checked++;
+                Page page = pagesById.get(entry.getKey());
+                if (page != null && PhraseMatcher.containsAll(
+                        lemmaParserService.matchWordWithLemmas(htmlParserService.cleanHtml(page.getContent())), phrases)) {
+                    verified.add(entry);
+                    if (verified.size() >= needed) {
+                        break;
+                    }
+                }
+            }
+        }
+        if (checked == candidates.size() && rankedPages.count == rankedPages.scored) {
+            rankedPages.count = verified.size();
+        }
+        logger.info("Проверено фраз на {} страницах, подошло {}", checked, verified.size());
+        return verified.size() <= from ? List.of() : new ArrayList<>(verified.subList(from, verified.size()));
+    }
+
+    /**
+     * Фильтр site: оставляет сайты, хост которых совпадает с указанным или является его поддоменом;
+     * схема и www. не учитываются. Если не подошёл ни один сайт, выдача пуста.
+     */
+    private List<Site> filterSites(List<Site> sites, List<String> siteFilters) {
+        if (siteFilters.isEmpty()) {
+            return sites;
         }
-        return pageRank;
+        List<String> hosts = siteFilters.stream().map(SearchService::normalizeHost).collect(Collectors.toList());
+        return sites.stream()
+                .filter(site -> {
+                    String host = normalizeHost(site.getUrl());
+                    return hosts.stream().anyMatch(filter -> host.equals(filter) || host.endsWith("." + filter));
+                })
+                .collect(Collectors.toList());
+    }
+
+    private static String normalizeHost(String url) {
+        String host = url.toLowerCase(Locale.ROOT).replaceFirst("^[a-z][a-z0-9+.-]*://", "");
+        int end = host.indexOf('/');
+        if (end >= 0) {
+            host = host.substring(0, end);
+        }
+        return host.startsWith("www.") ? host.substring("www.".length()) : host;
     }
 
-    private List<Lemma> getFilteredLemmas(Set<String> parsedLemmas, Site site) {
+    private List<String> getFilteredLemmas(Set<String> parsedLemmas, Site site) {
+        long startTime = System.nanoTime();
         long threshold = calculateExcludeThreshold(site);
-        return filterLemmas(parsedLemmas, threshold, site);
+        List<String> filteredLemmas = filterLemmas(parsedLemmas, threshold, site);
+        engineMetrics.recordSearchLemmaLookup(startTime);
+        return filteredLemmas;
+    }
+
+    private List<String> filterLemmas(Set<String> parsedLemmas, long threshold, Site site) {
+        return corpusStatisticsService.getFrequencies(site, parsedLemmas).entrySet().stream()
+                .filter(entry -> entry.getValue() < threshold)
+                .sorted(Map.Entry.comparingByValue())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
     }
 
-    private List<Lemma> filterLemmas(Set<String> parsedLemmas, long threshold, Site site) {
-        return parsedLemmas.stream()
-                .map(lemma -> lemmaRepository.findByLemmaAndSite(lemma, site))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .filter(lemma -> lemma.getFrequency() < threshold)
-                .sorted(Comparator.comparing(Lemma::getFrequency))
+    private List<Lemma> loadLemmas(Site site, List<String> selectedLemmas) {
+        Map<String, Lemma> lemmasByText = lemmaRepository.findBySiteAndLemmaIn(site, selectedLemmas).stream()
+                .collect(Collectors.toMap(Lemma::getLemma, Function.identity()));
+        return selectedLemmas.stream()
+                .map(lemmasByText::get)
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
     private long calculateExcludeThreshold(Site site) {
-        long totalPages = pageRepository.countAllBySite(site);
+        long totalPages = corpusStatisticsService.getPageCount(site);
         return Math.round(totalPages * (LEMMA_EXCLUDE_THRESHOLD_PERCENTAGE / 100.0));
     }
 
@@ -103,6 +381,14 @@ public class SearchService {
         return specifyPagesWithLemmas(lemmas, pages);
     }
 
+    private Set<Page> getPagesWithAnyLemma(List<Lemma> lemmas) {
+        Set<Page> pages = new HashSet<>();
+        for (Lemma lemma : lemmas) {
+            pages.addAll(getInitialPages(lemma));
+        }
+        return pages;
+    }
+
     private Set<Page> getInitialPages(Lemma lemma) {
         return lemma.getIndexesModel().stream()
                 .map(Index::getPage)
@@ -121,11 +407,22 @@ public class SearchService {
         return pages;
     }
 
-    private Map<Page, Double> calculateRelevanceForPages(Set<Page> pages, Set<Lemma> lemmas) {
+    private Set<Page> limitCandidates(Set<Page> pages, int budget) {
+        if (pages.size() <= budget) {
+            return pages;
+        }
+        logger.info("Найдено {} страниц, оцениваются первые {}", pages.size(), budget);
+        return pages.stream()
+                .sorted(Comparator.comparing(Page::getId))
+                .limit(budget)
+                .collect(Collectors.toSet());
+    }
+
+    private Map<Integer, Double> calculateRelevanceForPages(Set<Page> pages, Set<Lemma> lemmas, double scoreWeight) {
         return pages.stream()
                 .collect(Collectors.toMap(
-                        Function.identity(),
-                        page -> calculateAbsoluteRelevance(page, lemmas)
+                        Page::getId,
+                        page -> PageRank.combine(calculateAbsoluteRelevance(page, lemmas), page.getScore(), scoreWeight)
                 ));
     }
 
@@ -135,22 +432,30 @@ public class SearchService {
                 .sum();
     }
 
-    private List<SearchData> generateSearchData(String query, Map<Page, Double> pageRank) {
-        Optional<Double> maxRankOpt = pageRank.values().stream().max(Double::compareTo);
-        if (maxRankOpt.isEmpty()) {
+    private List<SearchData> generateSearchData(String query, List<Map.Entry<Integer, Double>> window, double maxRank) {
+        if (window.isEmpty()) {
             return List.of();
         }
-        double maxRank = maxRankOpt.get();
+        long pageLoadStartTime = System.nanoTime();
+        Map<Integer, Page> pagesById = loadPages(window);
+        engineMetrics.recordSearchPageLoad(pageLoadStartTime);
 
-        return pageRank.entrySet().stream()
-                .map(entry -> createSearchData(query, entry, maxRank))
-                .sorted(Comparator.comparing(SearchData::getRelevance).reversed())
+        long snippetsStartTime = System.nanoTime();
+        List<SearchData> searchData = window.stream()
+                .filter(entry -> pagesById.containsKey(entry.getKey()))
+                .map(entry -> createSearchData(query, pagesById.get(entry.getKey()), entry.getValue() / maxRank))
                 .collect(Collectors.toList());
+        engineMetrics.recordSearchSnippets(snippetsStartTime);
+        return searchData;
+    }
+
+    private Map<Integer, Page> loadPages(List<Map.Entry<Integer, Double>> entries) {
+        List<Integer> pageIds = entries.stream().map(Map.Entry::getKey).collect(Collectors.toList());
+        return readWorkloadService.execute(() -> pageRepository.findAllById(pageIds)).stream()
+                .collect(Collectors.toMap(Page::getId, Function.identity()));
     }
 
-    private SearchData createSearchData(String query, Map.Entry<Page, Double> entry, double maxRank) {
-        Page page = entry.getKey();
-        double relevance = entry.getValue() / maxRank;
+    private SearchData createSearchData(String query, Page page, double relevance) {
         String content = page.getContent();
         String snippet = snippetBuilderService.generateSnippet(query, htmlParserService.cleanHtml(content));
         return new SearchData(
@@ -163,10 +468,19 @@ public class SearchService {
         );
     }
 
-    private List<SearchData> paginate(List<SearchData> searchData, Integer offset, Integer limit) {
-        int fromIndex = Math.min(offset, searchData.size());
-        int toIndex = Math.min(fromIndex + limit, searchData.size());
-        return searchData.subList(fromIndex, toIndex);
+    /**
+     * Поколение индекса искомых сайтов: меняется при каждой перезаписи сегмента, а для сайтов без сегмента —
+     * при смене статуса сайта.
+     */
+    private long getGeneration(List<Site> sites) {
+        long generation = 17;
+        for (Site site : sites) {
+            long siteGeneration = indexSegmentService.getSegment(site)
+                    .map(IndexSegment::getCreatedAt)
+                    .orElseGet(() -> site.getStatusTime().toEpochSecond(ZoneOffset.UTC));
+            generation = generation * 31 + site.getId() * 17L + siteGeneration;
+        }
+        return generation;
     }
 
     private boolean areSitesIndexed(List<Site> sites) {
@@ -177,7 +491,14 @@ public class SearchService {
         if (siteUrl == null || siteUrl.isBlank()) {
             return siteRepository.findAll();
         }
-        return List.of(siteRepository.findByUrlStartingWith(siteUrl));
+        Site site = siteLookupService.findByUrl(siteUrl)
+                .orElseThrow(() -> new SearchException("Указанный сайт не найден"));
+        return List.of(site);
     }
 
+    private static class RankedPages {
+        private final Map<Integer, Double> relevance = new HashMap<>();
+        private int scored;
+        private int count;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,148 @@
+package searchengine.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import searchengine.config.ShardConfig;
+import searchengine.config.ShardingConfig;
+import searchengine.dto.search.SearchData;
+import searchengine.dto.search.SearchResponse;
+import searchengine.dto.search.ShardSearchResponse;
+import searchengine.exception.SearchException;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Поиск в режиме координатора: запрос параллельно отправляется шардам, владеющим нужными сайтами,
+ * и их выдачи сливаются в одну. Шард, не ответивший за sharding.timeout-ms, пропускается,
+ * и пользователь получает частичный результат по остальным.
+ */
+@Service
+@RequiredArgsConstructor
+public class ShardedSearchService {
+
+    private final ShardingConfig shardingConfig;
+    private final ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedSearchService.class);
+
+    /**
+     * Каждый шард возвращает первые offset + limit результатов, поэтому после слияния
+     * окно [offset, offset + limit) совпадает с тем, что вернул бы один экземпляр со всеми сайтами.
+     */
+    public SearchResponse search(String query, String siteUrl, Integer offset, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new SearchException("Поисковый запрос пуст");
+        }
+        List<ShardConfig> shards = selectShards(siteUrl);
+        if (shards.isEmpty()) {
+            throw new SearchException("Указанный сайт не найден");
+        }
+        int from = Math.max(offset, 0);
+        int size = Math.max(limit, 0);
+
+        Map<ShardConfig, CompletableFuture<ShardSearchResponse>> requests = new LinkedHashMap<>();
+        for (ShardConfig shard : shards) {
+            requests.put(shard, sendSearch(shard, query, siteUrl, from + size));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shardingConfig.getTimeoutMs());
+        List<ShardSearchResponse> responses = new ArrayList<>();
+        for (Map.Entry<ShardConfig, CompletableFuture<ShardSearchResponse>> request : requests.entrySet()) {
+            String shardUrl = request.getKey().getUrl();
+            try {
+                long remaining = Math.max(deadline - System.nanoTime(), 0);
+                responses.add(request.getValue().get(remaining, TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                request.getValue().cancel(true);
+                logger.warn("Шард {} не ответил за {} мс, результат будет частичным", shardUrl, shardingConfig.getTimeoutMs());
+            } catch (ExecutionException e) {
+                logger.warn("Шард {} вернул ошибку, результат будет частичным: {}", shardUrl, e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SearchException("Поиск прерван");
+            }
+        }
+        if (responses.isEmpty()) {
+            throw new SearchException("Ни один из шардов не ответил на запрос");
+        }
+        return merge(responses, from, size);
+    }
+
+    private List<ShardConfig> selectShards(String siteUrl) {
+        if (siteUrl == null || siteUrl.isBlank()) {
+            return shardingConfig.getShards();
+        }
+        return shardingConfig.getShards().stream()
+                .filter(shard -> shard.ownsSite(siteUrl))
+                .collect(Collectors.toList());
+    }
+
+    private CompletableFuture<ShardSearchResponse> sendSearch(ShardConfig shard, String query, String siteUrl, int limit) {
+        StringBuilder uri = new StringBuilder(shard.getUrl())
+                .append("/api/shard/search?query=").append(URLEncoder.encode(query, StandardCharsets.UTF_8))
+                .append("&offset=0&limit=").append(limit);
+        if (siteUrl != null && !siteUrl.isBlank()) {
+            uri.append("&site=").append(URLEncoder.encode(siteUrl, StandardCharsets.UTF_8));
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri.toString()))
+                .timeout(Duration.ofMillis(shardingConfig.getTimeoutMs()))
+                .GET()
+                .build();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                .thenApply(response -> parseResponse(shard, response));
+    }
+
+    private ShardSearchResponse parseResponse(ShardConfig shard, HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + ": " + response.body());
+        }
+        try {
+            return objectMapper.readValue(response.body(), ShardSearchResponse.class);
+        } catch (IOException e) {
+            throw new IllegalStateException("Некорректный ответ шарда " + shard.getUrl(), e);
+        }
+    }
+
+    /**
+     * Релевантность каждого результата переводится из шкалы шарда в общую: умножается на максимум шарда
+     * и делится на максимум по всем шардам.
+     */
+    private SearchResponse merge(List<ShardSearchResponse> responses, int from, int size) {
+        double maxRelevance = responses.stream().mapToDouble(ShardSearchResponse::getMaxRelevance).max().orElse(0);
+        int count = 0;
+        List<SearchData> merged = new ArrayList<>();
+        for (ShardSearchResponse response : responses) {
+            count += response.getCount();
+            double scale = maxRelevance > 0 ? response.getMaxRelevance() / maxRelevance : 0;
+            for (SearchData data : response.getData()) {
+                data.setRelevance((float) (data.getRelevance() * scale));
+                merged.add(data);
+            }
+        }
+        merged.sort(Comparator.comparingDouble(SearchData::getRelevance).reversed());
+        List<SearchData> window = merged.stream()
+                .skip(from)
+                .limit(size)
+                .collect(Collectors.toList());
+        return new SearchResponse(true, count, window);
+    }
+}
@@ -0,0 +1,103 @@
+package searchengine.services;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import searchengine.config.AppConfig;
+import searchengine.feed.IndexChangeFeed;
+import searchengine.model.Site;
+import searchengine.model.Status;
+import searchengine.repositories.SiteRepository;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Объявляет новое поколение индекса сайта, после которого пишутся сегменты, перестраиваются подсказки
+ * и статистика. Журнал изменений у каждого экземпляра свой, поэтому при распределённом обходе поколение
+ * отмечается временем статуса сайта в БД, а каждый экземпляр, в том числе отметивший, замечает его,
+ * опрашивая таблицу site раз в frontier-poll-interval-ms.
+ */
+@Service
+@RequiredArgsConstructor
+public class SiteGenerationService {
+
+    private final AppConfig appConfig;
+    private final SiteRepository siteRepository;
+    private final IndexChangeFeed indexChangeFeed;
+    private final IndexSegmentService indexSegmentService;
+    private final DuplicateDetectionService duplicateDetectionService;
+    private final SiteLookupService siteLookupService;
+
+    private Set<Integer> knownSiteIds;
+    private Map<Integer, LocalDateTime> knownGenerations = new HashMap<>();
+
+    private static final Logger logger = LoggerFactory.getLogger(SiteGenerationService.class);
+
+    /**
+     * Время статуса хранится с точностью до секунды, поэтому новое поколение получает время хотя бы
+     * на секунду позже прежнего, иначе два поколения за одну секунду выглядели бы одним.
+     */
+    @Transactional
+    public void completed(Site site) {
+        if (!appConfig.isDistributedCrawl()) {
+            indexChangeFeed.siteGenerationCompleted(site);
+            return;
+        }
+        LocalDateTime current = siteRepository.findStatusTimeById(site.getId());
+        if (current == null) {
+            return;
+        }
+        LocalDateTime next = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        if (!next.isAfter(current)) {
+            next = current.plusSeconds(1);
+        }
+        siteRepository.touchIndexed(site.getId(), next);
+    }
+
+    /**
+     * Первый опрос только запоминает состояние: сегменты, записанные до запуска, открываются при старте.
+     * Если сайты, известные по прошлому опросу, исчезли, индексацию перезапустил другой экземпляр,
+     * и данные прежних сайтов в памяти сбрасываются так же, как при локальном перезапуске.
+     */
+    @Scheduled(fixedDelayString = "${indexing-settings.frontier-poll-interval-ms:1000}")
+    public void pollGenerations() {
+        if (!appConfig.isDistributedCrawl()) {
+            return;
+        }
+        Set<Integer> siteIds = new HashSet<>();
+        Map<Integer, LocalDateTime> generations = new HashMap<>();
+        Map<Integer, Site> changed = new HashMap<>();
+        for (Site site : siteRepository.findAll()) {
+            siteIds.add(site.getId());
+            if (site.getStatus() == Status.INDEXED) {
+                generations.put(site.getId(), site.getStatusTime());
+                if (!Objects.equals(knownGenerations.get(site.getId()), site.getStatusTime())) {
+                    changed.put(site.getId(), site);
+                }
+            }
+        }
+        if (knownSiteIds != null) {
+            if (!siteIds.containsAll(knownSiteIds)) {
+                logger.info("Сайты пересозданы другим экземпляром, сбрасываю данные прежних сайтов");
+                indexSegmentService.invalidateAll();
+                duplicateDetectionService.clear();
+                siteLookupService.invalidate();
+                indexChangeFeed.sitesCleared();
+            }
+            for (Site site : changed.values()) {
+                logger.info("Новое поколение индекса сайта {} от {}", site.getUrl(), site.getStatusTime());
+                indexChangeFeed.siteGenerationCompleted(site);
+            }
+        }
+        knownSiteIds = siteIds;
+        knownGenerations = generations;
+    }
+}
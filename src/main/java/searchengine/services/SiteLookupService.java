@@ -0,0 +1,125 @@
+package searchengine.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import searchengine.model.Site;
+import searchengine.repositories.SiteRepository;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Определяет сайт по адресу страницы: из сайтов, чей адрес является началом адреса страницы, берётся
+ * самый длинный, так что вложенные сайты (https://a.ru и https://a.ru/blog) не мешают друг другу.
+ * Адреса сайтов держатся в памяти до {@link #invalidate()}, сам сайт читается из кэша второго уровня.
+ */
+@Service
+@RequiredArgsConstructor
+public class SiteLookupService {
+
+    private final SiteRepository siteRepository;
+
+    private long generation;
+    private volatile UrlMatcher matcher;
+
+    /**
+     * Если адрес не подошёл ни к одному сайту или сайт уже удалён, список перечитывается один раз:
+     * сайты могли пересоздать без {@link #invalidate()}, например другим экземпляром при распределённом обходе.
+     */
+    public Optional<Site> findByUrl(String url) {
+        if (url == null) {
+            return Optional.empty();
+        }
+        Optional<Site> site = find(getMatcher(), url);
+        if (site.isEmpty()) {
+            reset();
+            site = find(getMatcher(), url);
+        }
+        return site;
+    }
+
+    /**
+     * Сбрасывает адреса сайтов. Внутри транзакции сброс повторяется после её завершения, иначе чтение,
+     * попавшее между изменением и фиксацией, закрепило бы старый список.
+     */
+    public void invalidate() {
+        reset();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    reset();
+                }
+            });
+        }
+    }
+
+    private Optional<Site> find(UrlMatcher urlMatcher, String url) {
+        Integer siteId = urlMatcher.match(url);
+        return siteId == null ? Optional.empty() : siteRepository.findById(siteId);
+    }
+
+    private synchronized void reset() {
+        generation++;
+        matcher = null;
+    }
+
+    private UrlMatcher getMatcher() {
+        UrlMatcher current = matcher;
+        if (current != null) {
+            return current;
+        }
+        long loadedGeneration;
+        synchronized (this) {
+            loadedGeneration = generation;
+        }
+        current = new UrlMatcher(siteRepository.findAll());
+        synchronized (this) {
+            if (generation == loadedGeneration) {
+                matcher = current;
+            }
+        }
+        return current;
+    }
+
+    private static final class UrlMatcher {
+
+        private final String[] urls;
+        private final int[] siteIds;
+
+        UrlMatcher(List<Site> sites) {
+            List<Site> byLength = new ArrayList<>(sites);
+            byLength.sort(Comparator.comparingInt((Site site) -> site.getUrl().length()).reversed());
+            urls = new String[byLength.size()];
+            siteIds = new int[byLength.size()];
+            for (int i = 0; i < urls.length; i++) {
+                urls[i] = byLength.get(i).getUrl();
+                siteIds[i] = byLength.get(i).getId();
+            }
+        }
+
+        Integer match(String url) {
+            for (int i = 0; i < urls.length; i++) {
+                String siteUrl = urls[i];
+                if (url.regionMatches(true, 0, siteUrl, 0, siteUrl.length()) && endsAtBoundary(url, siteUrl)) {
+                    return siteIds[i];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Адрес сайта должен кончаться на границе пути: https://a.ru не является началом https://a.ru.evil.com.
+         */
+        private static boolean endsAtBoundary(String url, String siteUrl) {
+            if (url.length() == siteUrl.length() || siteUrl.endsWith("/")) {
+                return true;
+            }
+            char next = url.charAt(siteUrl.length());
+            return next == '/' || next == '?' || next == '#';
+        }
+    }
+}
@@ -3,6 +3,7 @@ package searchengine.services;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import searchengine.dto.search.LemmaEntry;
+import searchengine.metrics.EngineMetrics;
 import java.util.List;
 
 @Service
@@ -11,15 +12,19 @@ public class SnippetBuilderService {
 
     private final LemmaParserService lemmaParserService;
     private final HtmlParserService htmlParserService;
+    private final EngineMetrics engineMetrics;
 
     private static final int SNIPPET_SYMBOLS_SIZE = 200;
 
 
     public String generateSnippet(String searchQuery, String pageContent) {
+        long startTime = System.nanoTime();
         List<LemmaEntry> searchQueryLemmas = lemmaParserService.matchWordWithLemmas(searchQuery);
         List<LemmaEntry> pageContentLemmas = lemmaParserService.matchWordWithLemmas(htmlParserService.cleanHtml(pageContent));
         List<LemmaEntry> commonLemmas = findLongestCommonSubsequence(searchQueryLemmas, pageContentLemmas);
-        return buildSnippet(pageContent, commonLemmas);
+        String snippet = buildSnippet(pageContent, commonLemmas);
+        engineMetrics.recordSnippet(startTime);
+        return snippet;
     }
 
     private String buildSnippet(String rawContent, List<LemmaEntry> lemmaSequence) {
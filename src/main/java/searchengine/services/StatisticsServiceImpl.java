@@ -7,8 +7,7 @@ import searchengine.dto.statistics.StatisticsData;
 import searchengine.dto.statistics.StatisticsResponse;
 import searchengine.dto.statistics.TotalStatistics;
 import searchengine.model.Site;
-import searchengine.repositories.LemmaRepository;
-import searchengine.repositories.PageRepository;
+import searchengine.model.Status;
 import searchengine.repositories.SiteRepository;
 import java.time.ZoneOffset;
 import java.util.List;
@@ -19,11 +18,16 @@ import java.util.stream.Collectors;
 public class StatisticsServiceImpl implements StatisticsService {
 
     private final SiteRepository sitesRepository;
-    private final PageRepository pageRepository;
-    private final LemmaRepository lemmaRepository;
+    private final CorpusStatisticsService corpusStatisticsService;
+    private final CrawlMonitorService crawlMonitorService;
+    private final ReadWorkloadService readWorkloadService;
 
     @Override
     public StatisticsResponse getStatistics() {
+        return readWorkloadService.execute(this::collectStatistics);
+    }
+
+    private StatisticsResponse collectStatistics() {
         List<Site> allSites = sitesRepository.findAll();
 
         List<DetailedStatisticsItem> detailedStatistics = allSites.stream()
@@ -50,8 +54,13 @@ public class StatisticsServiceImpl implements StatisticsService {
         item.setStatus(site.getStatus().toString());
         item.setError(site.getLastError());
         item.setStatusTime(site.getStatusTime().toInstant(ZoneOffset.UTC).toEpochMilli());
-        item.setPages(pageRepository.countBySite(site));
-        item.setLemmas(lemmaRepository.countBySite(site));
+        item.setPages(corpusStatisticsService.getPageCount(site));
+        item.setLemmas(corpusStatisticsService.getLemmaCount(site));
+        crawlMonitorService.getProgress(site).ifPresent(progress -> {
+            item.setPagesPerSecond(progress.getPagesPerSecond());
+            item.setFrontierSize(progress.getFrontierSize());
+            item.setErrors(progress.getErrors());
+        });
         return item;
     }
 
@@ -62,11 +71,20 @@ public class StatisticsServiceImpl implements StatisticsService {
         int totalLemmas = detailedStatistics.stream()
                 .mapToInt(DetailedStatisticsItem::getLemmas)
                 .sum();
+        double totalPagesPerSecond = detailedStatistics.stream()
+                .mapToDouble(DetailedStatisticsItem::getPagesPerSecond)
+                .sum();
+        long totalErrors = detailedStatistics.stream()
+                .mapToLong(DetailedStatisticsItem::getErrors)
+                .sum();
         TotalStatistics total = new TotalStatistics();
         total.setPages(totalPages);
         total.setLemmas(totalLemmas);
         total.setSites(siteCount);
-        total.setIndexing(true);
+        total.setIndexing(crawlMonitorService.isIndexing() || detailedStatistics.stream()
+                .anyMatch(item -> Status.INDEXING.name().equals(item.getStatus())));
+        total.setPagesPerSecond(totalPagesPerSecond);
+        total.setErrors(totalErrors);
         return total;
     }
 }
\ No newline at end of file
@@ -0,0 +1,170 @@
+package searchengine.services;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import searchengine.analysis.WordScanner;
+import searchengine.dto.index.LemmaFrequency;
+import searchengine.dto.suggest.SuggestData;
+import searchengine.dto.suggest.SuggestResponse;
+import searchengine.feed.IndexChangeEvent;
+import searchengine.feed.IndexChangeFeed;
+import searchengine.feed.IndexChangeListener;
+import searchengine.feed.IndexChangeType;
+import searchengine.index.LemmaTrie;
+import searchengine.model.Site;
+import searchengine.repositories.LemmaRepository;
+import searchengine.repositories.SiteRepository;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Подсказки по префиксу последнего слова запроса. Префиксные деревья лемм строятся по каждому сайту
+ * в фоновом потоке после завершения индексации сайта, запросы к БД при наборе текста не выполняются.
+ */
+@Service
+@RequiredArgsConstructor
+public class SuggestService implements IndexChangeListener {
+
+    private final SiteRepository siteRepository;
+    private final LemmaRepository lemmaRepository;
+    private final IndexChangeFeed indexChangeFeed;
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "suggest-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean(false);
+    private volatile Map<String, LemmaTrie> triesBySiteUrl = Map.of();
+
+    private static final int MAX_LIMIT = 50;
+
+    private static final Logger logger = LoggerFactory.getLogger(SuggestService.class);
+
+    @PostConstruct
+    public void subscribe() {
+        indexChangeFeed.subscribe(this);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleRebuildOnStartup() {
+        scheduleRebuild();
+    }
+
+    @Override
+    public void onChanges(List<IndexChangeEvent> events) {
+        boolean rebuildNeeded = events.stream().anyMatch(event ->
+                event.getType() == IndexChangeType.SITE_GENERATION_COMPLETED
+                        || event.getType() == IndexChangeType.SITES_CLEARED);
+        if (rebuildNeeded) {
+            scheduleRebuild();
+        }
+    }
+
+    @Override
+    public void onReset() {
+        scheduleRebuild();
+    }
+
+    public void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            rebuildExecutor.execute(this::rebuild);
+        }
+    }
+
+    public SuggestResponse suggest(String query, String siteUrl, int limit) {
+        if (query == null || query.isBlank()) {
+            return new SuggestResponse(true, List.of());
+        }
+        int lastWordStart = query.length();
+        while (lastWordStart > 0 && !Character.isWhitespace(query.charAt(lastWordStart - 1))) {
+            lastWordStart--;
+        }
+        String prefix = WordScanner.normalizeWord(query.substring(lastWordStart));
+        if (prefix.isEmpty()) {
+            return new SuggestResponse(true, List.of());
+        }
+        String head = query.substring(0, lastWordStart);
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (LemmaTrie trie : selectTries(siteUrl)) {
+            for (LemmaFrequency suggestion : trie.topByPrefix(prefix, boundedLimit)) {
+                frequencies.merge(suggestion.getLemma(), suggestion.getFrequency(), Integer::sum);
+            }
+        }
+
+        List<SuggestData> data = frequencies.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(boundedLimit)
+                .map(entry -> new SuggestData(head + entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+        return new SuggestResponse(true, data);
+    }
+
+    private Collection<LemmaTrie> selectTries(String siteUrl) {
+        Map<String, LemmaTrie> tries = triesBySiteUrl;
+        if (siteUrl == null || siteUrl.isBlank()) {
+            return tries.values();
+        }
+        return tries.entrySet().stream()
+                .filter(entry -> siteUrl.startsWith(entry.getKey()))
+                .map(Map.Entry::getValue)
+                .collect(Collectors.toList());
+    }
+
+    private void rebuild() {
+        rebuildScheduled.set(false);
+        long startTime = System.currentTimeMillis();
+        try {
+            Map<String, LemmaTrie> tries = new HashMap<>();
+            for (Site site : siteRepository.findAll()) {
+                tries.put(site.getUrl(), buildTrie(site));
+            }
+            triesBySiteUrl = tries;
+            logger.info("Подсказки перестроены для {} сайтов за {} мс", tries.size(), System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            logger.error("Ошибка при построении подсказок", e);
+        }
+    }
+
+    private LemmaTrie buildTrie(Site site) {
+        List<LemmaFrequency> frequencies = new ArrayList<>(lemmaRepository.findFrequenciesBySite(site));
+        if (frequencies.isEmpty()) {
+            return LemmaTrie.empty();
+        }
+        frequencies.sort(Comparator.comparing(LemmaFrequency::getLemma));
+
+        String[] lemmas = new String[frequencies.size()];
+        int[] weights = new int[frequencies.size()];
+        int count = 0;
+        for (LemmaFrequency frequency : frequencies) {
+            if (frequency.getLemma().isEmpty() || frequency.getFrequency() <= 0) {
+                continue;
+            }
+            if (count > 0 && lemmas[count - 1].equals(frequency.getLemma())) {
+                weights[count - 1] += frequency.getFrequency();
+                continue;
+            }
+            lemmas[count] = frequency.getLemma();
+            weights[count] = frequency.getFrequency();
+            count++;
+        }
+        return LemmaTrie.build(Arrays.copyOf(lemmas, count), Arrays.copyOf(weights, count));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+}
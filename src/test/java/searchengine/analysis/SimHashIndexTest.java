@@ -0,0 +1,74 @@
+package searchengine.analysis;
+
+import org.junit.jupiter.api.Test;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SimHashIndexTest {
+
+    @Test
+    void usesExactlyMaxDistancePlusOneBands() {
+        for (int maxDistance = 0; maxDistance < Long.SIZE; maxDistance++) {
+            assertEquals(maxDistance + 1, new SimHashIndex(maxDistance).bandCount());
+        }
+        assertEquals(1, new SimHashIndex(-1).bandCount());
+        assertEquals(Long.SIZE, new SimHashIndex(100).bandCount());
+    }
+
+    @Test
+    void findsFingerprintWithMaxDistanceFlippedBits() {
+        Random random = new Random(49);
+        for (int maxDistance = 0; maxDistance < Long.SIZE; maxDistance++) {
+            for (int round = 0; round < 200; round++) {
+                SimHashIndex index = new SimHashIndex(maxDistance);
+                long fingerprint = random.nextLong();
+                index.add("/original", fingerprint);
+
+                long near = flip(fingerprint, maxDistance, random);
+                assertEquals("/original", index.findOrAdd("/near", near),
+                        "maxDistance " + maxDistance + ", отпечаток " + Long.toHexString(fingerprint));
+                assertEquals(1, index.size());
+
+                if (maxDistance < Long.SIZE - 1) {
+                    long far = flip(fingerprint, maxDistance + 1, random);
+                    assertNull(index.findOrAdd("/far", far));
+                    assertEquals(2, index.size());
+                }
+            }
+        }
+    }
+
+    @Test
+    void samePathIsNotItsOwnDuplicate() {
+        SimHashIndex index = new SimHashIndex(3);
+        index.add("/page", 0x0F0FL);
+        assertNull(index.findOrAdd("/page", 0x0F0EL));
+        assertEquals(1, index.size());
+        assertEquals("/page", index.findOrAdd("/copy", 0x0F0FL));
+    }
+
+    @Test
+    void removedFingerprintIsNotFound() {
+        SimHashIndex index = new SimHashIndex(3);
+        index.add("/page", 42L);
+        index.remove("/page");
+        index.remove("/missing");
+        assertEquals(0, index.size());
+        assertNull(index.findOrAdd("/copy", 42L));
+    }
+
+    private static long flip(long fingerprint, int bits, Random random) {
+        long result = fingerprint;
+        int flipped = 0;
+        while (flipped < bits) {
+            long bit = 1L << random.nextInt(Long.SIZE);
+            if (((result ^ fingerprint) & bit) == 0) {
+                result ^= bit;
+                flipped++;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,100 @@
+package searchengine.dto.search;
+
+import org.junit.jupiter.api.Test;
+import searchengine.exception.SearchException;
+import searchengine.index.ResultWindow;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SearchCursorTest {
+
+    @Test
+    void roundTripsAllFields() {
+        SearchCursor cursor = new SearchCursor(-7L, SearchCursor.hashQuery("кот", null), 12.5, Math.nextUp(3.1), 42);
+        SearchCursor decoded = SearchCursor.decode(cursor.encode());
+        assertEquals(-7L, decoded.getGeneration());
+        assertEquals(cursor.getQueryHash(), decoded.getQueryHash());
+        assertEquals(12.5, decoded.getMaxRelevance());
+        assertEquals(Math.nextUp(3.1), decoded.getRelevance());
+        assertEquals(42, decoded.getPageId());
+        assertEquals(Map.entry(42, Math.nextUp(3.1)), decoded.after());
+    }
+
+    @Test
+    void rejectsOtherVersion() {
+        String token = new SearchCursor(1, 2, 3, 4, 5).encode();
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        assertThrows(SearchException.class, () -> SearchCursor.decode(encode("2" + raw.substring(1))));
+        assertThrows(SearchException.class, () -> SearchCursor.decode(encode(raw.substring(2))));
+    }
+
+    @Test
+    void rejectsGarbageAndTamperedTokens() {
+        String token = new SearchCursor(1, 2, 3, 4, 5).encode();
+        for (String garbage : List.of("", "!!!", "курсор", token + "*", token.substring(0, token.length() - 3),
+                encode("1:1:2:3:4"), encode("1:1:2:3:4:5:6"), encode("1:xyz:2:3:4:5"), encode("1:1:2:3:4:пять"),
+                encode("1:1:2:3:4:99999999999"), encode("1:1:1ffffffff:3:4:5"))) {
+            assertThrows(SearchException.class, () -> SearchCursor.decode(garbage), garbage);
+        }
+    }
+
+    @Test
+    void rejectsOtherGenerationOrQuery() {
+        int queryHash = SearchCursor.hashQuery("кот", "https://example.ru");
+        SearchCursor cursor = SearchCursor.decode(new SearchCursor(10, queryHash, 5, 4, 3).encode());
+        assertDoesNotThrow(() -> cursor.checkMatches(10, queryHash));
+        assertThrows(SearchException.class, () -> cursor.checkMatches(11, queryHash));
+        assertThrows(SearchException.class, () -> cursor.checkMatches(10, SearchCursor.hashQuery("пёс", "https://example.ru")));
+        assertThrows(SearchException.class, () -> cursor.checkMatches(10, SearchCursor.hashQuery("кот", null)));
+    }
+
+    @Test
+    void queryHashIgnoresCaseSurroundingSpacesAndBlankSite() {
+        assertEquals(SearchCursor.hashQuery("Кот ", null), SearchCursor.hashQuery("кот", ""));
+    }
+
+    /**
+     * Продолжение по курсору отбрасывает всё, что не идёт после последнего выданного результата, как это делает
+     * поиск по БД, и должно давать те же страницы, что и выдача со смещением, в том числе при равной релевантности.
+     */
+    @Test
+    void continuationEqualsOffsetPagingWithTies() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            Map<Integer, Double> relevance = new HashMap<>();
+            int pageCount = random.nextInt(60);
+            for (int i = 0; i < pageCount; i++) {
+                relevance.put(random.nextInt(1000), (double) random.nextInt(4));
+            }
+            int limit = 1 + random.nextInt(6);
+            int queryHash = SearchCursor.hashQuery("кот", null);
+
+            String token = null;
+            for (int offset = 0; ; offset += limit) {
+                List<Map.Entry<Integer, Double>> expected = ResultWindow.select(relevance, offset, limit);
+                Map<Integer, Double> remaining = new HashMap<>(relevance);
+                if (token != null) {
+                    SearchCursor cursor = SearchCursor.decode(token);
+                    cursor.checkMatches(1, queryHash);
+                    Map.Entry<Integer, Double> after = cursor.after();
+                    remaining.entrySet().removeIf(entry -> ResultWindow.BEST_FIRST.compare(entry, after) <= 0);
+                }
+                List<Map.Entry<Integer, Double>> page = ResultWindow.select(remaining, 0, limit);
+                assertEquals(expected, page, "смещение " + offset + ", лимит " + limit);
+                if (page.size() < limit) {
+                    break;
+                }
+                Map.Entry<Integer, Double> last = page.get(page.size() - 1);
+                token = new SearchCursor(1, queryHash, 3, last.getValue(), last.getKey()).encode();
+            }
+        }
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,75 @@
+package searchengine.index;
+
+import org.junit.jupiter.api.Test;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PostingsCodecTest {
+
+    @Test
+    void roundTripsAcrossBlockBoundaries() {
+        Random random = new Random(46);
+        for (int count : new int[]{1, 2, 127, 128, 129, 255, 256, 257, 1000}) {
+            int[] ordinals = new int[count];
+            float[] ranks = new float[count];
+            int ordinal = -1;
+            for (int i = 0; i < count; i++) {
+                // встречаются и соседние страницы, и разрывы на несколько байт varint
+                ordinal += 1 + (random.nextInt(4) == 0 ? random.nextInt(1 << 22) : random.nextInt(3));
+                ordinals[i] = ordinal;
+                ranks[i] = 1 + random.nextInt(300);
+            }
+            assertDecodes(ordinals, ranks, PostingsCodec.encode(ordinals, ranks, count));
+        }
+    }
+
+    @Test
+    void keepsFractionalNegativeAndLargeRanksExactly() {
+        int[] ordinals = {0, 1, 5, 6, 200, 201, 202, 1000};
+        float[] ranks = {0.5f, -1f, 0f, (float) (1 << 28), 1e30f, Float.NaN, 3f, 0.1f};
+        assertDecodes(ordinals, ranks, PostingsCodec.encode(ordinals, ranks, ordinals.length));
+    }
+
+    @Test
+    void encodesEmptyListToNothing() {
+        assertEquals(0, PostingsCodec.encode(new int[0], new float[0], 0).length);
+        assertEquals(0, PostingsCodec.blockCount(0));
+    }
+
+    @Test
+    void encodesOnlyTheFirstCountPostings() {
+        int[] ordinals = {2, 4, 8, 16};
+        float[] ranks = {1, 2, 3, 4};
+        byte[] encoded = PostingsCodec.encode(ordinals, ranks, 3);
+        assertDecodes(new int[]{2, 4, 8}, new float[]{1, 2, 3}, encoded);
+    }
+
+    /**
+     * Каждый блок распаковывается сам по себе: по смещению из таблицы перескоков и последней странице
+     * предыдущего блока.
+     */
+    private static void assertDecodes(int[] ordinals, float[] ranks, byte[] encoded) {
+        int count = ordinals.length;
+        int blockCount = PostingsCodec.blockCount(count);
+        ByteBuffer buffer = ByteBuffer.wrap(encoded);
+        int dataBase = blockCount * PostingsCodec.SKIP_ENTRY_SIZE;
+        int[] blockOrdinals = new int[PostingsCodec.BLOCK_SIZE];
+        float[] blockRanks = new float[PostingsCodec.BLOCK_SIZE];
+        for (int block = blockCount - 1; block >= 0; block--) {
+            int start = block * PostingsCodec.BLOCK_SIZE;
+            int length = Math.min(PostingsCodec.BLOCK_SIZE, count - start);
+            assertEquals(ordinals[start + length - 1], buffer.getInt(block * PostingsCodec.SKIP_ENTRY_SIZE));
+            int offset = dataBase + buffer.getInt(block * PostingsCodec.SKIP_ENTRY_SIZE + 4);
+            int previous = block == 0 ? -1 : buffer.getInt((block - 1) * PostingsCodec.SKIP_ENTRY_SIZE);
+            int ranksOffset = PostingsCodec.decodeOrdinals(buffer, offset, length, previous, blockOrdinals);
+            PostingsCodec.decodeRanks(buffer, ranksOffset, length, blockRanks);
+            for (int i = 0; i < length; i++) {
+                int posting = start + i;
+                assertEquals(ordinals[posting], blockOrdinals[i], () -> "страница вхождения " + posting);
+                assertEquals(ranks[posting], blockRanks[i], () -> "rank вхождения " + posting);
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package searchengine.index;
+
+import org.junit.jupiter.api.Test;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostingsCursorTest {
+
+    private static final int BLOCK = PostingsCodec.BLOCK_SIZE;
+
+    @Test
+    void iteratesAllPostingsInOrder() {
+        int[] ordinals = multiplesOf(3, 3 * BLOCK + 5);
+        float[] ranks = ranks(ordinals.length);
+        PostingsCursor cursor = cursor(ordinals, ranks);
+        assertEquals(0, cursor.position());
+        for (int i = 0; i < ordinals.length; i++) {
+            assertTrue(cursor.next());
+            assertEquals(ordinals[i], cursor.ordinal());
+            assertEquals(ranks[i], cursor.rank());
+            assertEquals(i + 1, cursor.position());
+        }
+        assertFalse(cursor.next());
+        assertFalse(cursor.next());
+        assertEquals(ordinals.length, cursor.position());
+    }
+
+    @Test
+    void advancesToTargetsBeforeOnBetweenAndPastSkipEntries() {
+        int[] ordinals = multiplesOf(3, 4 * BLOCK);
+        int firstBlockLast = ordinals[BLOCK - 1];
+        int secondBlockLast = ordinals[2 * BLOCK - 1];
+
+        PostingsCursor cursor = cursor(ordinals, ranks(ordinals.length));
+        assertTrue(cursor.advance(-10));
+        assertEquals(0, cursor.ordinal());
+
+        assertTrue(cursor.advance(firstBlockLast));
+        assertEquals(firstBlockLast, cursor.ordinal());
+        assertEquals(BLOCK, cursor.position());
+
+        assertTrue(cursor.advance(firstBlockLast + 1));
+        assertEquals(firstBlockLast + 3, cursor.ordinal());
+        assertEquals(BLOCK + 1, cursor.position());
+
+        assertTrue(cursor.advance(secondBlockLast + 1));
+        assertEquals(secondBlockLast + 3, cursor.ordinal());
+
+        assertTrue(cursor.advance(5), "advance не возвращается назад");
+        assertEquals(secondBlockLast + 3, cursor.ordinal());
+
+        assertFalse(cursor.advance(ordinals[ordinals.length - 1] + 1));
+        assertFalse(cursor.next());
+        assertFalse(cursor.advance(0));
+    }
+
+    @Test
+    void advanceSkipsSeveralBlocksFromTheStart() {
+        int[] ordinals = multiplesOf(2, 10 * BLOCK);
+        float[] ranks = ranks(ordinals.length);
+        PostingsCursor cursor = cursor(ordinals, ranks);
+        int target = ordinals[7 * BLOCK + 3] - 1;
+        assertTrue(cursor.advance(target));
+        assertEquals(ordinals[7 * BLOCK + 3], cursor.ordinal());
+        assertEquals(ranks[7 * BLOCK + 3], cursor.rank());
+        assertEquals(7 * BLOCK + 4, cursor.position());
+        assertTrue(cursor.next());
+        assertEquals(ordinals[7 * BLOCK + 4], cursor.ordinal());
+    }
+
+    @Test
+    void advanceToLastPostingOfLastPartialBlock() {
+        int[] ordinals = multiplesOf(5, 2 * BLOCK + 1);
+        PostingsCursor cursor = cursor(ordinals, ranks(ordinals.length));
+        assertTrue(cursor.advance(ordinals[ordinals.length - 1]));
+        assertEquals(ordinals.length, cursor.position());
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    void advanceMatchesLinearScan() {
+        Random random = new Random(46);
+        for (int round = 0; round < 200; round++) {
+            int count = 1 + random.nextInt(5 * BLOCK);
+            int[] ordinals = new int[count];
+            int ordinal = -1;
+            for (int i = 0; i < count; i++) {
+                ordinal += 1 + random.nextInt(20);
+                ordinals[i] = ordinal;
+            }
+            float[] ranks = ranks(count);
+            PostingsCursor cursor = cursor(ordinals, ranks);
+            int expected = 0;
+            int target = random.nextInt(10) - 5;
+            while (true) {
+                while (expected < count && ordinals[expected] < target) {
+                    expected++;
+                }
+                if (expected == count) {
+                    assertFalse(cursor.advance(target));
+                    break;
+                }
+                assertTrue(cursor.advance(target));
+                assertEquals(ordinals[expected], cursor.ordinal());
+                assertEquals(ranks[expected], cursor.rank());
+                assertEquals(expected + 1, cursor.position());
+                if (random.nextBoolean()) {
+                    assertTrue(cursor.next() == expected + 1 < count);
+                    expected++;
+                    if (expected == count) {
+                        break;
+                    }
+                    assertEquals(ordinals[expected], cursor.ordinal());
+                }
+                target = cursor.ordinal() + random.nextInt(4 * BLOCK);
+            }
+        }
+    }
+
+    @Test
+    void emptyListHasNoPostings() {
+        PostingsCursor cursor = cursor(new int[0], new float[0]);
+        assertEquals(0, cursor.size());
+        assertFalse(cursor.next());
+        assertFalse(cursor.advance(0));
+        assertEquals(0, cursor.position());
+    }
+
+    /**
+     * Список кладётся не с начала буфера, как в файле сегмента.
+     */
+    private static PostingsCursor cursor(int[] ordinals, float[] ranks) {
+        byte[] encoded = PostingsCodec.encode(ordinals, ranks, ordinals.length);
+        int base = 7;
+        ByteBuffer buffer = ByteBuffer.allocate(base + encoded.length + 3);
+        buffer.position(base);
+        buffer.put(encoded);
+        float maxRank = 0;
+        for (float rank : ranks) {
+            maxRank = Math.max(maxRank, rank);
+        }
+        return new PostingsCursor(buffer, base, ordinals.length, maxRank);
+    }
+
+    private static int[] multiplesOf(int step, int count) {
+        int[] ordinals = new int[count];
+        for (int i = 0; i < count; i++) {
+            ordinals[i] = i * step;
+        }
+        return ordinals;
+    }
+
+    private static float[] ranks(int count) {
+        float[] ranks = new float[count];
+        for (int i = 0; i < count; i++) {
+            ranks[i] = i % 7 == 0 ? i + 0.25f : i % 13 + 1;
+        }
+        return ranks;
+    }
+}
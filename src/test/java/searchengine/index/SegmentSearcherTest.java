@@ -0,0 +1,199 @@
+package searchengine.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentSearcherTest {
+
+    private static final List<String> LEMMAS = List.of("кот", "пёс", "дом", "сад", "лес");
+    private static final double SCORE_WEIGHT = 0.5;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void topMatchingAllEqualsBruteForce() throws IOException {
+        Random random = new Random(40);
+        for (int round = 0; round < 30; round++) {
+            Corpus corpus = Corpus.random(random, 50 + random.nextInt(400));
+            IndexSegment segment = corpus.write(directory.resolve(round + ".seg"));
+            List<String> query = query(random);
+            for (int topK : new int[]{1, 3, 10, 1000}) {
+                SegmentMatches matches = SegmentSearcher.findTopMatching(segment, query, topK, SCORE_WEIGHT,
+                        Integer.MAX_VALUE, null);
+                assertEquals(corpus.bruteForce(query, false, topK, null), sorted(matches.getRelevance()),
+                        "запрос " + query + ", topK " + topK);
+            }
+        }
+    }
+
+    @Test
+    void topMatchingAnyEqualsBruteForce() throws IOException {
+        Random random = new Random(41);
+        for (int round = 0; round < 30; round++) {
+            Corpus corpus = Corpus.random(random, 50 + random.nextInt(400));
+            IndexSegment segment = corpus.write(directory.resolve(round + ".seg"));
+            List<String> query = query(random);
+            for (int topK : new int[]{1, 3, 10, 1000}) {
+                SegmentMatches matches = SegmentSearcher.findTopMatchingAny(segment, query, topK, SCORE_WEIGHT,
+                        Integer.MAX_VALUE, null);
+                assertEquals(corpus.bruteForce(query, true, topK, null), sorted(matches.getRelevance()),
+                        "запрос " + query + ", topK " + topK);
+            }
+        }
+    }
+
+    @Test
+    void continuationAfterCursorEqualsBruteForceRanking() throws IOException {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            Corpus corpus = Corpus.random(random, 100 + random.nextInt(300));
+            IndexSegment segment = corpus.write(directory.resolve(round + ".seg"));
+            List<String> query = query(random);
+            for (boolean any : new boolean[]{false, true}) {
+                List<Map.Entry<Integer, Double>> expected = corpus.bruteForce(query, any, Integer.MAX_VALUE, null);
+                List<Map.Entry<Integer, Double>> pages = new ArrayList<>();
+                Map.Entry<Integer, Double> after = null;
+                int pageSize = 1 + random.nextInt(7);
+                while (true) {
+                    SegmentMatches matches = any
+                            ? SegmentSearcher.findTopMatchingAny(segment, query, pageSize, SCORE_WEIGHT, Integer.MAX_VALUE, after)
+                            : SegmentSearcher.findTopMatching(segment, query, pageSize, SCORE_WEIGHT, Integer.MAX_VALUE, after);
+                    List<Map.Entry<Integer, Double>> page = sorted(matches.getRelevance());
+                    assertEquals(corpus.bruteForce(query, any, pageSize, after), page);
+                    if (page.isEmpty()) {
+                        break;
+                    }
+                    pages.addAll(page);
+                    after = page.get(page.size() - 1);
+                }
+                assertEquals(expected, pages, "запрос " + query + (any ? ", ANY" : ", ALL"));
+            }
+        }
+    }
+
+    @Test
+    void tiesOnRelevanceAreBrokenByPageId(@TempDir Path tieDirectory) throws IOException {
+        Corpus corpus = new Corpus();
+        for (int pageId = 1; pageId <= 300; pageId++) {
+            corpus.pages.put(pageId, pageId % 2 == 0 ? 1f : 0f);
+            corpus.postings.get("кот").put(pageId, 2f);
+            if (pageId % 3 == 0) {
+                corpus.postings.get("пёс").put(pageId, 1f);
+            }
+        }
+        IndexSegment segment = corpus.write(tieDirectory.resolve("ties.seg"));
+        List<String> query = List.of("кот", "пёс");
+        List<Map.Entry<Integer, Double>> any = sorted(SegmentSearcher.findTopMatchingAny(segment, query, 5,
+                SCORE_WEIGHT, Integer.MAX_VALUE, null).getRelevance());
+        assertEquals(List.of(6, 12, 18, 24, 30), any.stream().map(Map.Entry::getKey).toList());
+        assertEquals(corpus.bruteForce(query, true, 5, null), any);
+
+        Map.Entry<Integer, Double> after = any.get(any.size() - 1);
+        List<Map.Entry<Integer, Double>> next = sorted(SegmentSearcher.findTopMatchingAny(segment, query, 3,
+                SCORE_WEIGHT, Integer.MAX_VALUE, after).getRelevance());
+        assertEquals(List.of(36, 42, 48), next.stream().map(Map.Entry::getKey).toList());
+
+        List<Map.Entry<Integer, Double>> all = sorted(SegmentSearcher.findTopMatching(segment, query, 4,
+                SCORE_WEIGHT, Integer.MAX_VALUE, Map.entry(12, 4.5)).getRelevance());
+        assertEquals(List.of(18, 24, 30, 36), all.stream().map(Map.Entry::getKey).toList());
+    }
+
+    @Test
+    void missingLemmasAreIgnored(@TempDir Path missingDirectory) throws IOException {
+        Corpus corpus = Corpus.random(new Random(43), 100);
+        IndexSegment segment = corpus.write(missingDirectory.resolve("missing.seg"));
+        List<String> query = List.of("кот", "нет");
+        assertEquals(corpus.bruteForce(List.of("кот"), false, 10, null),
+                sorted(SegmentSearcher.findTopMatching(segment, query, 10, SCORE_WEIGHT, Integer.MAX_VALUE, null).getRelevance()));
+        assertEquals(corpus.bruteForce(List.of("кот"), true, 10, null),
+                sorted(SegmentSearcher.findTopMatchingAny(segment, query, 10, SCORE_WEIGHT, Integer.MAX_VALUE, null).getRelevance()));
+        assertTrue(SegmentSearcher.findTopMatchingAny(segment, List.of("нет"), 10, SCORE_WEIGHT, Integer.MAX_VALUE, null)
+                .getRelevance().isEmpty());
+    }
+
+    private static List<String> query(Random random) {
+        List<String> lemmas = new ArrayList<>(LEMMAS);
+        Collections.shuffle(lemmas, random);
+        return lemmas.subList(0, 1 + random.nextInt(lemmas.size()));
+    }
+
+    private static List<Map.Entry<Integer, Double>> sorted(Map<Integer, Double> relevance) {
+        List<Map.Entry<Integer, Double>> entries = new ArrayList<>();
+        relevance.forEach((pageId, value) -> entries.add(Map.entry(pageId, value)));
+        entries.sort(ResultWindow.BEST_FIRST);
+        return entries;
+    }
+
+    /**
+     * Оценки страниц и rank берутся из нескольких значений, чтобы релевантности часто совпадали,
+     * а целые rank складываются точно в любом порядке.
+     */
+    private static final class Corpus {
+
+        private final Map<Integer, Float> pages = new HashMap<>();
+        private final Map<String, Map<Integer, Float>> postings = new HashMap<>();
+
+        Corpus() {
+            for (String lemma : LEMMAS) {
+                postings.put(lemma, new HashMap<>());
+            }
+        }
+
+        static Corpus random(Random random, int pageCount) {
+            Corpus corpus = new Corpus();
+            float[] scores = {0f, 0.25f, 0.5f, 1f};
+            for (int page = 0; page < pageCount; page++) {
+                int pageId = 1 + random.nextInt(pageCount * 3);
+                corpus.pages.put(pageId, scores[random.nextInt(scores.length)]);
+            }
+            for (int pageId : corpus.pages.keySet()) {
+                for (String lemma : LEMMAS) {
+                    if (random.nextInt(LEMMAS.indexOf(lemma) + 2) == 0) {
+                        corpus.postings.get(lemma).put(pageId, (float) (1 + random.nextInt(4)));
+                    }
+                }
+            }
+            return corpus;
+        }
+
+        IndexSegment write(Path path) throws IOException {
+            IndexSegmentWriter writer = new IndexSegmentWriter(1, "https://example.ru");
+            pages.forEach((pageId, score) -> writer.addPage(pageId, "/" + pageId, score));
+            postings.forEach((lemma, ranks) -> ranks.forEach((pageId, rank) -> writer.addPosting(lemma, pageId, rank)));
+            writer.write(path);
+            return IndexSegment.open(path);
+        }
+
+        List<Map.Entry<Integer, Double>> bruteForce(List<String> query, boolean any, int topK,
+                                                    Map.Entry<Integer, Double> after) {
+            List<Map.Entry<Integer, Double>> result = new ArrayList<>();
+            for (Map.Entry<Integer, Float> page : pages.entrySet()) {
+                double rankSum = 0;
+                int found = 0;
+                for (String lemma : query) {
+                    Float rank = postings.get(lemma).get(page.getKey());
+                    if (rank != null) {
+                        rankSum += rank;
+                        found++;
+                    }
+                }
+                if (any ? found == 0 : found < query.size()) {
+                    continue;
+                }
+                Map.Entry<Integer, Double> entry = Map.entry(page.getKey(), PageRank.combine(rankSum, page.getValue(), SCORE_WEIGHT));
+                if (after == null || ResultWindow.BEST_FIRST.compare(entry, after) > 0) {
+                    result.add(entry);
+                }
+            }
+            result.sort(ResultWindow.BEST_FIRST);
+            return new ArrayList<>(result.subList(0, Math.min(topK, result.size())));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package searchengine.query;
+
+import org.junit.jupiter.api.Test;
+import searchengine.index.ArrayPostingSource;
+import searchengine.index.SegmentMatches;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QueryExecutorTest {
+
+    @Test
+    void andIntersectsAndSumsRanks() {
+        assertEquals(Map.of(4, 3.0, 5, 3.0), execute("кот AND пёс"));
+        assertEquals(Map.of(4, 4.0), execute("кот пёс (дом)"));
+    }
+
+    @Test
+    void orMergesAndSumsRanksOfFoundLemmas() {
+        assertEquals(Map.of(1, 1.0, 2, 2.0, 3, 1.0, 4, 2.0, 5, 1.0, 6, 1.0, 8, 1.0), execute("кот OR дом"));
+    }
+
+    @Test
+    void notExcludesPages() {
+        assertEquals(Map.of(1, 1.0, 3, 1.0, 5, 1.0), execute("кот NOT дом"));
+        assertEquals(Map.of(1, 1.0, 3, 1.0), execute("кот -пёс -дом"));
+        assertEquals(Map.of(1, 1.0, 3, 1.0, 5, 3.0, 7, 2.0), execute("(кот OR пёс) NOT дом"));
+    }
+
+    @Test
+    void phraseMatchesPagesWithAllItsWords() {
+        assertEquals(Map.of(4, 3.0, 5, 3.0), execute("\"кот пёс\""));
+        assertEquals(Map.of(4, 3.0, 6, 4.0, 8, 1.0), execute("\"пёс дом\" OR дом -кот OR 2"));
+    }
+
+    @Test
+    void missingLemmaMatchesNothing() {
+        assertEquals(Map.of(), execute("кот AND лось"));
+        assertEquals(Map.of(4, 2.0, 5, 2.0, 6, 2.0, 7, 2.0), execute("пёс OR лось"));
+        assertEquals(Map.of(1, 1.0, 2, 1.0, 3, 1.0, 4, 1.0, 5, 1.0), execute("кот -лось"));
+    }
+
+    @Test
+    void pathFilterIsCheckedBeforeScoring() {
+        SegmentMatches matches = QueryExecutor.execute(parse("кот OR пёс path:/a"), source(), 10, 0, 100, null);
+        assertEquals(Map.of(1, 1.0, 3, 1.0, 5, 3.0, 7, 2.0), matches.getRelevance());
+        assertEquals(4, matches.getScored());
+        assertEquals(4, matches.getCount());
+    }
+
+    @Test
+    void topKAndAfterSelectWindow() {
+        ArrayPostingSource source = source();
+        ParsedQuery query = parse("кот OR пёс OR дом");
+        assertEquals(Map.of(4, 4.0, 5, 3.0), QueryExecutor.execute(query, source, 2, 0, 100, null).getRelevance());
+        assertEquals(Map.of(6, 3.0, 2, 2.0),
+                QueryExecutor.execute(query, source, 2, 0, 100, Map.entry(5, 3.0)).getRelevance());
+    }
+
+    @Test
+    void pageScoreRaisesRelevance() {
+        assertEquals(Map.of(4, 3.0 * 1.5, 5, 3.0), execute("кот AND пёс", 0.5));
+    }
+
+    private static Map<Integer, Double> execute(String query) {
+        return execute(query, 0);
+    }
+
+    private static Map<Integer, Double> execute(String query, double scoreWeight) {
+        return QueryExecutor.execute(parse(query), source(), 100, scoreWeight, 100, null).getRelevance();
+    }
+
+    /**
+     * Нечётные страницы лежат в /a, чётные в /b, оценка 1 только у страницы 4.
+     */
+    private static ArrayPostingSource source() {
+        ArrayPostingSource source = new ArrayPostingSource();
+        for (int pageId = 1; pageId <= 10; pageId++) {
+            source.addPage(pageId, (pageId % 2 == 1 ? "/a/" : "/b/") + pageId, pageId == 4 ? 1f : 0f);
+        }
+        source.addPostings("кот", new int[]{1, 2, 3, 4, 5}, new float[]{1, 1, 1, 1, 1});
+        source.addPostings("пёс", new int[]{4, 5, 6, 7}, new float[]{2, 2, 2, 2});
+        source.addPostings("дом", new int[]{2, 4, 6, 8}, new float[]{1, 1, 1, 1});
+        return source;
+    }
+
+    private static ParsedQuery parse(String query) {
+        return QueryParser.parse(query, word -> {
+            String lemma = word.toLowerCase(Locale.ROOT);
+            return Set.of("и").contains(lemma) ? null : lemma;
+        });
+    }
+}
@@ -0,0 +1,120 @@
+package searchengine.query;
+
+import org.junit.jupiter.api.Test;
+import searchengine.exception.SearchException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryParserTest {
+
+    private static final Set<String> STOP_WORDS = Set.of("и", "в");
+
+    @Test
+    void wordsWithoutOperatorsArePlain() {
+        assertTrue(parse("кот пёс").isPlain());
+        assertTrue(parse("кот-пёс").isPlain());
+        assertTrue(parse("кот - пёс").isPlain());
+        assertTrue(parse("site:").isPlain());
+    }
+
+    @Test
+    void operatorsBuildTree() {
+        assertEquals("(кот AND (пёс OR дом))", root("кот AND (пёс OR дом)"));
+        assertEquals("((кот AND пёс) OR дом)", root("кот пёс OR дом"));
+        assertEquals("(кот AND NOT пёс)", root("кот NOT пёс"));
+        assertEquals("(кот AND NOT (пёс OR дом))", root("кот NOT (пёс OR дом)"));
+    }
+
+    @Test
+    void strayClosingParenthesisJoinsRestWithAnd() {
+        assertEquals("(кот AND пёс)", root("кот ) пёс"));
+        assertEquals("кот", root(") кот"));
+        assertEquals("((кот OR пёс) AND дом)", root("(кот OR пёс)) дом"));
+        assertEquals("(кот AND (пёс OR дом))", root("кот ) пёс OR дом"));
+    }
+
+    @Test
+    void unclosedParenthesisIsClosedAtEnd() {
+        assertEquals("(кот AND (пёс OR дом))", root("кот (пёс OR дом"));
+    }
+
+    @Test
+    void loneNotIsIgnoredOrRejected() {
+        ParsedQuery onlyOperator = parse("NOT");
+        assertFalse(onlyOperator.isPlain());
+        assertNull(onlyOperator.getRoot());
+        assertEquals("кот", root("кот NOT"));
+        assertEquals("кот", root("кот NOT AND"));
+        assertThrows(SearchException.class, () -> parse("NOT кот"));
+        assertThrows(SearchException.class, () -> parse("-кот -пёс"));
+        assertThrows(SearchException.class, () -> parse("кот OR NOT пёс"));
+    }
+
+    @Test
+    void unclosedQuoteIsClosedAtEnd() {
+        ParsedQuery query = parse("кот \"пёс дом");
+        assertEquals("(кот AND \"пёс дом\")", query.getRoot().toString());
+        assertEquals(List.of(List.of("пёс", "дом")), query.getRequiredPhrases());
+
+        assertEquals("кот", root("\"кот"));
+        assertEquals("кот", root("кот \""));
+        assertTrue(parse("\"кот").getRequiredPhrases().isEmpty());
+    }
+
+    @Test
+    void stopWordsAreDroppedFromPhrases() {
+        ParsedQuery query = parse("\"кот и пёс\"");
+        assertEquals("\"кот пёс\"", query.getRoot().toString());
+        assertEquals(List.of(List.of("кот", "пёс")), query.getRequiredPhrases());
+        assertNull(parse("\"и в\"").getRoot());
+    }
+
+    @Test
+    void phrasesInsideOrAndNotAreNotRequired() {
+        assertTrue(parse("\"кот пёс\" OR дом").getRequiredPhrases().isEmpty());
+        assertEquals(List.of(List.of("кот", "пёс")), parse("\"кот пёс\" -\"дом сад\"").getRequiredPhrases());
+    }
+
+    @Test
+    void leadingMinusExcludesWordsButNotNumbers() {
+        assertEquals("(кот AND NOT пёс)", root("кот -пёс"));
+        assertTrue(parse("-10").isPlain());
+        assertTrue(parse("кот -10").isPlain());
+        assertEquals("(кот AND 10)", root("(кот -10)"));
+        assertEquals("(кот AND NOT пёс AND 10)", root("кот -пёс -10"));
+    }
+
+    @Test
+    void siteAndPathFiltersApplyToWholeQuery() {
+        ParsedQuery query = parse("кот site:example.ru path:blog OR SITE:other.ru path:/news");
+        assertFalse(query.isPlain());
+        assertEquals("кот", query.getRoot().toString());
+        assertEquals(List.of("example.ru", "other.ru"), query.getSiteFilters());
+        assertEquals(List.of("/blog", "/news"), query.getPathPrefixes());
+    }
+
+    @Test
+    void filterWithoutWordsHasNoRoot() {
+        ParsedQuery query = parse("site:example.ru");
+        assertFalse(query.isPlain());
+        assertNull(query.getRoot());
+    }
+
+    private static String root(String query) {
+        return parse(query).getRoot().toString();
+    }
+
+    private static ParsedQuery parse(String query) {
+        return QueryParser.parse(query, word -> {
+            String lemma = word.toLowerCase(Locale.ROOT);
+            return STOP_WORDS.contains(lemma) ? null : lemma;
+        });
+    }
+}
@@ -0,0 +1,161 @@
+package searchengine.services;
+
+import org.junit.jupiter.api.Test;
+import searchengine.model.Site;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CrawlSchedulerTest {
+
+    private final List<Site> finished = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void sitesAreInterleavedByWeight() throws InterruptedException {
+        Site heavy = site(1);
+        Site light = site(2);
+        List<Site> dispatched = Collections.synchronizedList(new ArrayList<>());
+        CrawlScheduler scheduler = scheduler((site, url) -> {
+            dispatched.add(site);
+            return List.of(next(url));
+        }, () -> false);
+        scheduler.addSite(heavy, heavy.getUrl() + "/0", 2, 0, 40, 0);
+        scheduler.addSite(light, light.getUrl() + "/0", 1, 0, 20, 0);
+        scheduler.run(1);
+
+        assertEquals(60, dispatched.size());
+        int heavyCount = 0;
+        int lightCount = 0;
+        for (Site site : dispatched) {
+            if (site == heavy) {
+                heavyCount++;
+            } else {
+                lightCount++;
+            }
+            // ни один сайт не уходит вперёд больше чем на одну свою очередь
+            assertTrue(Math.abs(heavyCount - 2 * lightCount) <= 2, "после " + (heavyCount + lightCount) + " загрузок: "
+                    + heavyCount + " и " + lightCount);
+        }
+        assertFinishedOnce(heavy, light);
+    }
+
+    @Test
+    void concurrencyLimitIsNeverExceeded() throws InterruptedException {
+        Site site = site(1);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        CrawlScheduler scheduler = scheduler((crawled, url) -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            sleep(5);
+            inFlight.decrementAndGet();
+            return fanOut(url, 5);
+        }, () -> false);
+        scheduler.addSite(site, site.getUrl() + "/0", 1, 3, 60, 0);
+        scheduler.run(8);
+
+        assertTrue(maxInFlight.get() <= 3, "одновременных загрузок: " + maxInFlight.get());
+        assertTrue(maxInFlight.get() > 1, "загрузки не шли параллельно");
+        assertFinishedOnce(site);
+    }
+
+    @Test
+    void pageBudgetStopsDispatch() throws InterruptedException {
+        Site site = site(1);
+        AtomicInteger processed = new AtomicInteger();
+        CrawlScheduler scheduler = scheduler((crawled, url) -> {
+            processed.incrementAndGet();
+            return fanOut(url, 3);
+        }, () -> false);
+        scheduler.addSite(site, site.getUrl() + "/0", 1, 0, 25, 0);
+        scheduler.run(4);
+
+        assertEquals(25, processed.get());
+        assertFinishedOnce(site);
+    }
+
+    @Test
+    void sitesFinishOnceWhenFrontierIsExhausted() throws InterruptedException {
+        Site first = site(1);
+        Site second = site(2);
+        CrawlScheduler scheduler = scheduler((site, url) -> {
+            int page = Integer.parseInt(url.substring(url.lastIndexOf('/') + 1));
+            return page < 10 ? List.of(next(url), site.getUrl() + "/0") : List.of();
+        }, () -> false);
+        scheduler.addSite(first, first.getUrl() + "/0", 1, 2, 0, 0);
+        scheduler.addSite(second, second.getUrl() + "/0", 3, 0, 0, 0);
+        scheduler.run(4);
+
+        assertFinishedOnce(first, second);
+    }
+
+    @Test
+    void sitesFinishOnceWhenStopped() throws InterruptedException {
+        Site first = site(1);
+        Site second = site(2);
+        AtomicInteger processed = new AtomicInteger();
+        AtomicBoolean stop = new AtomicBoolean();
+        CrawlScheduler scheduler = scheduler((site, url) -> {
+            if (processed.incrementAndGet() == 30) {
+                stop.set(true);
+            }
+            return fanOut(url, 2);
+        }, stop::get);
+        scheduler.addSite(first, first.getUrl() + "/0", 1, 0, 0, 0);
+        scheduler.addSite(second, second.getUrl() + "/0", 1, 0, 0, 0);
+        scheduler.run(4);
+
+        assertTrue(processed.get() < 40, "после остановки загружено страниц: " + processed.get());
+        assertFinishedOnce(first, second);
+    }
+
+    private CrawlScheduler scheduler(BiFunction<Site, String, List<String>> pageProcessor,
+                                     BooleanSupplier stopRequested) {
+        return new CrawlScheduler(pageProcessor, finished::add, stopRequested, new CrawlMonitorService());
+    }
+
+    private void assertFinishedOnce(Site... sites) {
+        assertEquals(sites.length, finished.size(), "лишние вызовы onSiteFinished");
+        for (Site site : sites) {
+            assertEquals(1, Collections.frequency(finished, site), site.getUrl());
+        }
+    }
+
+    private static Site site(int id) {
+        Site site = new Site();
+        site.setId(id);
+        site.setUrl("https://site" + id + ".ru");
+        return site;
+    }
+
+    /**
+     * Адрес страницы со следующим номером: страницы сайта образуют цепочку /0, /1, /2...
+     */
+    private static String next(String url) {
+        int slash = url.lastIndexOf('/');
+        return url.substring(0, slash + 1) + (Integer.parseInt(url.substring(slash + 1)) + 1);
+    }
+
+    /**
+     * Ссылки на count ещё не виденных страниц: у каждой страницы свои дочерние адреса.
+     */
+    private static List<String> fanOut(String url, int count) {
+        List<String> links = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            links.add(url + "-" + i);
+        }
+        return links;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
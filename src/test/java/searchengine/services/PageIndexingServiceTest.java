@@ -0,0 +1,89 @@
+package searchengine.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import searchengine.config.AppConfig;
+import searchengine.config.SitesList;
+import searchengine.dto.index.IndexApiResponse;
+import searchengine.dto.index.PageFetchResult;
+import searchengine.metrics.EngineMetrics;
+import searchengine.model.Page;
+import searchengine.model.Site;
+import searchengine.repositories.PageRepository;
+import searchengine.repositories.SiteRepository;
+import java.io.IOException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PageIndexingServiceTest {
+
+    private static final String URL = "https://example.ru/news/1";
+    private static final String PATH = "/news/1";
+    private static final String HTML = "<html><body><p>Кошка ловит мышей</p><a href=\"/news/2\">дальше</a></body></html>";
+
+    private final SiteRepository siteRepository = mock(SiteRepository.class);
+    private final PageRepository pageRepository = mock(PageRepository.class);
+    private final DatabaseHelperService databaseHelperService = mock(DatabaseHelperService.class);
+    private final SiteGenerationService siteGenerationService = mock(SiteGenerationService.class);
+    private final DuplicateDetectionService duplicateDetectionService = mock(DuplicateDetectionService.class);
+    private final SiteLookupService siteLookupService = mock(SiteLookupService.class);
+    private final HtmlParserService htmlParserService = spy(new HtmlParserService(new AppConfig(), EngineMetrics.noop()));
+    private final Site site = new Site();
+    private PageIndexingService pageIndexingService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        site.setId(1);
+        site.setUrl("https://example.ru");
+        pageIndexingService = new PageIndexingService(siteRepository, pageRepository, databaseHelperService,
+                new LemmaParserService(), htmlParserService, siteGenerationService, mock(CrawlMonitorService.class),
+                mock(FrontierService.class), mock(PageScoreService.class), mock(PageRevisitService.class),
+                duplicateDetectionService, siteLookupService, new SitesList(), new AppConfig());
+        when(siteRepository.count()).thenReturn(1L);
+        when(siteLookupService.findByUrl(URL)).thenReturn(Optional.of(site));
+        doReturn(new PageFetchResult(HTML, URL, 200)).when(htmlParserService).fetchPage(URL);
+    }
+
+    @Test
+    void reindexReplacesExistingPage() {
+        Page oldPage = new Page();
+        oldPage.setId(7);
+        when(pageRepository.findBySiteAndPath(site, PATH)).thenReturn(Optional.of(oldPage));
+        when(databaseHelperService.savePage(eq(site), eq(PATH), eq(200), eq(HTML), any())).thenReturn(new Page());
+
+        IndexApiResponse response = pageIndexingService.indexPage(URL);
+
+        assertTrue(response.isResult(), response.getError());
+        verify(databaseHelperService).deletePageData(oldPage);
+        verify(databaseHelperService).savePage(eq(site), eq(PATH), eq(200), eq(HTML), any());
+        verify(siteGenerationService).completed(site);
+    }
+
+    @Test
+    void failedSaveIsReportedAsError() {
+        when(pageRepository.findBySiteAndPath(site, PATH)).thenReturn(Optional.empty());
+        when(databaseHelperService.savePage(any(), anyString(), anyInt(), anyString(), any()))
+                .thenThrow(new DataIntegrityViolationException("uk_page_site_path"));
+        when(pageRepository.existsBySiteAndPath(site, PATH)).thenReturn(true);
+
+        IndexApiResponse response = pageIndexingService.indexPage(URL);
+
+        assertFalse(response.isResult());
+        assertEquals("Ошибка индексации страницы: uk_page_site_path", response.getError());
+        verify(siteGenerationService, never()).completed(site);
+    }
+}
@@ -0,0 +1,77 @@
+package searchengine.services;
+
+import org.jsoup.HttpStatusException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import searchengine.config.AppConfig;
+import searchengine.metrics.EngineMetrics;
+import searchengine.model.Page;
+import searchengine.model.PageRevisit;
+import searchengine.model.Site;
+import searchengine.repositories.PageRepository;
+import searchengine.repositories.SiteRepository;
+import java.io.IOException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecrawlServiceTest {
+
+    private static final String URL = "https://example.ru/news/1";
+
+    private final PageRevisitService pageRevisitService = mock(PageRevisitService.class);
+    private final HtmlParserService htmlParserService = mock(HtmlParserService.class);
+    private final DatabaseHelperService databaseHelperService = mock(DatabaseHelperService.class);
+    private final CrawlMonitorService crawlMonitorService = mock(CrawlMonitorService.class);
+    private final EngineMetrics engineMetrics = mock(EngineMetrics.class);
+    private final PageRepository pageRepository = mock(PageRepository.class);
+    private final PageRevisit revisit = new PageRevisit();
+    private final Page page = new Page();
+    private RecrawlService recrawlService;
+
+    @BeforeEach
+    void setUp() {
+        Site site = new Site();
+        site.setId(1);
+        site.setUrl("https://example.ru/");
+        revisit.setSite(site);
+        revisit.setPath("/news/1");
+        when(pageRepository.findBySiteAndPath(site, "/news/1")).thenReturn(Optional.of(page));
+        recrawlService = new RecrawlService(new AppConfig(), pageRevisitService, mock(PageIndexingService.class),
+                htmlParserService, databaseHelperService, mock(PageScoreService.class), mock(SiteGenerationService.class),
+                crawlMonitorService, engineMetrics, pageRepository, mock(SiteRepository.class));
+    }
+
+    @Test
+    void missingPageIsRemovedFromIndex() throws IOException {
+        for (int statusCode : new int[]{404, 410}) {
+            doThrow(new HttpStatusException("HTTP error fetching URL", statusCode, URL)).when(htmlParserService).fetchPage(URL);
+
+            assertTrue(recrawlService.refresh(revisit), "HTTP " + statusCode);
+        }
+        verify(databaseHelperService, times(2)).deletePageData(page);
+        verify(pageRevisitService, times(2)).forget(revisit);
+        verify(engineMetrics, times(2)).recordRecrawl("removed");
+        verify(pageRevisitService, never()).postpone(any());
+    }
+
+    @Test
+    void serverErrorPostponesRevisit() throws IOException {
+        when(htmlParserService.fetchPage(URL)).thenThrow(new HttpStatusException("HTTP error fetching URL", 503, URL));
+
+        assertFalse(recrawlService.refresh(revisit));
+        verify(pageRevisitService).postpone(revisit);
+        verify(crawlMonitorService).onPageFailed(revisit.getSite());
+        verify(engineMetrics).recordRecrawl("failed");
+        verify(databaseHelperService, never()).deletePageData(any());
+        verify(pageRevisitService, never()).forget(any());
+    }
+}